@@ -0,0 +1,101 @@
+package main;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AnalyticsBenchmark
+ *
+ * The queries behind the Analytics page (AnalyticsController), through AnalyticsDAO.
+ *
+ * - The result cache is disabled, so every call reaches its engine: engine=sql
+ *   reads the rollup tables, engine=cube answers from the in-memory SalesCube.
+ * - Ranged queries cover the last twelve months of generated sales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    // 10M sales only on request (-p sales=10000000); generating that database takes minutes
+    @Param({ "10000", "1000000" })
+    public int sales;
+
+    @Param({ "sql", "cube" })
+    public String engine;
+
+    private AnalyticsDAO dao;
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setProperty("lamesa.analytics.engine", engine);
+        System.setProperty("lamesa.analytics.cacheBytes", "0");
+        BenchmarkDatabase.use(sales);
+        BenchmarkDatabase.silenceApplicationOutput();
+
+        dao = new AnalyticsDAO();
+        end = LocalDate.now();
+        start = end.minusYears(1).plusDays(1);
+        // Cube engine: load the history once, outside the measurement
+        dao.fetchTotalThisYear(QueryCanceller.NONE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Database.shutdown();
+    }
+
+    @Benchmark
+    public List<AnalyticsDAO.MonthlyTotal> monthlySalesAllTime() throws Exception {
+        return dao.fetchMonthlySales(QueryCanceller.NONE);
+    }
+
+    @Benchmark
+    public List<AnalyticsDAO.MonthlyTotal> monthlySalesLastYear() throws Exception {
+        return dao.fetchMonthlySales(start, end, QueryCanceller.NONE);
+    }
+
+    @Benchmark
+    public List<AnalyticsDAO.MealTotal> topMealsAllTime() throws Exception {
+        return dao.fetchTopMeals(QueryCanceller.NONE);
+    }
+
+    @Benchmark
+    public List<AnalyticsDAO.MealTotal> topMealsLastYear() throws Exception {
+        return dao.fetchTopMeals(start, end, QueryCanceller.NONE);
+    }
+
+    @Benchmark
+    public List<AnalyticsDAO.MealTotal> salesByProduct() throws Exception {
+        return dao.fetchSalesByProduct(QueryCanceller.NONE);
+    }
+
+    @Benchmark
+    public double totalThisYear() throws Exception {
+        return dao.fetchTotalThisYear(QueryCanceller.NONE);
+    }
+
+    @Benchmark
+    public double totalThisMonthInRange() throws Exception {
+        return dao.fetchTotalThisMonth(start, end, QueryCanceller.NONE);
+    }
+}
@@ -0,0 +1,55 @@
+package main;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AttendanceUtilsBenchmark
+ *
+ * One login/logout cycle as written at sign-in and sign-out. Writes to the
+ * generated database, so attendance grows a little with every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttendanceUtilsBenchmark {
+
+    // 10M sales only on request (-p sales=10000000); generating that database takes minutes
+    @Param({ "10000", "1000000" })
+    public int sales;
+
+    // A generated user (see WorkloadGenerator)
+    private static final String USERNAME = "staff0001";
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.use(sales);
+        BenchmarkDatabase.silenceApplicationOutput();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Database.shutdown();
+    }
+
+    @Benchmark
+    public void loginLogout() {
+        AttendanceUtils.recordLogin(USERNAME);
+        AttendanceUtils.recordLogout(USERNAME);
+    }
+}
@@ -0,0 +1,70 @@
+package main;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+
+/**
+ * BenchmarkDatabase
+ *
+ * Prepares the database a benchmark fork runs against and points the
+ * application's connection pool at it.
+ *
+ * - One file per size (target/benchdb/lamesa-<sales>.db), filled by
+ *   WorkloadGenerator on first use and reused by later forks and runs.
+ * - Three years of history, one user per 2000 sales (20..5000), fixed seed, so
+ *   every machine benchmarks the same data.
+ * - SchemaMigrator runs after generation, so rollups, epoch columns and indexes
+ *   are built in bulk.
+ * - use() must run before anything touches Database: the pool reads
+ *   lamesa.db.url once.
+ *
+ * Configuration (JVM system property):
+ * - lamesa.bench.dir  where generated databases are kept (default target/benchdb)
+ */
+final class BenchmarkDatabase {
+
+    private static final int YEARS = 3;
+    private static final long SEED = 42;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Make sure a database with the given number of generated sales exists, and
+     * configure the application to use it.
+     */
+    static synchronized Path use(int sales) throws IOException, SQLException {
+        Path dir = Paths.get(System.getProperty("lamesa.bench.dir", "target/benchdb"));
+        Path db = dir.resolve("lamesa-" + sales + ".db");
+        if (!Files.exists(db)) {
+            generate(db, sales);
+        }
+
+        System.setProperty("lamesa.db.url", "jdbc:sqlite:" + db);
+        SchemaMigrator.migrate();
+        return db;
+    }
+
+    /**
+     * Drop the application's console output; the DAOs log every call.
+     */
+    static void silenceApplicationOutput() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    private static void generate(Path db, int sales) throws IOException, SQLException {
+        Files.createDirectories(db.toAbsolutePath().getParent());
+        Path tmp = db.resolveSibling(db.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+
+        int users = Math.max(20, Math.min(5000, sales / 2000));
+        WorkloadGenerator.generate(tmp, new WorkloadGenerator.Config(sales, YEARS, users, SEED));
+        Files.move(tmp, db, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
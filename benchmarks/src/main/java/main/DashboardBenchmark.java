@@ -0,0 +1,65 @@
+package main;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DashboardBenchmark
+ *
+ * The three tile queries DashboardController runs on every visit, through
+ * DashboardService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardBenchmark {
+
+    // 10M sales only on request (-p sales=10000000); generating that database takes minutes
+    @Param({ "10000", "1000000" })
+    public int sales;
+
+    private DashboardService service;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.use(sales);
+        BenchmarkDatabase.silenceApplicationOutput();
+        service = new DashboardService();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Database.shutdown();
+    }
+
+    @Benchmark
+    public DashboardSnapshot kpis() throws Exception {
+        return service.loadKpis();
+    }
+
+    @Benchmark
+    public List<DashboardService.LowStockItem> lowStock() throws Exception {
+        return service.loadLowStock();
+    }
+
+    @Benchmark
+    public List<DashboardService.StaffActivity> topStaff() throws Exception {
+        return service.loadTopStaff();
+    }
+}
@@ -0,0 +1,473 @@
+package main;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * WorkloadGenerator
+ *
+ * Headless tool that fills a fresh database with production-sized data for
+ * benchmarks and UI stress tests. Part of the benchmarks module; the
+ * application never ships it.
+ *
+ * - Creates the base tables and triggers, then menu, users, attendance and sales,
+ *   then runs SchemaMigrator so rollups, epoch columns and indexes are built in bulk.
+ * - The shipped inventory triggers are active while loading, like in production:
+ *   each new meal gets an inventory row and each sale takes its quantity off the
+ *   stock. Stock levels are reset at the end, as after a restock.
+ * - Sales follow daily and seasonal patterns: busier weekends, a mid-year and a
+ *   December peak, slow growth over the years, lunch and dinner rushes, and a
+ *   skewed meal popularity. Rows are inserted in time order.
+ * - Users all have the password "password"; about one in ten is a manager.
+ *   Each day a share of the staff works one shift (attendance times in UTC, like
+ *   AttendanceUtils writes them).
+ * - Batched inserts (BATCH_SIZE rows) inside large transactions (COMMIT_ROWS rows),
+ *   with journaling off while loading: 10M sales load in a few minutes.
+ * - Deterministic for a given seed.
+ *
+ * Usage:
+ *   java -cp benchmarks/target/benchmarks.jar main.WorkloadGenerator --db target/big.db --sales 10000000
+ *   Options: --sales N (default 1000000), --years N (3), --users N (2000), --seed N (42), --force
+ * Then run the app against it with -Dlamesa.db.url=jdbc:sqlite:target/big.db
+ */
+public final class WorkloadGenerator {
+
+    /**
+     * What to generate.
+     */
+    public static final class Config {
+        public final int sales;
+        public final int years;
+        public final int users;
+        public final long seed;
+
+        public Config(int sales, int years, int users, long seed) {
+            this.sales = sales;
+            this.years = years;
+            this.users = users;
+            this.seed = seed;
+        }
+    }
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int COMMIT_ROWS = 500_000;
+    private static final String PASSWORD = "password";
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Base schema and triggers, as shipped in database/lamesa.db; later changes come from SchemaMigrator
+    private static final String[] BASE_SCHEMA = {
+        "CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE NOT NULL, "
+            + "password_hash TEXT NOT NULL, role TEXT NOT NULL DEFAULT 'employee')",
+        "CREATE TABLE attendance (id INTEGER, username TEXT NOT NULL, login_time DATETIME NOT NULL, "
+            + "logout_time DATETIME, worked_hours REAL, full_shift BOOLEAN, PRIMARY KEY(id AUTOINCREMENT))",
+        "CREATE TABLE meal_types (type_id INTEGER PRIMARY KEY AUTOINCREMENT, type_name TEXT NOT NULL)",
+        "CREATE TABLE meal_category (category_id INTEGER PRIMARY KEY AUTOINCREMENT, category_name TEXT NOT NULL)",
+        "CREATE TABLE meal (meal_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, price REAL NOT NULL, "
+            + "category_id INTEGER, type_id INTEGER, description TEXT, image_path TEXT, "
+            + "FOREIGN KEY (type_id) REFERENCES meal_types(type_id))",
+        "CREATE TABLE sales (sale_id INTEGER PRIMARY KEY AUTOINCREMENT, meal_id INTEGER NOT NULL, "
+            + "quantity INTEGER NOT NULL, sale_date DATETIME NOT NULL DEFAULT (datetime('now','localtime')), "
+            + "total_price REAL NOT NULL, FOREIGN KEY (meal_id) REFERENCES meal(meal_id))",
+        "CREATE TABLE inventory (inventory_id INTEGER PRIMARY KEY AUTOINCREMENT, meal_id INTEGER NOT NULL, "
+            + "stock_quantity INTEGER NOT NULL DEFAULT 0, status TEXT, "
+            + "date_added DATETIME NOT NULL DEFAULT (datetime('now','localtime')), "
+            + "FOREIGN KEY(meal_id) REFERENCES meal(meal_id))",
+        "CREATE TRIGGER trg_add_meal_inventory AFTER INSERT ON meal FOR EACH ROW "
+            + "BEGIN "
+            + "INSERT INTO inventory (meal_id, stock_quantity, status, date_added) "
+            + "VALUES (NEW.meal_id, 50, 'Available', DATE('now')); "
+            + "END",
+        "CREATE TRIGGER trg_update_inventory_after_sale AFTER INSERT ON sales FOR EACH ROW "
+            + "BEGIN "
+            + "UPDATE inventory SET stock_quantity = stock_quantity - NEW.quantity, "
+            + "status = CASE WHEN stock_quantity - NEW.quantity <= 0 THEN 'Unavailable' ELSE 'Available' END "
+            + "WHERE meal_id = NEW.meal_id; "
+            + "END",
+    };
+
+    private static final String[] CATEGORIES = { "Breakfast", "Lunch", "Dinner", "Snack", "Dessert" };
+    private static final String[] TYPES = { "Vegetarian", "Non-Vegetarian" };
+
+    // name, price, category (index into CATEGORIES), type (index into TYPES); most popular first
+    private static final Object[][] MENU = {
+        { "Chicken Adobo", 120.0, 1, 1 }, { "Pork Sinigang", 150.0, 1, 1 }, { "Pancit Canton", 95.0, 1, 1 },
+        { "Beef Kare-Kare", 180.0, 2, 1 }, { "Lechon Kawali", 160.0, 2, 1 }, { "Pork Sisig", 130.0, 2, 1 },
+        { "Tapsilog", 110.0, 0, 1 }, { "Longsilog", 105.0, 0, 1 }, { "Bulalo", 190.0, 2, 1 },
+        { "Halo-Halo", 85.0, 4, 0 }, { "Tinola", 125.0, 2, 1 }, { "Lumpiang Shanghai", 90.0, 3, 1 },
+        { "Tocilog", 105.0, 0, 1 }, { "Laing", 110.0, 1, 0 }, { "Bicol Express", 135.0, 2, 1 },
+        { "Champorado", 70.0, 0, 0 }, { "Leche Flan", 75.0, 4, 0 }, { "Fried Fish", 120.0, 1, 1 },
+        { "Pinakbet", 115.0, 1, 0 }, { "Turon", 45.0, 3, 0 }, { "Chopsuey", 120.0, 2, 0 },
+        { "Ginataang Gulay", 100.0, 1, 0 }, { "Buko Pie", 60.0, 4, 0 }, { "Kwek-Kwek", 40.0, 3, 1 },
+    };
+
+    private WorkloadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path db = null;
+        int sales = 1_000_000;
+        int years = 3;
+        int users = 2000;
+        long seed = 42;
+        boolean force = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--db":    db = Paths.get(args[++i]); break;
+                case "--sales": sales = Integer.parseInt(args[++i]); break;
+                case "--years": years = Integer.parseInt(args[++i]); break;
+                case "--users": users = Integer.parseInt(args[++i]); break;
+                case "--seed":  seed = Long.parseLong(args[++i]); break;
+                case "--force": force = true; break;
+                default:
+                    Log.error("WorkloadGenerator", "Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (db == null) {
+            Log.error("WorkloadGenerator", "Usage: --db <file> [--sales N] [--years N] [--users N] [--seed N] [--force]");
+            System.exit(2);
+        }
+        if (Files.exists(db)) {
+            if (!force) {
+                Log.error("WorkloadGenerator", db + " exists; pass --force to replace it");
+                System.exit(2);
+            }
+            Files.delete(db);
+        }
+
+        generate(db, new Config(sales, years, users, seed));
+
+        System.setProperty("lamesa.db.url", "jdbc:sqlite:" + db);
+        SchemaMigrator.migrate();
+        Database.shutdown();
+    }
+
+    /**
+     * Write the base schema and the generated rows to a new database file. The
+     * caller runs SchemaMigrator against it afterwards.
+     */
+    public static void generate(Path db, Config config) throws SQLException {
+        long started = System.currentTimeMillis();
+        Random random = new Random(config.seed);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db)) {
+            try (Statement st = conn.createStatement()) {
+                // Nothing to protect while loading a fresh file
+                st.execute("PRAGMA journal_mode = OFF");
+                st.execute("PRAGMA synchronous = OFF");
+                st.execute("PRAGMA cache_size = -64000");
+                for (String sql : BASE_SCHEMA) {
+                    st.execute(sql);
+                }
+            }
+            conn.setAutoCommit(false);
+
+            insertMenu(conn);
+            insertUsers(conn, config.users, random);
+            conn.commit();
+
+            LocalDate last = LocalDate.now().minusDays(1);
+            LocalDate first = last.minusYears(config.years).plusDays(1);
+            long sessions = insertAttendance(conn, config.users, first, last, random);
+            insertSales(conn, config.sales, first, last, random);
+            restock(conn);
+            conn.commit();
+
+            Log.info("WorkloadGenerator", "Generated " + config.sales + " sales, " + config.users + " users, "
+                    + sessions + " attendance sessions (" + first + " .. " + last + ") in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        }
+    }
+
+    // ==================== MENU & USERS ====================
+
+    private static void insertMenu(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO meal_category (category_name) VALUES (?)")) {
+            for (String name : CATEGORIES) {
+                ps.setString(1, name);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO meal_types (type_name) VALUES (?)")) {
+            for (String name : TYPES) {
+                ps.setString(1, name);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        // trg_add_meal_inventory creates each meal's inventory row
+        try (PreparedStatement meal = conn.prepareStatement(
+                "INSERT INTO meal (name, price, category_id, type_id) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < MENU.length; i++) {
+                meal.setString(1, (String) MENU[i][0]);
+                meal.setDouble(2, (Double) MENU[i][1]);
+                meal.setInt(3, (Integer) MENU[i][2] + 1);
+                meal.setInt(4, (Integer) MENU[i][3] + 1);
+                meal.addBatch();
+            }
+            meal.executeBatch();
+        }
+    }
+
+    /**
+     * Varied stock levels after the sales trigger has run the stock down, so the
+     * inventory page shows a mix of healthy and low items.
+     */
+    private static void restock(Connection conn) throws SQLException {
+        try (PreparedStatement stock = conn.prepareStatement(
+                "UPDATE inventory SET stock_quantity = ?, status = ? WHERE meal_id = ?")) {
+            for (int i = 0; i < MENU.length; i++) {
+                int qty = (i * 7) % 40;
+                stock.setInt(1, qty);
+                stock.setString(2, qty < 15 ? "Action Required" : "Available");
+                stock.setInt(3, i + 1);
+                stock.addBatch();
+            }
+            stock.executeBatch();
+        }
+    }
+
+    private static void insertUsers(Connection conn, int users, Random random) throws SQLException {
+        String hash = sha256Hex(PASSWORD);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO users (username, password_hash, role) VALUES (?, ?, ?)")) {
+            for (int u = 1; u <= users; u++) {
+                ps.setString(1, username(u));
+                ps.setString(2, hash);
+                ps.setString(3, u == 1 || random.nextInt(10) == 0 ? "manager" : "employee");
+                ps.addBatch();
+                if (u % BATCH_SIZE == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    // ==================== ATTENDANCE ====================
+
+    private static long insertAttendance(Connection conn, int users, LocalDate first, LocalDate last, Random random)
+            throws SQLException {
+        ZoneId zone = ZoneId.systemDefault();
+        int perDay = Math.max(1, users / 12);
+        long rows = 0;
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO attendance (username, login_time, logout_time, worked_hours, full_shift) "
+                + "VALUES (?, ?, ?, ?, ?)")) {
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                for (int s = 0; s < perDay; s++) {
+                    // Morning or afternoon shift, 6 to 10 hours, local clock stored as UTC
+                    int startMinute = (random.nextBoolean() ? 7 * 60 : 14 * 60) + random.nextInt(90);
+                    int workedMinutes = 360 + random.nextInt(241);
+                    LocalDateTime login = day.atStartOfDay().plusMinutes(startMinute);
+                    LocalDateTime logout = login.plusMinutes(workedMinutes);
+
+                    ps.setString(1, username(1 + random.nextInt(users)));
+                    ps.setString(2, toUtc(login, zone));
+                    ps.setString(3, toUtc(logout, zone));
+                    ps.setDouble(4, Math.round(workedMinutes / 60.0 * 100) / 100.0);
+                    // Same rule as AttendanceUtils.recordLogout
+                    ps.setBoolean(5, workedMinutes * 60L >= 10);
+                    ps.addBatch();
+
+                    if (++rows % BATCH_SIZE == 0) {
+                        ps.executeBatch();
+                    }
+                    if (rows % COMMIT_ROWS == 0) {
+                        conn.commit();
+                    }
+                }
+            }
+            ps.executeBatch();
+        }
+        return rows;
+    }
+
+    // ==================== SALES ====================
+
+    private static void insertSales(Connection conn, int sales, LocalDate first, LocalDate last, Random random)
+            throws SQLException {
+        int days = (int) (last.toEpochDay() - first.toEpochDay()) + 1;
+
+        // Expected share of sales per day, then spread the total with cumulative rounding
+        double[] weight = new double[days];
+        double sum = 0;
+        for (int d = 0; d < days; d++) {
+            weight[d] = dayWeight(first.plusDays(d), d / (double) days);
+            sum += weight[d];
+        }
+
+        double[] popularity = new double[MENU.length];
+        for (int m = 0; m < MENU.length; m++) {
+            popularity[m] = (m == 0 ? 0 : popularity[m - 1]) + 1.0 / Math.pow(m + 1, 0.8);
+        }
+
+        long loaded = 0;
+        long lastReport = 0;
+        double cumulative = 0;
+        int[] minutes = new int[64];
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO sales (meal_id, quantity, sale_date, total_price) VALUES (?, ?, ?, ?)")) {
+            for (int d = 0; d < days; d++) {
+                cumulative += weight[d] / sum * sales;
+                int count = (int) (Math.round(cumulative) - loaded);
+                if (d == days - 1) {
+                    count = (int) (sales - loaded);
+                }
+                if (count <= 0) {
+                    continue;
+                }
+
+                if (minutes.length < count) {
+                    minutes = new int[Math.max(count, minutes.length * 2)];
+                }
+                for (int i = 0; i < count; i++) {
+                    minutes[i] = saleMinute(random);
+                }
+                Arrays.sort(minutes, 0, count);
+
+                LocalDateTime midnight = first.plusDays(d).atStartOfDay();
+                for (int i = 0; i < count; i++) {
+                    int minute = minutes[i];
+                    int meal = pickMeal(popularity, minute, random);
+                    int quantity = pickQuantity(random);
+                    double price = (Double) MENU[meal][1];
+
+                    ps.setInt(1, meal + 1);
+                    ps.setInt(2, quantity);
+                    ps.setString(3, midnight.plusSeconds(minute * 60L + random.nextInt(60)).format(SQL_TIME));
+                    ps.setDouble(4, quantity * price);
+                    ps.addBatch();
+
+                    if (++loaded % BATCH_SIZE == 0) {
+                        ps.executeBatch();
+                    }
+                    if (loaded % COMMIT_ROWS == 0) {
+                        conn.commit();
+                    }
+                }
+
+                if (loaded - lastReport >= 1_000_000) {
+                    lastReport = loaded;
+                    Log.info("WorkloadGenerator", loaded + " / " + sales + " sales");
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Relative business of a day: weekday, season (mid-year and December peaks)
+     * and slow growth over the generated period (progress 0..1).
+     */
+    private static double dayWeight(LocalDate day, double progress) {
+        double weekday;
+        DayOfWeek dow = day.getDayOfWeek();
+        switch (dow) {
+            case FRIDAY:   weekday = 1.2; break;
+            case SATURDAY: weekday = 1.4; break;
+            case SUNDAY:   weekday = 1.3; break;
+            case MONDAY:   weekday = 0.8; break;
+            default:       weekday = 0.95; break;
+        }
+        double season = 1 + 0.12 * Math.sin(2 * Math.PI * (day.getDayOfYear() - 80) / 365.0);
+        if (day.getMonthValue() == 12) {
+            season *= day.getDayOfMonth() >= 15 ? 1.5 : 1.2;
+        }
+        double growth = 1 + 0.25 * progress;
+        return weekday * season * growth;
+    }
+
+    /**
+     * Minute of the day for one sale: breakfast, lunch and dinner rushes on a
+     * thin all-day base, within opening hours (6:00 to 22:00).
+     */
+    private static int saleMinute(Random random) {
+        double r = random.nextDouble();
+        double center;
+        double spread;
+        if (r < 0.15) {
+            center = 7.5 * 60; spread = 45;
+        } else if (r < 0.55) {
+            center = 12.25 * 60; spread = 60;
+        } else if (r < 0.90) {
+            center = 19 * 60; spread = 80;
+        } else {
+            center = 15 * 60; spread = 200;
+        }
+        int minute = (int) Math.round(center + random.nextGaussian() * spread);
+        return Math.max(6 * 60, Math.min(22 * 60 - 1, minute));
+    }
+
+    /**
+     * Popularity-weighted meal, with breakfast dishes mostly sold in the morning.
+     */
+    private static int pickMeal(double[] cumulativePopularity, int minute, Random random) {
+        double total = cumulativePopularity[cumulativePopularity.length - 1];
+        while (true) {
+            int idx = Arrays.binarySearch(cumulativePopularity, random.nextDouble() * total);
+            int meal = idx >= 0 ? idx : -idx - 1;
+            boolean breakfast = (Integer) MENU[meal][2] == 0;
+            boolean morning = minute < 10 * 60 + 30;
+            // Reject most mismatches rather than all, so menus still overlap a little
+            if (breakfast == morning || random.nextInt(5) == 0) {
+                return meal;
+            }
+        }
+    }
+
+    private static int pickQuantity(Random random) {
+        int r = random.nextInt(100);
+        if (r < 55) return 1;
+        if (r < 80) return 2;
+        if (r < 92) return 3;
+        return 4;
+    }
+
+    // ==================== HELPERS ====================
+
+    private static String username(int n) {
+        return String.format("staff%04d", n);
+    }
+
+    private static String toUtc(LocalDateTime local, ZoneId zone) {
+        return local.atZone(zone).withZoneSameInstant(ZoneOffset.UTC).format(SQL_TIME);
+    }
+
+    // Same digest as LoginController.hashPassword, so generated users can sign in
+    private static String sha256Hex(String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(password.getBytes(StandardCharsets.UTF_8));
+            String hex = new BigInteger(1, digest).toString(16);
+            while (hex.length() < 64) {
+                hex = "0" + hex;
+            }
+            return hex;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
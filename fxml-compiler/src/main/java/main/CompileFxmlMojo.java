@@ -0,0 +1,97 @@
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * CompileFxmlMojo
+ *
+ * Goal lamesa-fxml:compile-fxml. Compiles FXML pages into Java view classes
+ * before the application sources are compiled.
+ *
+ * - Each page in 'pages' (e.g. "food_menu") is read from fxmlDirectory and
+ *   written as <packageName>.<Page>View (e.g. main.FoodMenuView) to
+ *   outputDirectory, which is added to the compile source roots.
+ * - A page using something FxmlCompiler does not support is skipped with a
+ *   warning; the application then loads it with FXMLLoader as before.
+ * - Files are only rewritten when their content changes, so unchanged views do
+ *   not trigger a recompile.
+ */
+@Mojo(name = "compile-fxml", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class CompileFxmlMojo extends AbstractMojo {
+
+    /**
+     * Page names, without the .fxml extension.
+     */
+    @Parameter(required = true)
+    private List<String> pages;
+
+    @Parameter(defaultValue = "${project.basedir}/src/main/resources/main")
+    private File fxmlDirectory;
+
+    /**
+     * Classpath location of fxmlDirectory at runtime; relative paths in the FXML resolve against it.
+     */
+    @Parameter(defaultValue = "/main/")
+    private String resourcePath;
+
+    @Parameter(defaultValue = "main")
+    private String packageName;
+
+    @Parameter(defaultValue = "${project.build.directory}/generated-sources/fxml")
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        FxmlCompiler compiler = new FxmlCompiler(getClass().getClassLoader(), packageName);
+        Path packageDir = outputDirectory.toPath().resolve(packageName.replace('.', File.separatorChar));
+        String base = resourcePath.endsWith("/") ? resourcePath : resourcePath + "/";
+
+        try {
+            Files.createDirectories(packageDir);
+            for (String page : pages) {
+                Path fxml = fxmlDirectory.toPath().resolve(page + ".fxml");
+                Path target = packageDir.resolve(FxmlCompiler.viewClassName(page) + ".java");
+                if (!Files.isRegularFile(fxml)) {
+                    throw new MojoExecutionException("FXML not found: " + fxml);
+                }
+
+                String source;
+                try {
+                    source = compiler.compile(fxml, base + page + ".fxml", FxmlCompiler.viewClassName(page));
+                } catch (FxmlCompiler.UnsupportedFxmlException e) {
+                    getLog().warn("Not compiling " + fxml.getFileName() + ", it stays on FXMLLoader: " + e.getMessage());
+                    Files.deleteIfExists(target);
+                    continue;
+                }
+
+                byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+                if (Files.isRegularFile(target) && Arrays.equals(Files.readAllBytes(target), bytes)) {
+                    getLog().debug("Up to date: " + target);
+                } else {
+                    Files.write(target, bytes);
+                    getLog().info("Compiled " + fxml.getFileName() + " -> " + target.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to compile FXML pages", e);
+        }
+
+        project.addCompileSourceRoot(outputDirectory.getPath());
+    }
+}
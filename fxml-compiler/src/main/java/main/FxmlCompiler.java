@@ -0,0 +1,922 @@
+package main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.lang.model.SourceVersion;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import javafx.beans.DefaultProperty;
+import javafx.beans.NamedArg;
+
+/**
+ * FxmlCompiler
+ *
+ * Translates one FXML file into the source of a CompiledView subclass that
+ * builds the same scene graph with plain constructor and setter calls.
+ *
+ * Everything FXMLLoader works out at runtime is resolved here, once, by reading
+ * the JavaFX classes: which class a tag names, which setter or read-only list a
+ * property maps to, the default property of a container, the @NamedArg
+ * constructor of immutable types (Insets, Font, chart axes) and how attribute
+ * strings convert to numbers, enums and valueOf() types. The generated class is
+ * then checked by javac like any other source.
+ *
+ * Supported, with FXMLLoader's semantics:
+ * - <?import?> of classes and packages, instance elements, property elements,
+ *   default properties, read-only list properties (children, columns, styleClass,
+ *   stylesheets, ...)
+ * - Static properties (VBox.vgrow="ALWAYS"), fx:id, fx:controller (root only),
+ *   fx:constant, fx:value, event handlers "#method" and "@relative/location" values
+ *
+ * Anything else (fx:include, fx:define, scripts, "$" expressions, "%" resources,
+ * unknown properties, ...) raises UnsupportedFxmlException and the page is left
+ * to FXMLLoader.
+ */
+final class FxmlCompiler {
+
+    /**
+     * The FXML uses something this compiler does not translate.
+     */
+    static final class UnsupportedFxmlException extends Exception {
+        UnsupportedFxmlException(String message) {
+            super(message);
+        }
+    }
+
+    private static final String FX_PREFIX = "fx";
+
+    private final ClassLoader classLoader;
+    private final String packageName;
+
+    FxmlCompiler(ClassLoader classLoader, String packageName) {
+        this.classLoader = classLoader;
+        this.packageName = packageName;
+    }
+
+    /**
+     * "food_menu" -> "FoodMenuView".
+     */
+    static String viewClassName(String page) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : page.split("[^A-Za-z0-9]+")) {
+            if (!part.isEmpty()) {
+                sb.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+        }
+        return sb.append("View").toString();
+    }
+
+    /**
+     * Compile one FXML file.
+     *
+     * @param fxml      the file to read
+     * @param location  its classpath location at runtime, e.g. "/main/food_menu.fxml"
+     * @param className simple name of the class to generate
+     * @return Java source of the view class
+     */
+    String compile(Path fxml, String location, String className) throws IOException, UnsupportedFxmlException {
+        Document document;
+        try (InputStream in = Files.newInputStream(fxml)) {
+            document = parse(in);
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed FXML " + fxml + ": " + e.getMessage(), e);
+        }
+        return new Unit(location, className).generate(document);
+    }
+
+    // ==================== XML MODEL ====================
+
+    /**
+     * An FXML element with its attributes in document order (FXMLLoader applies them in that order).
+     */
+    private static final class Element {
+        final String prefix;
+        final String name;
+        final int line;
+        final List<String[]> attributes = new ArrayList<>(); // {prefix, name, value}
+        final List<Element> elements = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+
+        Element(String prefix, String name, int line) {
+            this.prefix = prefix;
+            this.name = name;
+            this.line = line;
+        }
+
+        boolean isFx() {
+            return FX_PREFIX.equals(prefix);
+        }
+
+        String fxAttribute(String attribute) {
+            for (String[] a : attributes) {
+                if (FX_PREFIX.equals(a[0]) && a[1].equals(attribute)) {
+                    return a[2];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Document {
+        final List<String[]> instructions = new ArrayList<>(); // {target, data}
+        Element root;
+    }
+
+    private static Document parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        Document document = new Document();
+        Deque<Element> open = new ArrayDeque<>();
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        document.instructions.add(new String[] { reader.getPITarget(), reader.getPIData() });
+                        break;
+                    case XMLStreamConstants.START_ELEMENT: {
+                        Element e = new Element(reader.getPrefix(), reader.getLocalName(),
+                                reader.getLocation().getLineNumber());
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            e.attributes.add(new String[] {
+                                    reader.getAttributePrefix(i), reader.getAttributeLocalName(i), reader.getAttributeValue(i) });
+                        }
+                        if (open.isEmpty()) {
+                            document.root = e;
+                        } else {
+                            open.peek().elements.add(e);
+                        }
+                        open.push(e);
+                        break;
+                    }
+                    case XMLStreamConstants.END_ELEMENT:
+                        open.pop();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (!open.isEmpty()) {
+                            open.peek().text.append(reader.getText());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return document;
+    }
+
+    // ==================== CODE GENERATION ====================
+
+    /**
+     * A Java expression and its static type.
+     */
+    private static final class Value {
+        final String expression;
+        final Class<?> type;
+
+        Value(String expression, Class<?> type) {
+            this.expression = expression;
+            this.type = type;
+        }
+    }
+
+    /**
+     * State for compiling one file.
+     */
+    private final class Unit {
+        final String location;
+        final String className;
+
+        final List<String> importedClasses = new ArrayList<>();
+        final List<String> importedPackages = new ArrayList<>();
+
+        // Imports of the generated source: simple name -> qualified name
+        final Map<String, String> imports = new TreeMap<>();
+
+        final Set<String> variables = new HashSet<>();
+        final StringBuilder body = new StringBuilder();
+        int counter;
+
+        // Name of the controller variable, or null when the FXML has no controller
+        String controller;
+
+        Unit(String location, String className) {
+            this.location = location;
+            this.className = className;
+        }
+
+        String generate(Document document) throws UnsupportedFxmlException {
+            for (String[] pi : document.instructions) {
+                if (!"import".equals(pi[0])) {
+                    throw new UnsupportedFxmlException("<?" + pi[0] + "?> processing instruction");
+                }
+                String name = pi[1].trim();
+                if (name.endsWith(".*")) {
+                    importedPackages.add(name.substring(0, name.length() - 2));
+                } else {
+                    importedClasses.add(name);
+                }
+            }
+
+            Element root = document.root;
+            if (root.isFx()) {
+                throw new UnsupportedFxmlException("line " + root.line + ": fx:" + root.name);
+            }
+
+            String controllerClass = root.fxAttribute("controller");
+            if (controllerClass != null) {
+                controller = "controller";
+                variables.add(controller);
+                String type = reference(controllerClass);
+                line(type + " " + controller + " = new " + type + "();");
+            }
+
+            Value rootValue = instance(root, true);
+            if (!loadClass("javafx.scene.Parent").isAssignableFrom(rootValue.type)) {
+                throw new UnsupportedFxmlException("root <" + root.name + "> is not a Parent");
+            }
+            line("finish(" + rootValue.expression + ", " + (controller != null ? controller : "null") + ");");
+
+            return source();
+        }
+
+        private String source() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("// Generated by lamesa-fxml-maven-plugin from ").append(location).append(". Do not edit.\n");
+            sb.append("package ").append(packageName).append(";\n\n");
+            imports.values().stream().sorted().forEach(i -> sb.append("import ").append(i).append(";\n"));
+            sb.append("\n/**\n * Builds ").append(location).append(" without FXMLLoader. See CompiledView.\n */\n");
+            sb.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+            sb.append("final class ").append(className).append(" extends CompiledView {\n\n");
+            sb.append("    ").append(className).append("() {\n");
+            sb.append("        super(").append(literal(location)).append(");\n");
+            sb.append("    }\n\n");
+            sb.append("    @Override\n");
+            sb.append("    protected void build() throws Exception {\n");
+            sb.append(body);
+            sb.append("    }\n");
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        private void line(String code) {
+            body.append("        ").append(code).append('\n');
+        }
+
+        // ==================== ELEMENTS ====================
+
+        /**
+         * Emit the construction of an instance element and everything below it.
+         */
+        private Value instance(Element e, boolean isRoot) throws UnsupportedFxmlException {
+            if (e.isFx() || e.prefix != null && !e.prefix.isEmpty()) {
+                throw unsupported(e, "<" + e.prefix + ":" + e.name + ">");
+            }
+            Class<?> type = resolveClass(e, e.name);
+
+            // Split the attributes the way FXMLLoader does
+            String id = null;
+            String constant = null;
+            String fxValue = null;
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (String[] a : e.attributes) {
+                if (FX_PREFIX.equals(a[0])) {
+                    switch (a[1]) {
+                        case "id":
+                            id = a[2];
+                            break;
+                        case "constant":
+                            constant = a[2];
+                            break;
+                        case "value":
+                            fxValue = a[2];
+                            break;
+                        case "controller":
+                            if (!isRoot) {
+                                throw unsupported(e, "fx:controller below the root");
+                            }
+                            break;
+                        default:
+                            throw unsupported(e, "fx:" + a[1]);
+                    }
+                } else if (a[0] != null && !a[0].isEmpty()) {
+                    throw unsupported(e, "attribute " + a[0] + ":" + a[1]);
+                } else {
+                    properties.put(a[1], a[2]);
+                }
+            }
+
+            if (constant != null || fxValue != null) {
+                if (!properties.isEmpty() || !e.elements.isEmpty() || id != null) {
+                    throw unsupported(e, "fx:constant/fx:value with other content");
+                }
+                return constant != null ? constant(e, type, constant) : new Value(coerce(e, fxValue, type), type);
+            }
+
+            List<Element> propertyElements = new ArrayList<>();
+            List<Element> defaultElements = new ArrayList<>();
+            for (Element child : e.elements) {
+                if (isPropertyElement(child)) {
+                    propertyElements.add(child);
+                } else {
+                    defaultElements.add(child);
+                }
+            }
+            if (!e.text.toString().isBlank()) {
+                throw unsupported(e, "text content in <" + e.name + ">");
+            }
+
+            // Immutable types (Insets, Font, charts with their axes) take their properties as constructor arguments
+            String arguments = "";
+            if (!hasPublicNoArgConstructor(type)) {
+                arguments = constructorArguments(e, type, properties, propertyElements);
+            }
+
+            String variable = variable(id, type);
+            String typeName = reference(type);
+            line(typeName + " " + variable + " = new " + typeName + "(" + arguments + ");");
+
+            if (id != null) {
+                if (setter(type, "id") != null) {
+                    line(variable + ".setId(" + literal(id) + ");");
+                }
+                if (controller != null) {
+                    line("inject(" + controller + ", " + literal(id) + ", " + variable + ");");
+                }
+            }
+
+            for (Map.Entry<String, String> p : properties.entrySet()) {
+                String name = p.getKey();
+                String value = p.getValue();
+                if (name.indexOf('.') > 0) {
+                    staticProperty(e, variable, type, name, value);
+                } else if (isEventHandler(name)) {
+                    eventHandler(e, variable, type, name, value);
+                } else {
+                    assign(e, variable, type, name, value);
+                }
+            }
+
+            for (Element pe : propertyElements) {
+                propertyElement(variable, type, pe);
+            }
+
+            if (!defaultElements.isEmpty()) {
+                DefaultProperty defaultProperty = type.getAnnotation(DefaultProperty.class);
+                if (defaultProperty == null) {
+                    throw unsupported(e, "<" + e.name + "> has no default property for its child elements");
+                }
+                List<Value> values = new ArrayList<>();
+                for (Element child : defaultElements) {
+                    values.add(instance(child, false));
+                }
+                assign(e, variable, type, defaultProperty.value(), values);
+            }
+
+            return new Value(variable, type);
+        }
+
+        private boolean isPropertyElement(Element e) {
+            return (e.prefix == null || e.prefix.isEmpty()) && e.name.indexOf('.') < 0
+                    && Character.isLowerCase(e.name.charAt(0));
+        }
+
+        private void propertyElement(String variable, Class<?> type, Element pe) throws UnsupportedFxmlException {
+            if (!pe.attributes.isEmpty()) {
+                throw unsupported(pe, "attributes on property element <" + pe.name + ">");
+            }
+            if (pe.elements.isEmpty()) {
+                if (!pe.text.toString().isBlank()) {
+                    throw unsupported(pe, "text value of property element <" + pe.name + ">");
+                }
+                return;
+            }
+            if (!pe.text.toString().isBlank()) {
+                throw unsupported(pe, "mixed content in <" + pe.name + ">");
+            }
+            List<Value> values = new ArrayList<>();
+            for (Element child : pe.elements) {
+                values.add(instance(child, false));
+            }
+            assign(pe, variable, type, pe.name, values);
+        }
+
+        private Value constant(Element e, Class<?> type, String name) throws UnsupportedFxmlException {
+            try {
+                Field field = type.getField(name);
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    throw unsupported(e, "fx:constant " + name + " is not static");
+                }
+                return new Value(reference(type) + "." + name, field.getType());
+            } catch (NoSuchFieldException ex) {
+                throw unsupported(e, "no constant " + type.getSimpleName() + "." + name);
+            }
+        }
+
+        private String constructorArguments(Element e, Class<?> type, Map<String, String> properties,
+                                            List<Element> propertyElements) throws UnsupportedFxmlException {
+            Set<String> provided = new HashSet<>(properties.keySet());
+            for (Element pe : propertyElements) {
+                provided.add(pe.name);
+            }
+
+            // Prefer constructors whose arguments are all provided, so nothing is passed a made-up
+            // default (BarChart(x, y, data, gap) would get a null data list); the rest goes to setters
+            Constructor<?> best = null;
+            int bestScore = -1;
+            int bestMissing = Integer.MAX_VALUE;
+            for (Constructor<?> c : type.getConstructors()) {
+                List<String> names = namedArguments(c);
+                if (names == null) {
+                    continue;
+                }
+                boolean covers = true;
+                int score = 0;
+                for (String p : provided) {
+                    if (names.contains(p)) {
+                        score++;
+                    } else if (setter(type, p) == null && listGetter(type, p) == null && p.indexOf('.') < 0
+                            && !isEventHandler(p)) {
+                        covers = false; // only settable through this constructor, and it lacks it
+                    }
+                }
+                int missing = names.size() - score;
+                if (covers && (missing < bestMissing || missing == bestMissing && score > bestScore)) {
+                    best = c;
+                    bestScore = score;
+                    bestMissing = missing;
+                }
+            }
+            if (best == null) {
+                throw unsupported(e, "no usable constructor for " + type.getName());
+            }
+
+            List<String> args = new ArrayList<>();
+            Class<?>[] parameterTypes = best.getParameterTypes();
+            List<String> names = namedArguments(best);
+            for (int i = 0; i < parameterTypes.length; i++) {
+                String name = names.get(i);
+                Class<?> parameterType = parameterTypes[i];
+                Element pe = null;
+                for (Element candidate : propertyElements) {
+                    if (candidate.name.equals(name)) {
+                        pe = candidate;
+                    }
+                }
+
+                if (properties.containsKey(name)) {
+                    args.add(coerce(e, properties.remove(name), parameterType));
+                } else if (pe != null) {
+                    propertyElements.remove(pe);
+                    if (pe.elements.size() != 1 || !pe.attributes.isEmpty()) {
+                        throw unsupported(pe, "constructor argument <" + name + "> needs exactly one element");
+                    }
+                    Value value = instance(pe.elements.get(0), false);
+                    if (!box(parameterType).isAssignableFrom(value.type)) {
+                        throw unsupported(pe, name + " expects " + parameterType.getName());
+                    }
+                    args.add(value.expression);
+                } else {
+                    String defaultValue = best.getParameters()[i].getAnnotation(NamedArg.class).defaultValue();
+                    args.add(defaultValue.isEmpty() ? zero(parameterType) : coerce(e, defaultValue, parameterType));
+                }
+            }
+            return String.join(", ", args);
+        }
+
+        // ==================== PROPERTIES ====================
+
+        /**
+         * Set a property from an attribute string.
+         */
+        private void assign(Element e, String variable, Class<?> type, String name, String value)
+                throws UnsupportedFxmlException {
+            Method setter = setter(type, name);
+            if (setter != null) {
+                line(variable + "." + setter.getName() + "(" + coerce(e, value, setter.getParameterTypes()[0]) + ");");
+                return;
+            }
+            Method getter = listGetter(type, name);
+            if (getter != null) {
+                // Read-only list from a string: comma separated items, like FXMLLoader
+                Class<?> itemType = listItemType(getter);
+                List<String> items = new ArrayList<>();
+                for (String item : value.split(",")) {
+                    items.add(coerce(e, item.trim(), itemType));
+                }
+                addAll(variable, getter, items);
+                return;
+            }
+            throw unsupported(e, "no property '" + name + "' on " + type.getName());
+        }
+
+        /**
+         * Set a property to element values.
+         */
+        private void assign(Element e, String variable, Class<?> type, String name, List<Value> values)
+                throws UnsupportedFxmlException {
+            Method setter = setter(type, name);
+            if (setter != null) {
+                if (values.size() != 1) {
+                    throw unsupported(e, "property '" + name + "' takes a single value");
+                }
+                Value value = values.get(0);
+                if (!box(setter.getParameterTypes()[0]).isAssignableFrom(box(value.type))) {
+                    throw unsupported(e, "property '" + name + "' does not accept " + value.type.getName());
+                }
+                line(variable + "." + setter.getName() + "(" + value.expression + ");");
+                return;
+            }
+            Method getter = listGetter(type, name);
+            if (getter != null) {
+                // One addAll() fires a single change event instead of one per child
+                List<String> items = new ArrayList<>();
+                for (Value value : values) {
+                    items.add(value.expression);
+                }
+                addAll(variable, getter, items);
+                return;
+            }
+            throw unsupported(e, "no property '" + name + "' on " + type.getName());
+        }
+
+        private void addAll(String variable, Method getter, List<String> items) {
+            String list = variable + "." + getter.getName() + "()";
+            if (items.size() == 1) {
+                line(list + ".add(" + items.get(0) + ");");
+            } else {
+                line(list + ".addAll(" + String.join(", ", items) + ");");
+            }
+        }
+
+        private void staticProperty(Element e, String variable, Class<?> type, String name, String value)
+                throws UnsupportedFxmlException {
+            int dot = name.lastIndexOf('.');
+            Class<?> owner = resolveClass(e, name.substring(0, dot));
+            String setterName = "set" + capitalize(name.substring(dot + 1));
+            for (Method m : owner.getMethods()) {
+                if (m.getName().equals(setterName) && Modifier.isStatic(m.getModifiers())
+                        && m.getParameterCount() == 2 && m.getParameterTypes()[0].isAssignableFrom(type)) {
+                    line(reference(owner) + "." + setterName + "(" + variable + ", "
+                            + coerce(e, value, m.getParameterTypes()[1]) + ");");
+                    return;
+                }
+            }
+            throw unsupported(e, "no static property " + name);
+        }
+
+        private boolean isEventHandler(String name) {
+            return name.startsWith("on") && name.length() > 2 && Character.isUpperCase(name.charAt(2));
+        }
+
+        private void eventHandler(Element e, String variable, Class<?> type, String name, String value)
+                throws UnsupportedFxmlException {
+            if (!value.startsWith("#") || controller == null) {
+                throw unsupported(e, name + "=\"" + value + "\" is not a controller method");
+            }
+            Method setter = setter(type, name);
+            if (setter == null || !setter.getParameterTypes()[0].getName().equals("javafx.event.EventHandler")) {
+                throw unsupported(e, "no event handler property '" + name + "' on " + type.getName());
+            }
+            line(variable + "." + setter.getName() + "(handler(" + controller + ", " + literal(value.substring(1)) + "));");
+        }
+
+        // ==================== VALUES ====================
+
+        /**
+         * Java expression for an attribute string converted to 'type', resolving
+         * FXMLLoader's value prefixes first.
+         */
+        private String coerce(Element e, String value, Class<?> type) throws UnsupportedFxmlException {
+            if (value.startsWith("\\")) {
+                value = value.substring(1);
+            } else if (value.startsWith("@@") || value.startsWith("$$") || value.startsWith("%%")) {
+                value = value.substring(1);
+            } else if (value.startsWith("@")) {
+                if (!type.isAssignableFrom(String.class)) {
+                    throw unsupported(e, "location " + value + " for a " + type.getName());
+                }
+                return "relative(" + literal(value.substring(1)) + ")";
+            } else if (value.startsWith("$") || value.startsWith("%")) {
+                throw unsupported(e, "expression or resource value " + value);
+            }
+
+            Class<?> boxed = box(type);
+            try {
+                if (type.isAssignableFrom(String.class)) {
+                    return literal(value);
+                } else if (boxed == Boolean.class) {
+                    return String.valueOf(Boolean.parseBoolean(value));
+                } else if (boxed == Double.class) {
+                    return doubleLiteral(Double.parseDouble(value));
+                } else if (boxed == Float.class) {
+                    float f = Float.parseFloat(value);
+                    return Float.isNaN(f) ? "Float.NaN"
+                            : Float.isInfinite(f) ? (f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY")
+                            : f + "f";
+                } else if (boxed == Integer.class) {
+                    return String.valueOf(Integer.parseInt(value));
+                } else if (boxed == Long.class) {
+                    return Long.parseLong(value) + "L";
+                } else if (boxed == Short.class) {
+                    return "(short) " + Short.parseShort(value);
+                } else if (boxed == Byte.class) {
+                    return "(byte) " + Byte.parseByte(value);
+                } else if (boxed == Character.class && value.length() == 1) {
+                    return "'" + escape(value.charAt(0), '\'') + "'";
+                }
+            } catch (NumberFormatException ex) {
+                throw unsupported(e, "'" + value + "' is not a " + type.getSimpleName());
+            }
+
+            if (type.isEnum()) {
+                for (String constant : new String[] { value, value.toUpperCase(Locale.ROOT) }) {
+                    try {
+                        if (type.getField(constant).isEnumConstant()) {
+                            return reference(type) + "." + constant;
+                        }
+                    } catch (NoSuchFieldException ignored) {
+                        // try the next spelling
+                    }
+                }
+                throw unsupported(e, "no " + type.getSimpleName() + " constant " + value);
+            }
+
+            // Paint, Color, Duration, ...: the same static valueOf(String) FXMLLoader calls
+            try {
+                Method valueOf = type.getMethod("valueOf", String.class);
+                if (Modifier.isStatic(valueOf.getModifiers()) && type.isAssignableFrom(valueOf.getReturnType())) {
+                    return reference(type) + ".valueOf(" + literal(value) + ")";
+                }
+            } catch (NoSuchMethodException ignored) {
+                // fall through
+            }
+            throw unsupported(e, "cannot convert '" + value + "' to " + type.getName());
+        }
+
+        private String zero(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return "(" + reference(type) + ") null";
+            } else if (type == boolean.class) {
+                return "false";
+            } else if (type == double.class || type == float.class) {
+                return type == double.class ? "0.0" : "0f";
+            } else if (type == long.class) {
+                return "0L";
+            }
+            return type == int.class ? "0" : "(" + type.getName() + ") 0";
+        }
+
+        // ==================== NAMES ====================
+
+        private String variable(String id, Class<?> type) {
+            String name = id;
+            if (name == null || !SourceVersion.isName(name) || variables.contains(name)) {
+                String simple = type.getSimpleName();
+                name = Character.toLowerCase(simple.charAt(0)) + simple.substring(1) + (++counter);
+            }
+            variables.add(name);
+            return name;
+        }
+
+        /**
+         * Name to use for a class in the generated source, importing it when possible.
+         */
+        private String reference(Class<?> type) {
+            if (type.isPrimitive()) {
+                return type.getName();
+            }
+            Class<?> outer = type;
+            while (outer.getDeclaringClass() != null) {
+                outer = outer.getDeclaringClass();
+            }
+            String outerName = reference(outer.getName());
+            return outerName + type.getCanonicalName().substring(outer.getCanonicalName().length());
+        }
+
+        private String reference(String qualifiedName) {
+            int dot = qualifiedName.lastIndexOf('.');
+            String pkg = dot < 0 ? "" : qualifiedName.substring(0, dot);
+            String simple = qualifiedName.substring(dot + 1);
+            if (pkg.equals(packageName) || pkg.equals("java.lang")) {
+                return simple;
+            }
+            String existing = imports.putIfAbsent(simple, qualifiedName);
+            return existing == null || existing.equals(qualifiedName) ? simple : qualifiedName;
+        }
+
+        private Class<?> resolveClass(Element e, String name) throws UnsupportedFxmlException {
+            Class<?> type = null;
+            if (name.indexOf('.') > 0 && Character.isLowerCase(name.charAt(0))) {
+                type = loadClass(name);
+            } else {
+                for (String imported : importedClasses) {
+                    if (imported.endsWith("." + name)) {
+                        type = loadClass(imported);
+                        break;
+                    }
+                }
+                for (int i = 0; type == null && i < importedPackages.size(); i++) {
+                    type = loadClass(importedPackages.get(i) + "." + name);
+                }
+                if (type == null) {
+                    type = loadClass("java.lang." + name);
+                }
+            }
+            if (type == null) {
+                throw unsupported(e, "unknown class " + name);
+            }
+            return type;
+        }
+
+        private UnsupportedFxmlException unsupported(Element e, String message) {
+            return new UnsupportedFxmlException("line " + e.line + ": " + message);
+        }
+    }
+
+    // ==================== REFLECTION ====================
+
+    private Class<?> loadClass(String name) {
+        try {
+            // Not initialized: reading members must not start the JavaFX toolkit
+            return Class.forName(name, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static boolean hasPublicNoArgConstructor(Class<?> type) {
+        try {
+            type.getConstructor();
+            return !Modifier.isAbstract(type.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The @NamedArg names of a constructor, or null when not every parameter has one.
+     */
+    private static List<String> namedArguments(Constructor<?> c) {
+        if (c.getParameterCount() == 0) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (Parameter p : c.getParameters()) {
+            NamedArg arg = p.getAnnotation(NamedArg.class);
+            if (arg == null) {
+                return null;
+            }
+            names.add(arg.value());
+        }
+        return names;
+    }
+
+    private static Method getter(Class<?> type, String name) {
+        for (String prefix : new String[] { "get", "is" }) {
+            try {
+                Method m = type.getMethod(prefix + capitalize(name));
+                if (!Modifier.isStatic(m.getModifiers())) {
+                    return m;
+                }
+            } catch (NoSuchMethodException ignored) {
+                // try the next prefix
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The setter of a property; when overloaded, the one taking the getter's type.
+     */
+    private static Method setter(Class<?> type, String name) {
+        String setterName = "set" + capitalize(name);
+        Method getter = getter(type, name);
+        Method found = null;
+        int count = 0;
+        for (Method m : type.getMethods()) {
+            if (m.getName().equals(setterName) && m.getParameterCount() == 1 && !Modifier.isStatic(m.getModifiers())
+                    && !m.isBridge()) {
+                if (getter != null && m.getParameterTypes()[0] == getter.getReturnType()) {
+                    return m;
+                }
+                found = m;
+                count++;
+            }
+        }
+        return count == 1 ? found : null;
+    }
+
+    /**
+     * The getter of a read-only list property, or null.
+     */
+    private static Method listGetter(Class<?> type, String name) {
+        Method getter = getter(type, name);
+        return getter != null && List.class.isAssignableFrom(getter.getReturnType()) ? getter : null;
+    }
+
+    private static Class<?> listItemType(Method getter) {
+        Type t = getter.getGenericReturnType();
+        if (t instanceof ParameterizedType) {
+            Type item = ((ParameterizedType) t).getActualTypeArguments()[0];
+            if (item instanceof Class) {
+                return (Class<?>) item;
+            }
+            if (item instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) item).getRawType();
+            }
+        }
+        return Object.class;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+
+    // ==================== LITERALS ====================
+
+    private static String capitalize(String s) {
+        return s.isEmpty() ? s : Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+
+    private static String doubleLiteral(double d) {
+        if (Double.isNaN(d)) {
+            return "Double.NaN";
+        } else if (Double.isInfinite(d)) {
+            return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        }
+        return Double.toString(d);
+    }
+
+    private static String literal(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            sb.append(escape(s.charAt(i), '"'));
+        }
+        return sb.append('"').toString();
+    }
+
+    // Non-ASCII as \\uXXXX, so the generated source does not depend on the compiler's encoding
+    private static String escape(char c, char quote) {
+        if (c == quote || c == '\\') {
+            return "\\" + c;
+        } else if (c == '\n') {
+            return "\\n";
+        } else if (c == '\r') {
+            return "\\r";
+        } else if (c == '\t') {
+            return "\\t";
+        } else if (c < 0x20 || c > 0x7e) {
+            return String.format("\\u%04x", (int) c);
+        }
+        return String.valueOf(c);
+    }
+}
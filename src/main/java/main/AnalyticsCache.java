@@ -0,0 +1,219 @@
+package main;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * AnalyticsCache
+ *
+ * Keeps analytics query results between page visits and date range changes.
+ *
+ * - Entries are keyed by query type + date range and remember the window of sale
+ *   days they cover (null = whole history).
+ * - Bounded by an estimated size in bytes; the least recently used entries are
+ *   evicted first.
+ * - Invalidation is driven by writes: the cache remembers the highest sale_id it
+ *   has seen. Before serving, it asks the database for sales above that mark
+ *   (a rowid range, so cheap) and drops only entries whose window contains
+ *   one of their days. Results also carry meal names, so a change of the
+ *   meal_version counter (SchemaMigrator V4) drops every entry.
+ * - Thread safe; AnalyticsDAO calls it from several DbExecutor threads at once.
+ *
+ * Configuration (JVM system property):
+ * - lamesa.analytics.cacheBytes  memory bound in bytes (default 2 MB)
+ */
+final class AnalyticsCache {
+
+    /**
+     * Runs the query behind a cache entry.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private static final class Entry {
+        final Object value;
+        final TimeRange window;
+        final long bytes;
+
+        Entry(Object value, TimeRange window, long bytes) {
+            this.value = value;
+            this.window = window;
+            this.bytes = bytes;
+        }
+
+        boolean covers(LocalDate day) {
+            return window == null || (!day.isBefore(window.start) && day.isBefore(window.end));
+        }
+    }
+
+    private final long maxBytes;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(32, 0.75f, true);
+
+    private long totalBytes = 0;
+
+    // Highest sale_id and meal_version reflected in the cached entries (-1 = not read yet)
+    private long highWaterMark = -1;
+    private long mealVersion = -1;
+
+    // Bumped whenever the marks move; a result loaded across a bump is not kept
+    private long generation = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0;
+
+    AnalyticsCache() {
+        this(Long.getLong("lamesa.analytics.cacheBytes", 2L * 1024 * 1024));
+    }
+
+    AnalyticsCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Return the cached result for key, or run loader and cache what it returns.
+     *
+     * @param window  the sale days the result depends on, or null for the whole history
+     * @param weigher estimated size of a result in bytes
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String key, TimeRange window, Loader<T> loader, ToLongFunction<T> weigher) throws SQLException {
+        long loadedFor = refresh();
+
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits++;
+                return (T) e.value;
+            }
+            misses++;
+        }
+
+        T value = loader.load();
+
+        synchronized (this) {
+            // A result loaded while newer sales or meal changes arrived may already be stale; don't keep it
+            if (loadedFor == generation) {
+                put(key, new Entry(value, window, weigher.applyAsLong(value)));
+            }
+        }
+        return value;
+    }
+
+    synchronized String summary() {
+        return String.format("%d entries, %d bytes, %d hits, %d misses, %d invalidated",
+                entries.size(), totalBytes, hits, misses, invalidations);
+    }
+
+    /**
+     * Bring the cache up to date with sales inserted and meals changed since the last check.
+     *
+     * @return the generation the cache is now valid for
+     */
+    private long refresh() throws SQLException {
+        long mark;
+        synchronized (this) {
+            mark = highWaterMark;
+        }
+
+        try (Connection conn = Database.getConnection()) {
+            long version = SalesCube.mealVersion(conn);
+            if (mark < 0) {
+                long max = maxSaleId(conn);
+                synchronized (this) {
+                    if (highWaterMark < 0) {
+                        highWaterMark = max;
+                        mealVersion = version;
+                    }
+                    return generation;
+                }
+            }
+
+            // Days of the sales above the mark, and the new mark, in one rowid range read
+            List<LocalDate> days = new ArrayList<>();
+            long newMark = mark;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT date(sale_date) AS day, MAX(sale_id) AS max_id FROM sales WHERE sale_id > ? GROUP BY date(sale_date)")) {
+                ps.setLong(1, mark);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        days.add(LocalDate.parse(rs.getString("day")));
+                        newMark = Math.max(newMark, rs.getLong("max_id"));
+                    }
+                }
+            }
+
+            synchronized (this) {
+                if (version != mealVersion) {
+                    invalidations += entries.size();
+                    entries.clear();
+                    totalBytes = 0;
+                    mealVersion = version;
+                    generation++;
+                }
+                if (!days.isEmpty()) {
+                    invalidate(days);
+                }
+                if (newMark > highWaterMark) {
+                    highWaterMark = newMark;
+                    generation++;
+                }
+                return generation;
+            }
+        }
+    }
+
+    private static long maxSaleId(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(sale_id), 0) FROM sales");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Caller holds the lock
+    private void invalidate(List<LocalDate> days) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next().getValue();
+            for (LocalDate day : days) {
+                if (e.covers(day)) {
+                    totalBytes -= e.bytes;
+                    invalidations++;
+                    it.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void put(String key, Entry entry) {
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            totalBytes -= old.bytes;
+        }
+        totalBytes += entry.bytes;
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            totalBytes -= it.next().bytes;
+            it.remove();
+        }
+    }
+}
@@ -1,49 +1,41 @@
 package main;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
-import javafx.scene.control.DatePicker; 
-import javafx.scene.control.Button; 
-import java.time.LocalDate; 
-
+import java.util.List;
 
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.util.Duration;
 
 
-
-
-
-public class AnalyticsController {
+public class AnalyticsController implements PageLifecycle {
 
     @FXML
-    private LineChart<String, Number> lineChart; 
+    private LineChart<String, Number> lineChart;
 
-    @FXML 
+    @FXML
     private PieChart pieChart;
 
     @FXML
     private Label TotalMonthlySalesLabel;
 
-    @FXML 
-    private Label TotalYearlySalesLabel; 
+    @FXML
+    private Label TotalYearlySalesLabel;
 
 
-    @FXML 
-    private Label MonthlySalesTitle; 
+    @FXML
+    private Label MonthlySalesTitle;
 
 
-    @FXML 
+    @FXML
     private Label YearlySalesTitle;
 
     @FXML
@@ -58,417 +50,224 @@ public class AnalyticsController {
     @FXML
     private DatePicker EndDatePicker;
 
-       String DB_URL = "jdbc:sqlite:database/lamesa.db";
-
+    // Sales queries run on DbExecutor threads; results are rendered on the FX thread
+    private final AnalyticsDAO dao = new AnalyticsDAO();
 
+    // Incremented on every refresh so results for an older date range are dropped
+    private int refreshId = 0;
 
+    // Aborts the SQL of the refresh that is still running when a newer one starts
+    private QueryCanceller inFlight = QueryCanceller.NONE;
 
-        private String loadTotalMonthlySales() throws SQLException { 
+    // Date picker changes wait this long for further changes before querying
+    private static final Duration FILTER_DEBOUNCE = Duration.millis(300);
+    private final PauseTransition filterDebounce = new PauseTransition(FILTER_DEBOUNCE);
 
-            
-       String CurrentmonthSales = "SELECT SUM(total_price) AS total_Sales_Current_Month" + 
-                             " FROM sales " + "WHERE strftime('%Y-%m', sale_date) = strftime('%Y-%m', 'now');";
+    private static final String[] PIE_COLORS = {"#114F3A", "#1A6B4F", "#228866", "#2BA47C", "#34C191"};
 
-        try(Connection conn = DriverManager.getConnection(DB_URL); 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(CurrentmonthSales)) {
 
-                while(rs.next()) { 
-                    double totalmonthlysales =  rs.getDouble("total_Sales_Current_Month");
-                    return String.format("%.0f", totalmonthlysales);
-                }
-
-                                
-            } catch(SQLException e){
-                System.err.println("Error loading total monthly sales: " + e.getMessage()); 
-            }
-            return "0.00";
+        private String displayCurrentMonth()
+        {
+            LocalDate today = LocalDate.now();
+            String currentMonth = today.format(DateTimeFormatter.ofPattern("MMMM"));
+            return currentMonth;
         }
 
-
-        private String loadTotalYearlySales() throws SQLException { 
-
-
-               String CurrentYearSales = "SELECT SUM(total_price) AS total_Sales_Current_Year" + 
-                             " FROM sales " + "WHERE strftime('%Y', sale_date) = strftime('%Y', 'now');";
-
-            try(Connection conn = DriverManager.getConnection(DB_URL); 
-                Statement stmt = conn.createStatement(); 
-                ResultSet rs = stmt.executeQuery(CurrentYearSales)) { 
-
-                    while(rs.next()) { 
-                        double totalyearlysales = rs.getDouble("total_Sales_Current_Year"); 
-                        return String.format("%.0f", totalyearlysales);
-                    }
-
-                }catch(SQLException e) { 
-                    System.err.println("Error loading total yearly sales: " + e.getMessage()); 
-                }
-
-                return "0.00";
-
+        private String displayCurrentYear()
+        {
+            LocalDate today = LocalDate.now();
+            String currentYear = today.format(DateTimeFormatter.ofPattern("yyyy"));
+            return currentYear;
         }
 
 
+    // ==================== RENDERING (FX thread) ====================
 
+    private void renderMonthlySales(List<AnalyticsDAO.MonthlyTotal> rows) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Monthly Sales");
 
-
-        private void loadTopMealsData() throws SQLException { 
-     
-   
-
-        String topMealsQuery = "SELECT name, SUM(quantity) AS total_sold" + 
-                                " FROM sales " +
-                                " JOIN meal using(meal_id) " +
-                                " GROUP BY meal_id, name " +
-                                " ORDER BY total_sold DESC " +
-                                " LIMIT 5;";
-
-
-        try(Connection conn = DriverManager.getConnection(DB_URL);
-            Statement stmt = conn.createStatement(); 
-            ResultSet rs = stmt.executeQuery(topMealsQuery)) { 
-
-
-                while(rs.next()) { 
-                    String mealName = rs.getString("name"); 
-                    int totalSold = rs.getInt("total_sold"); 
-                    pieChart.getData().add(new PieChart.Data(mealName, totalSold)); 
-                }
-            } catch (SQLException e) { 
-                System.err.println("Error"); 
-                e.printStackTrace();
-            }
-
+        for (AnalyticsDAO.MonthlyTotal row : rows) {
+            // Convert "2024-12" to "December"
+            String monthName = YearMonth.parse(row.month).format(DateTimeFormatter.ofPattern("MMMM"));
+            series.getData().add(new XYChart.Data<>(monthName, row.total));
         }
 
+        lineChart.getData().setAll(series);
 
-
-        private void loadMonthlySalesData() throws SQLException { 
-            String monthlySalesQuery = "SELECT strftime('%Y-%m', sale_date) AS month, SUM(total_price) AS total_sales " +
-                                        "FROM sales " +
-                                        "GROUP BY strftime('%Y-%m', sale_date) " + 
-                                        "ORDER BY month ASC"; 
-
-        
-            try(Connection conn = DriverManager.getConnection(DB_URL); 
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(monthlySalesQuery)) { 
-
-                XYChart.Series <String, Number> series = new XYChart.Series<>(); 
-                series.setName("Monthly Sales"); 
-                
-
-                while(rs.next()) { 
-                    String month = rs.getString("month"); 
-                    double totalsales = rs.getDouble("total_sales");
-                    
-                    // Convert "2024-12" to "December"
-                    java.time.YearMonth ym = java.time.YearMonth.parse(month);
-                    String monthName = ym.format(java.time.format.DateTimeFormatter.ofPattern("MMMM"));
-                    
-                    series.getData().add(new XYChart.Data<>(monthName, totalsales));
-                }
-                
-
-                lineChart.getData().add(series); 
-            } catch (SQLException e) { 
-                System.err.println("Error loading monthly sales data: " + e.getMessage()); 
-                e.printStackTrace();
+        // Color the line and its data points
+        series.getNode().setStyle("-fx-stroke: #3ab68dff; -fx-stroke-width: 3;");
+        for (XYChart.Data<String, Number> data : series.getData()) {
+            if (data.getNode() != null) {
+                data.getNode().setStyle("-fx-background-color: #3ab68dff;");
             }
-
         }
+    }
 
+    private void renderTopMeals(List<AnalyticsDAO.MealTotal> rows) {
+        pieChart.getData().clear();
+        customLegend.getChildren().clear();
 
-
-        private String displayCurrentMonth() 
-        {
-            LocalDate today = LocalDate.now(); 
-            String currentMonth = today.format(DateTimeFormatter.ofPattern("MMMM")); 
-            return currentMonth; 
+        for (AnalyticsDAO.MealTotal row : rows) {
+            pieChart.getData().add(new PieChart.Data(row.name, row.totalSold));
         }
 
-        private String displayCurrentYear()
-        { 
-            LocalDate today = LocalDate.now(); 
-            String currentYear = today.format(DateTimeFormatter.ofPattern("yyyy")); 
-            return currentYear;
+        int index = 0;
+        for (PieChart.Data data : pieChart.getData()) {
+            String color = PIE_COLORS[index % PIE_COLORS.length];
+            data.getNode().setStyle("-fx-pie-color: " + color + ";");
+
+            // Add to custom legend
+            javafx.scene.shape.Circle circle = new javafx.scene.shape.Circle(4);
+            circle.setFill(javafx.scene.paint.Color.web(color));
+            javafx.scene.control.Label label = new javafx.scene.control.Label(data.getName());
+            label.setStyle("-fx-font-size: 11;");
+            javafx.scene.layout.HBox legendItem = new javafx.scene.layout.HBox(4);
+            legendItem.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+            legendItem.getChildren().addAll(circle, label);
+            customLegend.getChildren().add(legendItem);
+
+            index++;
         }
+    }
 
+    private void renderSalesByProduct(List<AnalyticsDAO.MealTotal> rows) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        series.setName("Quantity Sold");
 
-
-        private void SalesByProduct() throws SQLException
-        { 
-            String lowestToHighest = "SELECT name, SUM(quantity) AS total_sold " + 
-                                "FROM sales " +
-                                "JOIN meal USING(meal_id) " + 
-                                "GROUP BY meal_id, name " + 
-                                "ORDER BY total_sold ASC;"; 
-
-            try(Connection conn = DriverManager.getConnection(DB_URL); 
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(lowestToHighest)) { 
-
-                    XYChart.Series<String, Number> series = new XYChart.Series<>(); 
-                    series.setName("Quantity Sold"); 
-
-                    while(rs.next()) { 
-                        series.getData().add(new XYChart.Data<>(rs.getString("name"), rs.getInt("total_sold"))); 
-                    }
-                    
-                    barChart.getData().add(series);
-                } catch (SQLException e){
-                    System.err.println("Error loading total sales per product: " + e.getMessage()); 
-                    e.printStackTrace();
-                }
+        for (AnalyticsDAO.MealTotal row : rows) {
+            series.getData().add(new XYChart.Data<>(row.name, row.totalSold));
         }
 
+        barChart.getData().setAll(series);
+    }
 
-
-
-    private void loadMonthlySalesDataWithDateRange(LocalDate startDate, LocalDate endDate) throws SQLException { 
-        String monthlySalesQuery = "SELECT strftime('%Y-%m', sale_date) AS month, SUM(total_price) AS total_sales " +
-                                    "FROM sales " +
-                                    "WHERE sale_date BETWEEN ? AND ? " +
-                                    "GROUP BY strftime('%Y-%m', sale_date) " + 
-                                    "ORDER BY month ASC"; 
-
-        try(Connection conn = DriverManager.getConnection(DB_URL); 
-            PreparedStatement pstmt = conn.prepareStatement(monthlySalesQuery)) {
-            
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
-            
-            try(ResultSet rs = pstmt.executeQuery()) {
-                XYChart.Series<String, Number> series = new XYChart.Series<>(); 
-                series.setName("Monthly Sales"); 
-                
-                while(rs.next()) { 
-                    String month = rs.getString("month"); 
-                    double totalsales = rs.getDouble("total_sales");
-                    
-                    java.time.YearMonth ym = java.time.YearMonth.parse(month);
-                    String monthName = ym.format(java.time.format.DateTimeFormatter.ofPattern("MMMM"));
-                    
-                    series.getData().add(new XYChart.Data<>(monthName, totalsales));
-                }
-                
-                lineChart.getData().add(series);
-                
-                if (lineChart.getData().size() > 0) {
-                    XYChart.Series<String, Number> s = lineChart.getData().get(0);
-                    s.getNode().setStyle("-fx-stroke: #3ab68dff; -fx-stroke-width: 3;");
-                    for (XYChart.Data<String, Number> data : s.getData()) {
-                        if (data.getNode() != null) {
-                            data.getNode().setStyle("-fx-background-color: #3ab68dff;");
-                        }
-                    }
-                }
-            }
-        } catch (SQLException e) { 
-            System.err.println("Error loading monthly sales data: " + e.getMessage()); 
-            e.printStackTrace();
-        }
+    private static String formatPesos(double total) {
+        return String.format("%.0f", total) + " ₱";
     }
 
-    private void loadTopMealsDataWithDateRange(LocalDate startDate, LocalDate endDate) throws SQLException { 
-        String topMealsQuery = "SELECT name, SUM(quantity) AS total_sold " +
-                                "FROM sales " +
-                                "JOIN meal USING(meal_id) " +
-                                "WHERE sale_date BETWEEN ? AND ? " +
-                                "GROUP BY meal_id, name " +
-                                "ORDER BY total_sold DESC " +
-                                "LIMIT 5";
-
-        try(Connection conn = DriverManager.getConnection(DB_URL);
-            PreparedStatement pstmt = conn.prepareStatement(topMealsQuery)) {
-            
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
-            
-            try(ResultSet rs = pstmt.executeQuery()) {
-                while(rs.next()) { 
-                    String mealName = rs.getString("name"); 
-                    int totalSold = rs.getInt("total_sold"); 
-                    pieChart.getData().add(new PieChart.Data(mealName, totalSold)); 
-                }
-            }
-        } catch (SQLException e) { 
-            System.err.println("Error loading top meals data: " + e.getMessage()); 
-            e.printStackTrace();
-        }
+    // Placeholders shown while the queries of a refresh are running
+    private void showLoading() {
+        lineChart.getData().clear();
+        pieChart.getData().clear();
+        customLegend.getChildren().clear();
+        TotalMonthlySalesLabel.setText("…");
+        TotalYearlySalesLabel.setText("…");
     }
 
-    private String loadTotalMonthlySalesWithDateRange(LocalDate startDate, LocalDate endDate) throws SQLException { 
-        String query = "SELECT SUM(total_price) AS total_sales FROM sales WHERE sale_date BETWEEN ? AND ? AND strftime('%Y-%m', sale_date) = strftime('%Y-%m', 'now')";
-
-        try(Connection conn = DriverManager.getConnection(DB_URL); 
-            PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
-            
-            try(ResultSet rs = pstmt.executeQuery()) {
-                if(rs.next()) { 
-                    double total = rs.getDouble("total_sales");
-                    return String.format("%.0f", total);
-                }
-            }
-        } catch(SQLException e){
-            System.err.println("Error loading total monthly sales: " + e.getMessage()); 
+    private Void logError(String what, Throwable e, QueryCanceller canceller) {
+        // A cancelled refresh was superseded on purpose; nothing to report
+        if (!canceller.isCancelled()) {
+            Log.error("AnalyticsController", "Error loading " + what + ": " + DbExecutor.rootCause(e).getMessage());
         }
-        return "0";
+        return null;
     }
 
-    private String loadTotalYearlySalesWithDateRange(LocalDate startDate, LocalDate endDate) throws SQLException { 
-        String query = "SELECT SUM(total_price) AS total_sales FROM sales WHERE sale_date BETWEEN ? AND ? AND strftime('%Y', sale_date) = strftime('%Y', 'now')";
-
-        try(Connection conn = DriverManager.getConnection(DB_URL); 
-            PreparedStatement pstmt = conn.prepareStatement(query)) {
-            
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
-            
-            try(ResultSet rs = pstmt.executeQuery()) {
-                if(rs.next()) { 
-                    double total = rs.getDouble("total_sales");
-                    return String.format("%.0f", total);
-                }
-            }
-        } catch(SQLException e) { 
-            System.err.println("Error loading total yearly sales: " + e.getMessage()); 
-        }
-        return "0";
+    /**
+     * Start a new refresh: cancel the previous one's SQL and hand out a fresh canceller.
+     */
+    private QueryCanceller beginRefresh() {
+        inFlight.cancel();
+        // During the page build, abandoning the build cancels this refresh too
+        inFlight = PageLoader.currentCanceller().child();
+        ++refreshId;
+        showLoading();
+        return inFlight;
     }
 
+
+    /**
+     * Filter button: apply the picked range right away.
+     */
     @FXML
     public void HandleFilterDate() {
+        filterDebounce.stop();
+        refreshRange();
+    }
+
+    /**
+     * Query the picked range. Only the latest range's results reach the charts and labels.
+     */
+    private void refreshRange() {
         LocalDate startDate = StartDatePicker.getValue();
         LocalDate endDate = EndDatePicker.getValue();
-        
+
         if (startDate == null || endDate == null) {
-            System.err.println("Please select both start and end dates");
+            Log.warn("AnalyticsController", "Please select both start and end dates");
             return;
         }
-        
-        try {
-            lineChart.getData().clear();
-            pieChart.getData().clear();
-            customLegend.getChildren().clear();
-            
-            loadMonthlySalesDataWithDateRange(startDate, endDate);
-            loadTopMealsDataWithDateRange(startDate, endDate);
-            
-            TotalMonthlySalesLabel.setText(loadTotalMonthlySalesWithDateRange(startDate, endDate) + " ₱");
-            TotalYearlySalesLabel.setText(loadTotalYearlySalesWithDateRange(startDate, endDate) + " ₱");
-            
-            final String[] colors = {"#114F3A", "#1A6B4F", "#228866", "#2BA47C", "#34C191"};
-            int index = 0;
-            for (PieChart.Data data : pieChart.getData()) {
-                String color = colors[index % colors.length];
-                data.getNode().setStyle("-fx-pie-color: " + color + ";");
-                
-                javafx.scene.shape.Circle circle = new javafx.scene.shape.Circle(4);
-                circle.setFill(javafx.scene.paint.Color.web(color));
-                javafx.scene.control.Label label = new javafx.scene.control.Label(data.getName());
-                label.setStyle("-fx-font-size: 11;");
-                javafx.scene.layout.HBox legendItem = new javafx.scene.layout.HBox(4);
-                legendItem.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-                legendItem.getChildren().addAll(circle, label);
-                customLegend.getChildren().add(legendItem);
-                
-                index++;
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error updating charts: " + e.getMessage());
-            e.printStackTrace();
-        }
+
+        QueryCanceller canceller = beginRefresh();
+        int id = refreshId;
+
+        DbExecutor.supply(() -> dao.fetchMonthlySales(startDate, endDate, canceller))
+            .thenAccept(rows -> { if (id == refreshId) renderMonthlySales(rows); })
+            .exceptionally(e -> logError("monthly sales data", e, canceller));
+
+        DbExecutor.supply(() -> dao.fetchTopMeals(startDate, endDate, canceller))
+            .thenAccept(rows -> { if (id == refreshId) renderTopMeals(rows); })
+            .exceptionally(e -> logError("top meals data", e, canceller));
+
+        DbExecutor.supply(() -> dao.fetchTotalThisMonth(startDate, endDate, canceller))
+            .thenAccept(total -> { if (id == refreshId) TotalMonthlySalesLabel.setText(formatPesos(total)); })
+            .exceptionally(e -> logError("total monthly sales", e, canceller));
+
+        DbExecutor.supply(() -> dao.fetchTotalThisYear(startDate, endDate, canceller))
+            .thenAccept(total -> { if (id == refreshId) TotalYearlySalesLabel.setText(formatPesos(total)); })
+            .exceptionally(e -> logError("total yearly sales", e, canceller));
+    }
+
+
+    /**
+     * Quantity sold per meal. Not tied to the date range; only abandoning the page build cancels it.
+     */
+    private void refreshSalesByProduct() {
+        QueryCanceller canceller = PageLoader.currentCanceller();
+        DbExecutor.supply(() -> dao.fetchSalesByProduct(canceller))
+            .thenAccept(this::renderSalesByProduct)
+            .exceptionally(e -> logError("sales by product", e, canceller));
+    }
+
+
+    /**
+     * Back from another page: re-query everything shown (new sales may have come in).
+     */
+    @Override
+    public void onShow() {
+        refreshRange();
+        refreshSalesByProduct();
+    }
+
+    /**
+     * Hidden: stop a pending date-picker refresh and abort the queries still running.
+     */
+    @Override
+    public void onHide() {
+        filterDebounce.stop();
+        inFlight.cancel();
     }
 
-       
     @FXML
     public void initialize() {
         // Set default date range (last 12 months)
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusMonths(12);
-        
+
         StartDatePicker.setValue(startDate);
         EndDatePicker.setValue(endDate);
-        
-        try {
-            loadMonthlySalesData();
-            // Color the line chart line
-            if (lineChart.getData().size() > 0) {
-                XYChart.Series<String, Number> series = lineChart.getData().get(0);
-                // Style the series line and legend
-                series.getNode().setStyle("-fx-stroke: #3ab68dff; -fx-stroke-width: 3;");
-                // Color the data points
-                for (XYChart.Data<String, Number> data : series.getData()) {
-                    if (data.getNode() != null) {
-                        data.getNode().setStyle("-fx-background-color: #3ab68dff;");
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error initializing monthly sales data: " + e.getMessage());
-            e.printStackTrace();
-        }
-     try {
-    loadTopMealsData();
-
-    final String[] colors = {"#114F3A", "#1A6B4F", "#228866", "#2BA47C", "#34C191"};
-    int index = 0;
-
-    // Clear custom legend
-    customLegend.getChildren().clear();
-
-    for (PieChart.Data data : pieChart.getData()) {
-        String color = colors[index % colors.length];
-        data.getNode().setStyle("-fx-pie-color: " + color + ";");
-        
-        // Add to custom legend
-        javafx.scene.shape.Circle circle = new javafx.scene.shape.Circle(4);
-        circle.setFill(javafx.scene.paint.Color.web(color));
-        javafx.scene.control.Label label = new javafx.scene.control.Label(data.getName());
-        label.setStyle("-fx-font-size: 11;");
-        javafx.scene.layout.HBox legendItem = new javafx.scene.layout.HBox(4);
-        legendItem.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
-        legendItem.getChildren().addAll(circle, label);
-        customLegend.getChildren().add(legendItem);
-        
-        index++;
-    }
-
-} catch (SQLException e) {
-    e.printStackTrace();
-}
-
-        try {
-            TotalMonthlySalesLabel.setText(loadTotalMonthlySales() + " ₱");
-        } catch (SQLException e) { 
-            System.err.println("Error settint total monthly sales label" + e.getMessage()); 
-        }
 
+        MonthlySalesTitle.setText(displayCurrentMonth());
+        YearlySalesTitle.setText(displayCurrentYear());
 
-        try{ 
-            TotalYearlySalesLabel.setText(loadTotalYearlySales() + " ₱");
-        } catch (SQLException e) { 
-            System.err.println("Error setting total yearly sales label: " + e.getMessage());
-        }
+        // The page shows right away; each chart fills in when its query returns.
+        // Same queries as every later visit, so the figures only change when the data does.
+        refreshRange();
+        refreshSalesByProduct();
 
-        try { 
-            MonthlySalesTitle.setText(displayCurrentMonth()); 
-            YearlySalesTitle.setText(displayCurrentYear());
-        } catch(Exception e) { 
-            System.err.println("Error in setting sales titles: " + e.getMessage());
-        }
-
-        try{
-            SalesByProduct();
-        } catch(Exception e) {
-            System.err.println("Error loading Sales by product" + e.getMessage());
-        }
+        // Changing either date re-queries once the user stops picking
+        filterDebounce.setOnFinished(e -> refreshRange());
+        StartDatePicker.valueProperty().addListener((obs, oldValue, newValue) -> filterDebounce.playFromStart());
+        EndDatePicker.valueProperty().addListener((obs, oldValue, newValue) -> filterDebounce.playFromStart());
     }
 
 }
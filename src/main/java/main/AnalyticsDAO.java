@@ -0,0 +1,377 @@
+package main;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * AnalyticsDAO
+ *
+ * Data Access Object for the sales figures shown on the Analytics page.
+ *
+ * - Methods only read and return plain values/DTOs; they never touch UI nodes,
+ *   so AnalyticsController can call them from DbExecutor worker threads.
+ * - SQLExceptions are passed to the caller, which decides how to report them.
+ * - Queries read the sales_daily / sales_monthly rollups (SchemaMigrator V2)
+ *   instead of scanning sales, so their cost grows with the number of days or
+ *   months shown, not with the number of sales rows.
+ * - Date filters are half-open TimeRange bounds ("day >= ? AND day < ?") so they
+ *   stay primary-key range scans; "this month/year" is computed in local time.
+ * - With the "cube" engine (the default) the same figures are computed from the
+ *   in-memory SalesCube instead; the SQL path above stays available as "sql".
+ * - Revenue is defined in whole cents: each sale's total_price rounded by SQLite's
+ *   ROUND, summed as integers and divided by 100 once. The rollups keep that sum
+ *   (revenue_cents, SchemaMigrator V6) and the cube loads the same per-sale cents,
+ *   so both engines return identical figures.
+ * - Results of either engine are kept in a shared AnalyticsCache, keyed by query
+ *   and date range, and dropped when sales are inserted inside their window or
+ *   meals change. A cached result is served without touching the cube, so the
+ *   cube is only brought up to date when a figure actually has to be computed.
+ *
+ * Configuration (JVM system property):
+ * - lamesa.analytics.engine  "cube" (default) or "sql"
+ */
+public class AnalyticsDAO {
+
+    // Shared by every AnalyticsController instance, so results survive page switches
+    private static final AnalyticsCache CACHE = new AnalyticsCache();
+
+    private static final boolean USE_CUBE =
+            !"sql".equalsIgnoreCase(System.getProperty("lamesa.analytics.engine", "cube"));
+
+    private static final int TOP_MEALS = 5;
+
+    // Rough heap sizes used to bound the cache
+    private static final long TOTAL_BYTES = 64;
+    private static final long LIST_BYTES = 64;
+    private static final long ROW_BYTES = 48;
+
+    /**
+     * Total sales for one calendar month ("yyyy-MM").
+     */
+    public static class MonthlyTotal {
+        public final String month;
+        public final double total;
+
+        public MonthlyTotal(String month, double total) {
+            this.month = month;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Quantity sold for one meal.
+     */
+    public static class MealTotal {
+        public final String name;
+        public final int totalSold;
+
+        public MealTotal(String name, int totalSold) {
+            this.name = name;
+            this.totalSold = totalSold;
+        }
+    }
+
+    // ==================== CACHED ENTRY POINTS ====================
+    //
+    // Every method takes a QueryCanceller; cancelling it aborts the running SQL and
+    // the method fails with an SQLException. Pass QueryCanceller.NONE when not needed.
+
+    /**
+     * Sales per month over the whole history, oldest first.
+     */
+    public List<MonthlyTotal> fetchMonthlySales(QueryCanceller canceller) throws SQLException {
+        return CACHE.get("monthly|all", null,
+                () -> USE_CUBE ? cubeMonthlySales(SalesCube.Filter.all(), canceller) : queryMonthlySales(canceller),
+                AnalyticsDAO::weighMonthly);
+    }
+
+    /**
+     * Sales per month for sales dated between start and end (inclusive), oldest first.
+     */
+    public List<MonthlyTotal> fetchMonthlySales(LocalDate start, LocalDate end, QueryCanceller canceller) throws SQLException {
+        TimeRange range = TimeRange.ofDays(start, end);
+        return CACHE.get("monthly|" + range, range,
+                () -> USE_CUBE ? cubeMonthlySales(SalesCube.Filter.range(range), canceller) : queryMonthlySales(range, canceller),
+                AnalyticsDAO::weighMonthly);
+    }
+
+    /**
+     * The five best selling meals over the whole history.
+     */
+    public List<MealTotal> fetchTopMeals(QueryCanceller canceller) throws SQLException {
+        return CACHE.get("top|all", null,
+                () -> USE_CUBE ? cubeTopMeals(SalesCube.Filter.all(), canceller) : queryTopMeals(canceller),
+                AnalyticsDAO::weighMeals);
+    }
+
+    /**
+     * The five best selling meals for sales dated between start and end (inclusive).
+     */
+    public List<MealTotal> fetchTopMeals(LocalDate start, LocalDate end, QueryCanceller canceller) throws SQLException {
+        TimeRange range = TimeRange.ofDays(start, end);
+        return CACHE.get("top|" + range, range,
+                () -> USE_CUBE ? cubeTopMeals(SalesCube.Filter.range(range), canceller) : queryTopMeals(range, canceller),
+                AnalyticsDAO::weighMeals);
+    }
+
+    /**
+     * Quantity sold per meal over the whole history, lowest first.
+     */
+    public List<MealTotal> fetchSalesByProduct(QueryCanceller canceller) throws SQLException {
+        return CACHE.get("byProduct|all", null,
+                () -> USE_CUBE ? cubeSalesByProduct(SalesCube.Filter.all(), canceller) : querySalesByProduct(canceller),
+                AnalyticsDAO::weighMeals);
+    }
+
+    /**
+     * Total sales for the current calendar month.
+     */
+    public double fetchTotalThisMonth(QueryCanceller canceller) throws SQLException {
+        return fetchMonthsTotal(TimeRange.currentMonth(), canceller);
+    }
+
+    /**
+     * Total sales for the current calendar year.
+     */
+    public double fetchTotalThisYear(QueryCanceller canceller) throws SQLException {
+        return fetchMonthsTotal(TimeRange.currentYear(), canceller);
+    }
+
+    /**
+     * Total sales for the current month, limited to sales between start and end (inclusive).
+     */
+    public double fetchTotalThisMonth(LocalDate start, LocalDate end, QueryCanceller canceller) throws SQLException {
+        return fetchDaysTotal(TimeRange.ofDays(start, end).intersect(TimeRange.currentMonth()), canceller);
+    }
+
+    /**
+     * Total sales for the current year, limited to sales between start and end (inclusive).
+     */
+    public double fetchTotalThisYear(LocalDate start, LocalDate end, QueryCanceller canceller) throws SQLException {
+        return fetchDaysTotal(TimeRange.ofDays(start, end).intersect(TimeRange.currentYear()), canceller);
+    }
+
+    /**
+     * Hit/miss figures of the shared result cache.
+     */
+    public static String cacheSummary() {
+        return CACHE.summary();
+    }
+
+    private static double fetchMonthsTotal(TimeRange range, QueryCanceller canceller) throws SQLException {
+        return CACHE.get("monthsTotal|" + range, range,
+                () -> USE_CUBE ? cubeTotal(SalesCube.Filter.range(range), canceller) : queryMonthsTotal(range, canceller),
+                v -> TOTAL_BYTES);
+    }
+
+    private static double fetchDaysTotal(TimeRange range, QueryCanceller canceller) throws SQLException {
+        return CACHE.get("daysTotal|" + range, range,
+                () -> USE_CUBE ? cubeTotal(SalesCube.Filter.range(range), canceller) : queryDaysTotal(range, canceller),
+                v -> TOTAL_BYTES);
+    }
+
+    // ==================== IN-MEMORY ENGINE ====================
+
+    /**
+     * The shared cube, brought up to date with sales added since the last call
+     * (a rowid range read; the meals only when meal_version moved).
+     */
+    private static SalesCube cube(QueryCanceller canceller) throws SQLException {
+        SalesCube cube = SalesCube.shared();
+        cube.refresh(canceller);
+        return cube;
+    }
+
+    private static List<MonthlyTotal> cubeMonthlySales(SalesCube.Filter filter, QueryCanceller canceller) throws SQLException {
+        SalesCube.Grouped g = cube(canceller).aggregate(SalesCube.GroupBy.MONTH, filter);
+        List<MonthlyTotal> out = new ArrayList<>(g.size());
+        for (int i = 0; i < g.size(); i++) {
+            out.add(new MonthlyTotal(SalesCube.monthKeyToString(g.keys[i]), g.revenueCents[i] / 100.0));
+        }
+        return out;
+    }
+
+    private static List<MealTotal> cubeTopMeals(SalesCube.Filter filter, QueryCanceller canceller) throws SQLException {
+        List<MealTotal> meals = cubeMealTotals(filter, canceller);
+        meals.sort(Comparator.comparingInt((MealTotal m) -> m.totalSold).reversed());
+        return new ArrayList<>(meals.subList(0, Math.min(TOP_MEALS, meals.size())));
+    }
+
+    private static List<MealTotal> cubeSalesByProduct(SalesCube.Filter filter, QueryCanceller canceller) throws SQLException {
+        List<MealTotal> meals = cubeMealTotals(filter, canceller);
+        meals.sort(Comparator.comparingInt(m -> m.totalSold));
+        return meals;
+    }
+
+    // Meals that no longer exist are left out, like the JOIN on the SQL path
+    private static List<MealTotal> cubeMealTotals(SalesCube.Filter filter, QueryCanceller canceller) throws SQLException {
+        SalesCube cube = cube(canceller);
+        SalesCube.Grouped g = cube.aggregate(SalesCube.GroupBy.MEAL, filter);
+        List<MealTotal> out = new ArrayList<>(g.size());
+        for (int i = 0; i < g.size(); i++) {
+            String name = cube.mealName(g.keys[i]);
+            if (name != null) {
+                out.add(new MealTotal(name, (int) g.quantity[i]));
+            }
+        }
+        return out;
+    }
+
+    private static double cubeTotal(SalesCube.Filter filter, QueryCanceller canceller) throws SQLException {
+        SalesCube.Grouped g = cube(canceller).aggregate(SalesCube.GroupBy.YEAR, filter);
+        long cents = 0;
+        for (long c : g.revenueCents) {
+            cents += c;
+        }
+        return cents / 100.0;
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Sales per month over the whole history, oldest first.
+     */
+    private static List<MonthlyTotal> queryMonthlySales(QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT month, SUM(revenue_cents) / 100.0 AS total_sales "
+                   + "FROM sales_monthly "
+                   + "GROUP BY month "
+                   + "ORDER BY month ASC";
+
+        return query(sql, canceller, AnalyticsDAO::readMonthlyTotals);
+    }
+
+    /**
+     * Sales per month for sales dated within the range, oldest first.
+     */
+    private static List<MonthlyTotal> queryMonthlySales(TimeRange range, QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT substr(day, 1, 7) AS month, SUM(revenue_cents) / 100.0 AS total_sales "
+                   + "FROM sales_daily "
+                   + "WHERE day >= ? AND day < ? "
+                   + "GROUP BY substr(day, 1, 7) "
+                   + "ORDER BY month ASC";
+
+        return query(sql, canceller, AnalyticsDAO::readMonthlyTotals, range.startDay(), range.endDay());
+    }
+
+    /**
+     * The five best selling meals over the whole history.
+     */
+    private static List<MealTotal> queryTopMeals(QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT name, SUM(quantity) AS total_sold "
+                   + "FROM sales_monthly "
+                   + "JOIN meal USING(meal_id) "
+                   + "GROUP BY meal_id, name "
+                   + "ORDER BY total_sold DESC "
+                   + "LIMIT 5";
+
+        return query(sql, canceller, AnalyticsDAO::readMealTotals);
+    }
+
+    /**
+     * The five best selling meals for sales dated within the range.
+     */
+    private static List<MealTotal> queryTopMeals(TimeRange range, QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT name, SUM(quantity) AS total_sold "
+                   + "FROM sales_daily "
+                   + "JOIN meal USING(meal_id) "
+                   + "WHERE day >= ? AND day < ? "
+                   + "GROUP BY meal_id, name "
+                   + "ORDER BY total_sold DESC "
+                   + "LIMIT 5";
+
+        return query(sql, canceller, AnalyticsDAO::readMealTotals, range.startDay(), range.endDay());
+    }
+
+    /**
+     * Quantity sold per meal over the whole history, lowest first.
+     */
+    private static List<MealTotal> querySalesByProduct(QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT name, SUM(quantity) AS total_sold "
+                   + "FROM sales_monthly "
+                   + "JOIN meal USING(meal_id) "
+                   + "GROUP BY meal_id, name "
+                   + "ORDER BY total_sold ASC";
+
+        return query(sql, canceller, AnalyticsDAO::readMealTotals);
+    }
+
+    // Month-aligned ranges read the smaller monthly rollup
+    private static double queryMonthsTotal(TimeRange range, QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT SUM(revenue_cents) / 100.0 FROM sales_monthly WHERE month >= ? AND month < ?";
+
+        return query(sql, canceller, AnalyticsDAO::readTotal, range.startMonth(), range.endMonth());
+    }
+
+    private static double queryDaysTotal(TimeRange range, QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT SUM(revenue_cents) / 100.0 FROM sales_daily WHERE day >= ? AND day < ?";
+
+        return query(sql, canceller, AnalyticsDAO::readTotal, range.startDay(), range.endDay());
+    }
+
+    /**
+     * Reads the rows of one result set into a value.
+     */
+    @FunctionalInterface
+    private interface ResultReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Run one query with string parameters. The statement is registered with the
+     * canceller for exactly as long as it runs, while this thread still owns the connection.
+     */
+    private static <T> T query(String sql, QueryCanceller canceller, ResultReader<T> reader, String... params)
+            throws SQLException {
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setString(i + 1, params[i]);
+            }
+
+            canceller.register(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return reader.read(rs);
+            } finally {
+                canceller.unregister(ps);
+            }
+        }
+    }
+
+    private static long weighMonthly(List<MonthlyTotal> rows) {
+        return LIST_BYTES + rows.size() * (ROW_BYTES + 56);
+    }
+
+    private static long weighMeals(List<MealTotal> rows) {
+        long bytes = LIST_BYTES;
+        for (MealTotal row : rows) {
+            bytes += ROW_BYTES + 40 + 2L * row.name.length();
+        }
+        return bytes;
+    }
+
+    private static List<MonthlyTotal> readMonthlyTotals(ResultSet rs) throws SQLException {
+        List<MonthlyTotal> out = new ArrayList<>();
+        while (rs.next()) {
+            out.add(new MonthlyTotal(rs.getString("month"), rs.getDouble("total_sales")));
+        }
+        return out;
+    }
+
+    private static double readTotal(ResultSet rs) throws SQLException {
+        return rs.next() ? rs.getDouble(1) : 0;
+    }
+
+    private static List<MealTotal> readMealTotals(ResultSet rs) throws SQLException {
+        List<MealTotal> out = new ArrayList<>();
+        while (rs.next()) {
+            out.add(new MealTotal(rs.getString("name"), rs.getInt("total_sold")));
+        }
+        return out;
+    }
+}
@@ -1,16 +1,19 @@
 package main;
 
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
-import javafx.application.Platform;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Cursor;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.Image;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 /**
@@ -18,11 +21,13 @@ import javafx.stage.Stage;
  *
  * Responsibilities:
  * - Seed a development test user on startup (DatabaseSeeder.seedTestUser()).
- * - Load the initial FXML (login screen) and manage scene root swaps.
+ * - Apply pending database schema migrations (SchemaMigrator.migrate()) on a
+ * DbExecutor thread while a progress screen is shown.
+ * - Show the login screen once the schema is ready, and manage scene root swaps.
  *
  * Notes for the team:
- * - setRoot(...) returns a boolean indicating whether navigation succeeded.
- * - loadFXML(...) throws a clear IOException when an FXML resource is missing.
+ * - setRoot(...) builds the next screen off the FX thread and returns a future
+ * that completes with whether navigation succeeded.
  * - For production, remove the DatabaseSeeder call and replace SHA-256 password
  * hashing
  * with a stronger algorithm (bcrypt/argon2).
@@ -33,14 +38,20 @@ public class App extends javafx.application.Application {
     // Controllers will ask App.setRoot(...) to swap the scene's root node.
     private static Scene scene;
 
+    // Incremented on every setRoot(); only the latest request may swap the root (FX thread only)
+    private static int rootRequest = 0;
+
     @Override
-    public void start(Stage stage) throws IOException {
+    public void start(Stage stage) {
+        // Log stacks of anything that blocks the FX thread past the frame budget
+        FxStallWatchdog.start();
+
         // ---- Development helper (remove for production) ----
         // Ensure there is a known test user available for quick testing and debugging.
 
         // ---- Initial UI setup ----
-        // Load the login screen FXML and create the primary Scene with a starting size.
-        scene = new Scene(loadFXML("login"), 1920, 1080);
+        // Start with a progress screen; the login screen replaces it once the schema is ready.
+        scene = new Scene(startupScreen(), 1920, 1080);
 
         // Set window title and show the stage.
         stage.setTitle("Lamesa");
@@ -55,13 +66,37 @@ public class App extends javafx.application.Application {
                 stage.getIcons().add(icon);
             }
         } catch (Exception e) {
-            System.err.println("[App] Failed to load icon: " + e.getMessage());
+            Log.warn("App", "Failed to load icon: " + e.getMessage());
         }
         
         stage.show();
 
+        // ---- Database schema ----
+        // Apply pending schema migrations (indexes etc.) before any screen queries the DB.
+        // On a large database this takes a while, so it runs on a DbExecutor thread.
+        DbExecutor.run(SchemaMigrator::migrate).whenComplete((ignored, e) -> {
+            if (e != null) {
+                Throwable cause = DbExecutor.rootCause(e);
+                Log.error("App", "Schema migration failed: " + cause.getMessage(), cause);
+            }
+            setRoot("login");
+        });
+
         // Small console trace to help debug navigation/startup problems.
-        System.out.println("[App] Started. Showing: login");
+        Log.info("App", "Started. Preparing database");
+    }
+
+    /**
+     * Shown while the database is migrated: a progress indicator and a short message.
+     */
+    private static Parent startupScreen() {
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setMaxSize(48, 48);
+        Label message = new Label("Preparing database…");
+        message.setStyle("-fx-font-size: 14px; -fx-text-fill: #6b7280;");
+        VBox box = new VBox(16, progress, message);
+        box.setAlignment(Pos.CENTER);
+        return box;
     }
 
     /**
@@ -69,98 +104,83 @@ public class App extends javafx.application.Application {
      * "login").
      *
      * Behaviour:
-     * - Loads the requested FXML via loadFXML(...)
-     * - Schedules root change on the JavaFX Application thread using
-     * Platform.runLater(...)
-     * - Returns true when navigation was initiated, false when the load failed.
+     * - Builds the requested FXML off the FX thread (PageLoader); the current
+     * screen stays responsive and shows a wait cursor meanwhile
+     * - Swaps the scene root on the JavaFX Application thread once it is ready
+     * - If setRoot is called again before the page is ready, only the latest
+     * request is shown
+     * - The returned future completes on the FX thread with true when the new
+     * root is on screen, false when the load failed or was superseded.
      *
      * If loading fails, shows an error Alert with the exception stack trace to help
      * developers find broken/missing FXML quickly.
      *
      * @param fxml simple FXML name (without .fxml)
-     * @return true if navigation was initiated successfully, false otherwise
+     * @return future completing with true once the new root is shown
      */
-    static boolean setRoot(String fxml) {
-        try {
-            // Attempt to load the requested FXML file -> returns a Parent node (root).
-            Parent root = loadFXML(fxml);
-
-            // Updating scene root must happen on the JavaFX Application Thread.
-            // runLater ensures the swap happens safely if called from another thread.
-            Platform.runLater(() -> {
-                scene.setRoot(root);
-                System.out.println("[App] Navigated to: " + fxml);
-            });
-
-            return true;
-        } catch (IOException e) {
+    static CompletableFuture<Boolean> setRoot(String fxml) {
+        int request = ++rootRequest;
+        scene.setCursor(Cursor.WAIT);
+
+        return PageLoader.load(fxml).handle((page, error) -> {
+            if (request != rootRequest) {
+                return false;
+            }
+            scene.setCursor(null);
+
+            if (error == null) {
+                scene.setRoot(page.root);
+                Log.info("App", "Navigated to: " + fxml);
+                return true;
+            }
+
+            Throwable e = DbExecutor.rootCause(error);
             // Console logging for quick debugging in the terminal/IDE.
-            System.err.println("[App] Failed to navigate to: " + fxml + " — " + e.getMessage());
-            e.printStackTrace();
+            Log.error("App", "Failed to navigate to: " + fxml + " — " + e.getMessage(), e);
 
             // Show a developer-friendly dialog with the exception details.
-            // Keep the Alert on the FX thread as well.
-            Platform.runLater(() -> {
-                Alert alert = new Alert(Alert.AlertType.ERROR);
-                alert.setTitle("Navigation Error");
-                alert.setHeaderText("Unable to open: " + fxml);
-
-                // Convert the exception stack trace into a string to display inside the alert.
-                StringWriter sw = new StringWriter();
-                e.printStackTrace(new PrintWriter(sw));
-                String exceptionText = sw.toString();
-
-                // Short message visible in the alert body.
-                alert.setContentText(e.getMessage());
-
-                // Place full stack trace inside a non-editable TextArea so developers can
-                // expand it.
-                javafx.scene.control.TextArea textArea = new javafx.scene.control.TextArea(exceptionText);
-                textArea.setEditable(false);
-                textArea.setWrapText(false);
-                textArea.setMaxWidth(Double.MAX_VALUE);
-                textArea.setMaxHeight(Double.MAX_VALUE);
-
-                // Use a VBox to hold the expandable content.
-                javafx.scene.layout.VBox dialogPaneContent = new javafx.scene.layout.VBox();
-                dialogPaneContent.getChildren().add(textArea);
-                alert.getDialogPane().setExpandableContent(dialogPaneContent);
-
-                alert.showAndWait();
-            });
-
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Navigation Error");
+            alert.setHeaderText("Unable to open: " + fxml);
+
+            // Convert the exception stack trace into a string to display inside the alert.
+            StringWriter sw = new StringWriter();
+            e.printStackTrace(new PrintWriter(sw));
+            String exceptionText = sw.toString();
+
+            // Short message visible in the alert body.
+            alert.setContentText(e.getMessage());
+
+            // Place full stack trace inside a non-editable TextArea so developers can
+            // expand it.
+            javafx.scene.control.TextArea textArea = new javafx.scene.control.TextArea(exceptionText);
+            textArea.setEditable(false);
+            textArea.setWrapText(false);
+            textArea.setMaxWidth(Double.MAX_VALUE);
+            textArea.setMaxHeight(Double.MAX_VALUE);
+
+            // Use a VBox to hold the expandable content.
+            javafx.scene.layout.VBox dialogPaneContent = new javafx.scene.layout.VBox();
+            dialogPaneContent.getChildren().add(textArea);
+            alert.getDialogPane().setExpandableContent(dialogPaneContent);
+
+            alert.showAndWait();
             return false;
-        }
+        });
     }
 
     /**
-     * Load an FXML resource from src/main/resources/main/<fxml>.fxml.
-     *
-     * This method performs a defensive check and throws IOException with a clear
-     * message if
-     * the requested resource is not found. Controllers call setRoot(...) which uses
-     * this loader.
-     *
-     * @param fxml simple FXML name (without .fxml)
-     * @return the loaded Parent root node
-     * @throws IOException when the resource cannot be found or fails to load
+     * Called by JavaFX when the last window closes.
+     * Stops the database worker threads and releases the pooled connections.
      */
-    private static Parent loadFXML(String fxml) throws IOException {
-        // Construct the resource path using the convention used by the project.
-        String resourcePath = "/main/" + fxml + ".fxml";
-
-        // Use the App class loader to find the file inside resources.
-        URL resource = App.class.getResource(resourcePath);
-
-        // If the resource isn't found, throw an explicit IOException with helpful text.
-        // This makes it obvious when an FXML file is misnamed or missing.
-        if (resource == null) {
-            throw new IOException("FXML resource not found: " + resourcePath);
-        }
-
-        // Create the FXMLLoader with the located resource and load the UI graph.
-        FXMLLoader fxmlLoader = new FXMLLoader(resource);
-        return fxmlLoader.load();
+    @Override
+    public void stop() {
+        Log.info("App", "Analytics cache: " + AnalyticsDAO.cacheSummary());
+        Log.info("App", "Query metrics: " + QueryMetrics.summary(10));
+        FxStallWatchdog.stop();
+        DbExecutor.shutdown();
+        Database.shutdown();
+        Log.flush(1000);
     }
 
     /**
@@ -15,12 +15,10 @@ import java.sql.*;
  * - Changed database path to lowercase "database/lamesa.db" for consistency
  * - Fixed column name from "work_hours" to "worked_hours" to match schema
  * - Changed shift completion threshold from 8 hours to 10 seconds for testing
+ * - The read-back verification queries only run when debug logging is enabled
  */
 public class AttendanceUtils {
 
-    // SQLite database file location
-    private static final String DB_URL = "jdbc:sqlite:database/lamesa.db";
-
     /**
      * Record login time for a user.
      * Creates a new attendance record with current timestamp.
@@ -28,54 +26,56 @@ public class AttendanceUtils {
      * @param username The username of the employee logging in
      */
     public static void recordLogin(String username) {
-        System.out.println("[AttendanceUtils] ===== RECORD LOGIN START =====");
-        System.out.println("[AttendanceUtils] Username: " + username);
+        Log.debug("AttendanceUtils", "Recording login for: " + username);
         
-        String sql = "INSERT INTO attendance (username, login_time) VALUES (?, datetime('now'))";
+        // login_time (UTC text, for display) and login_ts (epoch seconds, for ranges) from one clock reading
+        long now = System.currentTimeMillis() / 1000;
+        String sql = "INSERT INTO attendance (username, login_time, login_ts) VALUES (?, datetime(?, 'unixepoch'), ?)";
         
         Connection conn = null;
         PreparedStatement ps = null;
 
         try {
-            conn = DriverManager.getConnection(DB_URL);
+            conn = Database.getConnection();
             conn.setAutoCommit(false);
             
             ps = conn.prepareStatement(sql);
             ps.setString(1, username);
+            ps.setLong(2, now);
+            ps.setLong(3, now);
             int rowsAffected = ps.executeUpdate();
             
             conn.commit();
             
-            System.out.println("[AttendanceUtils] INSERT executed. Rows affected: " + rowsAffected);
-            System.out.println("[AttendanceUtils] Transaction committed successfully");
-            
-            // Verify the insert
-            String verifySql = "SELECT * FROM attendance WHERE username = ? ORDER BY id DESC LIMIT 1";
-            try (PreparedStatement verifyPs = conn.prepareStatement(verifySql)) {
-                verifyPs.setString(1, username);
-                try (ResultSet rs = verifyPs.executeQuery()) {
-                    if (rs.next()) {
-                        System.out.println("[AttendanceUtils] VERIFIED - Record exists:");
-                        System.out.println("  ID: " + rs.getInt("id"));
-                        System.out.println("  Username: " + rs.getString("username"));
-                        System.out.println("  Login Time: " + rs.getString("login_time"));
-                    } else {
-                        System.err.println("[AttendanceUtils] ERROR: Record not found after insert!");
+            Log.debug("AttendanceUtils", "INSERT executed. Rows affected: " + rowsAffected);
+
+            // Read the row back only when debugging; it costs a query on every login
+            if (Log.isDebugEnabled()) {
+                String verifySql = "SELECT * FROM attendance WHERE username = ? ORDER BY id DESC LIMIT 1";
+                try (PreparedStatement verifyPs = conn.prepareStatement(verifySql)) {
+                    verifyPs.setString(1, username);
+                    try (ResultSet rs = verifyPs.executeQuery()) {
+                        if (rs.next()) {
+                            Log.debug("AttendanceUtils", "VERIFIED - id: " + rs.getInt("id")
+                                    + ", username: " + rs.getString("username")
+                                    + ", login time: " + rs.getString("login_time"));
+                        } else {
+                            Log.error("AttendanceUtils", "Record not found after insert!");
+                        }
                     }
                 }
             }
-            
-            System.out.println("[AttendanceUtils] Login recorded for user: " + username);
+
+            Log.info("AttendanceUtils", "Login recorded for user: " + username);
 
         } catch (SQLException e) {
-            System.err.println("[AttendanceUtils] SQL Exception:");
-            e.printStackTrace();
+            Log.error("AttendanceUtils", "Could not record login for " + username, e);
             if (conn != null) {
                 try {
                     conn.rollback();
-                    System.err.println("[AttendanceUtils] Transaction rolled back");
+                    Log.error("AttendanceUtils", "Transaction rolled back");
                 } catch (SQLException ex) {
-                    ex.printStackTrace();
+                    Log.error("AttendanceUtils", "Rollback failed", ex);
                 }
             }
         } finally {
@@ -83,11 +83,9 @@ public class AttendanceUtils {
                 if (ps != null) ps.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                Log.error("AttendanceUtils", "Could not close connection", e);
             }
         }
-        
-        System.out.println("[AttendanceUtils] ===== RECORD LOGIN END =====");
     }
 
     /**
@@ -100,18 +98,15 @@ public class AttendanceUtils {
      * @param username The username of the employee logging out
      */
     public static void recordLogout(String username) {
-        System.out.println("[AttendanceUtils] ===== RECORD LOGOUT START =====");
-        System.out.println("[AttendanceUtils] Username: " + username);
+        Log.debug("AttendanceUtils", "Recording logout for: " + username);
         
         Connection conn = null;
         PreparedStatement ps = null;
 
         try {
-            conn = DriverManager.getConnection(DB_URL);
+            conn = Database.getConnection();
             conn.setAutoCommit(false);
-            
-            System.out.println("[AttendanceUtils] Database connection successful");
-            
+
             // First, find the ID of the most recent active session
             int activeSessionId = -1;
             String findIdSql = "SELECT id, login_time FROM attendance WHERE username = ? AND logout_time IS NULL ORDER BY id DESC LIMIT 1";
@@ -120,13 +115,11 @@ public class AttendanceUtils {
                 try (ResultSet rs = findPs.executeQuery()) {
                     if (rs.next()) {
                         activeSessionId = rs.getInt("id");
-                        System.out.println("[AttendanceUtils] Found active session:");
-                        System.out.println("  ID: " + activeSessionId);
-                        System.out.println("  Login Time: " + rs.getString("login_time"));
+                        Log.debug("AttendanceUtils", "Found active session " + activeSessionId
+                                + ", login time: " + rs.getString("login_time"));
                     } else {
-                        System.err.println("[AttendanceUtils] WARNING: No active session found for user: " + username);
+                        Log.warn("AttendanceUtils", "No active session found for user: " + username);
                         conn.close();
-                        System.out.println("[AttendanceUtils] ===== RECORD LOGOUT END =====");
                         return;
                     }
                 }
@@ -134,50 +127,58 @@ public class AttendanceUtils {
             
             // Now update that specific record using the ID
             // FIXED: Use WHERE id = ? instead of ORDER BY/LIMIT which SQLite doesn't support in UPDATE
+            // Worked time is plain integer arithmetic on the epoch columns (see SchemaMigrator V3)
+            long now = System.currentTimeMillis() / 1000;
             String updateSql = "UPDATE attendance " +
-                             "SET logout_time = datetime('now'), " +
-                             "    worked_hours = ROUND((JULIANDAY(datetime('now')) - JULIANDAY(login_time)) * 24, 2), " +
-                             "    full_shift = CASE WHEN ((JULIANDAY(datetime('now')) - JULIANDAY(login_time)) * 24 * 3600) >= 10 THEN 1 ELSE 0 END " +
+                             "SET logout_time = datetime(?, 'unixepoch'), " +
+                             "    logout_ts = ?, " +
+                             "    worked_hours = ROUND((? - login_ts) / 3600.0, 2), " +
+                             "    full_shift = CASE WHEN (? - login_ts) >= 10 THEN 1 ELSE 0 END " +
                              "WHERE id = ?";
             
             ps = conn.prepareStatement(updateSql);
-            ps.setInt(1, activeSessionId);
+            ps.setLong(1, now);
+            ps.setLong(2, now);
+            ps.setLong(3, now);
+            ps.setLong(4, now);
+            ps.setInt(5, activeSessionId);
             int rows = ps.executeUpdate();
             
             conn.commit();
             
-            System.out.println("[AttendanceUtils] UPDATE executed. Rows updated: " + rows);
-            System.out.println("[AttendanceUtils] Transaction committed successfully");
-            
-            if (rows > 0) {
-                // Verify the update
+            Log.debug("AttendanceUtils", "UPDATE executed. Rows updated: " + rows);
+
+            if (rows > 0 && Log.isDebugEnabled()) {
+                // Read the row back only when debugging; it costs a query on every logout
                 String verifySql = "SELECT * FROM attendance WHERE id = ?";
                 try (PreparedStatement verifyPs = conn.prepareStatement(verifySql)) {
                     verifyPs.setInt(1, activeSessionId);
                     try (ResultSet rs = verifyPs.executeQuery()) {
                         if (rs.next()) {
-                            System.out.println("[AttendanceUtils] VERIFIED - Record updated:");
-                            System.out.println("  ID: " + rs.getInt("id"));
-                            System.out.println("  Login Time: " + rs.getString("login_time"));
-                            System.out.println("  Logout Time: " + rs.getString("logout_time"));
-                            System.out.println("  Worked Hours: " + rs.getDouble("worked_hours"));
-                            System.out.println("  Full Shift: " + rs.getBoolean("full_shift"));
+                            Log.debug("AttendanceUtils", "VERIFIED - id: " + rs.getInt("id")
+                                    + ", login time: " + rs.getString("login_time")
+                                    + ", logout time: " + rs.getString("logout_time")
+                                    + ", worked hours: " + rs.getDouble("worked_hours")
+                                    + ", full shift: " + rs.getBoolean("full_shift"));
                         }
                     }
                 }
-            } else {
-                System.err.println("[AttendanceUtils] ERROR: No rows updated!");
+            } else if (rows == 0) {
+                Log.error("AttendanceUtils", "No rows updated!");
+            }
+
+            if (rows > 0) {
+                Log.info("AttendanceUtils", "Logout recorded for user: " + username);
             }
 
         } catch (SQLException e) {
-            System.err.println("[AttendanceUtils] SQL Exception:");
-            e.printStackTrace();
+            Log.error("AttendanceUtils", "Could not record logout for " + username, e);
             if (conn != null) {
                 try {
                     conn.rollback();
-                    System.err.println("[AttendanceUtils] Transaction rolled back");
+                    Log.error("AttendanceUtils", "Transaction rolled back");
                 } catch (SQLException ex) {
-                    ex.printStackTrace();
+                    Log.error("AttendanceUtils", "Rollback failed", ex);
                 }
             }
         } finally {
@@ -185,10 +186,8 @@ public class AttendanceUtils {
                 if (ps != null) ps.close();
                 if (conn != null) conn.close();
             } catch (SQLException e) {
-                e.printStackTrace();
+                Log.error("AttendanceUtils", "Could not close connection", e);
             }
         }
-        
-        System.out.println("[AttendanceUtils] ===== RECORD LOGOUT END =====");
     }
 }
\ No newline at end of file
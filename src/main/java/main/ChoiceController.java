@@ -18,9 +18,6 @@ public class ChoiceController {
     // SQL queries to update the most recent user's role
     private String manager = "UPDATE users SET role = 'manager' WHERE id = (SELECT MAX(id) FROM users)";
     private String employee = "UPDATE users SET role = 'employee' WHERE id = (SELECT MAX(id) FROM users)"; 
-    
-    // FIXED: Changed to lowercase "database/lamesa.db" for consistency
-    private String sqldb = "jdbc:sqlite:database/lamesa.db";
 
     /**
      * Handles Manager button click.
@@ -28,21 +25,7 @@ public class ChoiceController {
      */
     @FXML
     private void handleManager(){
-        try { 
-            Class.forName("org.sqlite.JDBC");
-            try(Connection conn = DriverManager.getConnection(sqldb); 
-                PreparedStatement ps = conn.prepareStatement(manager)) { 
-                ps.executeUpdate();
-                System.out.println("[ChoiceController] Manager role assigned");
-                App.setRoot("login"); 
-            }
-        } catch (SQLException e) { 
-            System.err.println("[ChoiceController] SQL Error: " + e.getMessage());
-            e.printStackTrace();
-        } catch (ClassNotFoundException e) { 
-            System.err.println("[ChoiceController] Class Not Found: " + e.getMessage());
-            e.printStackTrace();
-        }
+        assignRole(manager, "Manager");
     }
 
     /**
@@ -50,21 +33,25 @@ public class ChoiceController {
      * Sets the most recent user's role to 'employee' and navigates to login.
      */
     @FXML
-    private void handleEmployee(){ 
-        try{ 
-            Class.forName("org.sqlite.JDBC");
-            try(Connection conn = DriverManager.getConnection(sqldb);
-                PreparedStatement ps = conn.prepareStatement(employee)) { 
+    private void handleEmployee(){
+        assignRole(employee, "Employee");
+    }
+
+    /**
+     * Run the role update off the FX thread, then navigate to login.
+     */
+    private void assignRole(String sql, String roleName) {
+        DbExecutor.run(() -> {
+            try (Connection conn = Database.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.executeUpdate();
-                System.out.println("[ChoiceController] Employee role assigned"); 
-                App.setRoot("login"); 
             }
-        } catch (SQLException e) { 
-            System.err.println("[ChoiceController] SQL Error: " + e.getMessage());
-            e.printStackTrace();
-        } catch (ClassNotFoundException e) { 
-            System.err.println("[ChoiceController] Class Not Found: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }).thenRun(() -> {
+            Log.info("ChoiceController", roleName + " role assigned");
+            App.setRoot("login");
+        }).exceptionally(e -> {
+            Log.error("ChoiceController", "SQL Error: " + DbExecutor.rootCause(e).getMessage(), DbExecutor.rootCause(e));
+            return null;
+        });
     }
-}
\ No newline at end of file
+}
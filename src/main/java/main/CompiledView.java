@@ -0,0 +1,194 @@
+package main;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.fxml.LoadException;
+import javafx.scene.Parent;
+
+/**
+ * CompiledView
+ *
+ * Base class of the page classes that lamesa-fxml-maven-plugin generates from
+ * FXML (e.g. FoodMenuView from food_menu.fxml, see the precompiled-views
+ * profile). A generated build() creates the nodes with plain constructor and
+ * setter calls; class lookups, property lookups and string conversions were
+ * done at build time, so none of FXMLLoader's parsing and reflection is left.
+ *
+ * What still needs the controller's private members goes through the helpers
+ * here, with FXMLLoader's rules:
+ * - inject(): fx:id into a public or @FXML field of the same name; no field, no injection
+ * - handler(): onAction="#name" to a public or @FXML method taking the event or nothing
+ * - finish(): calls Initializable.initialize(location, null) or a public or @FXML initialize()
+ * Fields and methods are looked up once per controller class.
+ *
+ * A view is built once; PageLoader creates a new instance per page load.
+ */
+abstract class CompiledView {
+
+    /**
+     * Injectable fields and handler methods of one controller class.
+     */
+    private static final class Members {
+        final Map<String, Field> fields = new HashMap<>();
+        final Map<String, Method> methods = new HashMap<>();
+
+        Members(Class<?> type) {
+            // Subclass members first; FXMLLoader does not look past a name found lower down
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers()) && isAccessible(f.getModifiers(), f.isAnnotationPresent(FXML.class))
+                            && !fields.containsKey(f.getName())) {
+                        f.setAccessible(true);
+                        fields.put(f.getName(), f);
+                    }
+                }
+                for (Method m : c.getDeclaredMethods()) {
+                    if (Modifier.isStatic(m.getModifiers()) || !isAccessible(m.getModifiers(), m.isAnnotationPresent(FXML.class))) {
+                        continue;
+                    }
+                    boolean takesEvent = m.getParameterCount() == 1 && Event.class.isAssignableFrom(m.getParameterTypes()[0]);
+                    Method known = methods.get(m.getName());
+                    // Prefer the variant taking the event, like FXMLLoader
+                    if ((takesEvent || m.getParameterCount() == 0)
+                            && (known == null || takesEvent && known.getParameterCount() == 0 && known.getDeclaringClass() == c)) {
+                        m.setAccessible(true);
+                        methods.put(m.getName(), m);
+                    }
+                }
+            }
+        }
+
+        private static boolean isAccessible(int modifiers, boolean annotated) {
+            return Modifier.isPublic(modifiers) || annotated;
+        }
+    }
+
+    private static final ClassValue<Members> MEMBERS = new ClassValue<>() {
+        @Override
+        protected Members computeValue(Class<?> type) {
+            return new Members(type);
+        }
+    };
+
+    /**
+     * Name of the class generated for a page: "food_menu" -> "FoodMenuView".
+     * Must match FxmlCompiler.viewClassName in the plugin.
+     */
+    static String viewClassName(String page) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : page.split("[^A-Za-z0-9]+")) {
+            if (!part.isEmpty()) {
+                sb.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+        }
+        return sb.append("View").toString();
+    }
+
+    private final String location;
+    private Parent root;
+    private Object controller;
+
+    /**
+     * @param location classpath location of the FXML the view was generated from
+     */
+    protected CompiledView(String location) {
+        this.location = location;
+    }
+
+    /**
+     * Create the nodes and the controller, then call finish().
+     */
+    protected abstract void build() throws Exception;
+
+    Parent getRoot() {
+        return root;
+    }
+
+    Object getController() {
+        return controller;
+    }
+
+    /**
+     * Inject a node into the controller field named like its fx:id, if there is one.
+     */
+    protected final void inject(Object controller, String id, Object value) throws IllegalAccessException {
+        Field field = MEMBERS.get(controller.getClass()).fields.get(id);
+        if (field != null) {
+            field.set(controller, value);
+        }
+    }
+
+    /**
+     * Event handler calling the controller method named in onXxx="#name".
+     */
+    protected final <T extends Event> EventHandler<T> handler(Object controller, String name) throws LoadException {
+        Method method = MEMBERS.get(controller.getClass()).methods.get(name);
+        if (method == null) {
+            throw new LoadException(location + ": no handler method '" + name + "' in " + controller.getClass().getName());
+        }
+        boolean takesEvent = method.getParameterCount() == 1;
+        return event -> {
+            try {
+                if (takesEvent) {
+                    method.invoke(controller, event);
+                } else {
+                    method.invoke(controller);
+                }
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException(e.getCause());
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    /**
+     * URL of a "@path" attribute value, resolved against the FXML location like FXMLLoader does.
+     */
+    protected final String relative(String path) throws IOException {
+        if (path.startsWith("/")) {
+            URL url = CompiledView.class.getClassLoader().getResource(path.substring(1));
+            return url != null ? url.toString() : path;
+        }
+        return new URL(location(), path).toString();
+    }
+
+    /**
+     * Record the result and run the controller's initialize().
+     */
+    protected final void finish(Parent root, Object controller) throws Exception {
+        this.root = root;
+        this.controller = controller;
+        if (controller instanceof Initializable) {
+            ((Initializable) controller).initialize(location(), null);
+        } else if (controller != null) {
+            Method initialize = MEMBERS.get(controller.getClass()).methods.get("initialize");
+            if (initialize != null && initialize.getParameterCount() == 0) {
+                try {
+                    initialize.invoke(controller);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+    }
+
+    private URL location() throws LoadException {
+        URL url = CompiledView.class.getResource(location);
+        if (url == null) {
+            throw new LoadException("FXML resource not found: " + location);
+        }
+        return url;
+    }
+}
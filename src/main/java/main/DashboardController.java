@@ -1,10 +1,7 @@
 package main;
 
 import java.net.URL;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import javafx.fxml.FXML;
@@ -12,10 +9,11 @@ import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 
-public class DashboardController implements Initializable {
+public class DashboardController implements Initializable, PageLifecycle {
 
     @FXML
     private Label usernameLabel;
@@ -38,19 +36,57 @@ public class DashboardController implements Initializable {
     @FXML
     private VBox staffPerformanceVBox;
 
-    public static class Database {
-        private static final String DB_URL = "jdbc:sqlite:database/lamesa.db";
+    // Each tile group gives up and shows an error after this long
+    private static final long TILE_TIMEOUT_MS = Long.getLong("lamesa.dashboard.tileTimeoutMs", 5000);
 
-        public static Connection getConnection() throws Exception {
-            Class.forName("org.sqlite.JDBC"); // Load JDBC driver
-            return DriverManager.getConnection(DB_URL);
-        }
-    }
+    // Reads the data behind each tile group
+    private final DashboardService dashboardService = new DashboardService();
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // Load dashboard data on startup
-        loadDashboardData();
+        // Show skeletons right away, then load every tile group concurrently.
+        // Each tile renders as soon as its own query returns, so a slow list
+        // never holds back the headline numbers.
+        setUsername(SessionManager.getUsername());
+        showKpiSkeletons();
+        showListSkeleton(lowStockVBox);
+        showListSkeleton(staffPerformanceVBox);
+        loadTiles();
+    }
+
+    /**
+     * Back from another page: reload the tiles in place. The figures already
+     * shown stay up until the new ones arrive, so there are no skeletons.
+     */
+    @Override
+    public void onShow() {
+        loadTiles();
+    }
+
+    private void loadTiles() {
+        DbExecutor.supply(dashboardService::loadKpis, TILE_TIMEOUT_MS)
+            .thenAccept(this::renderKpis)
+            .exceptionally(e -> {
+                logTileError("headline figures", e);
+                showKpiError();
+                return null;
+            });
+
+        DbExecutor.supply(dashboardService::loadLowStock, TILE_TIMEOUT_MS)
+            .thenAccept(this::renderLowStock)
+            .exceptionally(e -> {
+                logTileError("low stock", e);
+                lowStockVBox.getChildren().setAll(placeholderLabel("Could not load low stock items"));
+                return null;
+            });
+
+        DbExecutor.supply(dashboardService::loadTopStaff, TILE_TIMEOUT_MS)
+            .thenAccept(this::renderTopStaff)
+            .exceptionally(e -> {
+                logTileError("staff performance", e);
+                staffPerformanceVBox.getChildren().setAll(placeholderLabel("Could not load staff performance"));
+                return null;
+            });
     }
 
     // Set welcome message
@@ -58,134 +94,129 @@ public class DashboardController implements Initializable {
         usernameLabel.setText(username);
     }
 
-    // Load dashboard data
-    private void loadDashboardData() {
-        try {
-            Connection conn = Database.getConnection();
+    // ==================== SKELETONS ====================
+
+    // KPI numbers show a dimmed "…" until their query returns
+    private void showKpiSkeletons() {
+        for (Text text : kpiTexts()) {
+            text.setText("…");
+            text.setOpacity(0.35);
+        }
+    }
+
+    private void showKpiError() {
+        for (Text text : kpiTexts()) {
+            text.setText("—");
+            text.setOpacity(1.0);
+        }
+    }
+
+    private Text[] kpiTexts() {
+        return new Text[] { totalOrdersYearText, totalRevenueText, activeEmployeesText, mealsSoldText };
+    }
+
+    // List tiles show grey bars shaped like the rows that will replace them
+    private void showListSkeleton(VBox box) {
+        box.getChildren().clear();
+        for (int i = 0; i < 3; i++) {
+            Region bar = new Region();
+            bar.setPrefHeight(18);
+            bar.setMaxWidth(i == 2 ? 380 : 560);
+            bar.setStyle("-fx-background-color: #efefef; -fx-background-radius: 4;");
+            VBox.setMargin(bar, new Insets(12, 15, 0, 15));
+            box.getChildren().add(bar);
+        }
+    }
 
-            // Get total orders for current year
-            String orderYearSql = "SELECT COUNT(*) as orderCount FROM sales WHERE strftime('%Y', sale_date) = strftime('%Y', 'now')";
-            PreparedStatement orderYearStmt = conn.prepareStatement(orderYearSql);
-            ResultSet orderYearRs = orderYearStmt.executeQuery();
+    private void logTileError(String tile, Throwable e) {
+        Log.error("DashboardController", "Error loading " + tile + ": " + DbExecutor.rootCause(e).getMessage());
+    }
+
+    private Label placeholderLabel(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-font-size: 13; -fx-text-fill: #999; -fx-padding: 20; -fx-font-family: 'System';");
+        label.setAlignment(javafx.geometry.Pos.CENTER);
+        return label;
+    }
+
+    // ==================== RENDERING (FX thread) ====================
+
+    private void renderKpis(DashboardSnapshot data) {
+        totalOrdersYearText.setText(String.valueOf(data.ordersThisYear));
+        totalRevenueText.setText(String.format("₱%.0f", data.revenueThisMonth));
+        activeEmployeesText.setText(String.valueOf(data.employeeCount));
+        mealsSoldText.setText(String.valueOf(data.mealsSoldThisMonth));
+        for (Text text : kpiTexts()) {
+            text.setOpacity(1.0);
+        }
+    }
+
+    private void renderLowStock(List<DashboardService.LowStockItem> lowStock) {
+        lowStockVBox.getChildren().clear();
+        for (DashboardService.LowStockItem item : lowStock) {
+            String mealName = item.mealName;
+            int quantity = item.quantity;
             
-            if (orderYearRs.next()) {
-                totalOrdersYearText.setText(String.valueOf(orderYearRs.getInt("orderCount")));
-            }
-
-            // Get total revenue for current month in pesos (no decimals)
-            String revenueSql = "SELECT SUM(total_price) AS totalRevenue FROM sales WHERE strftime('%Y-%m', sale_date) = strftime('%Y-%m', 'now')";
-            PreparedStatement revenueStmt = conn.prepareStatement(revenueSql);
-            ResultSet revenueRs = revenueStmt.executeQuery();
+            HBox itemRow = new HBox(15);
+            itemRow.setPadding(new Insets(12, 15, 12, 15));
+            itemRow.setStyle("-fx-border-color: #efefef; -fx-border-width: 0 0 1 0; -fx-alignment: CENTER_LEFT;");
             
-            if (revenueRs.next()) {
-                double revenue = revenueRs.getDouble("totalRevenue");
-                totalRevenueText.setText(String.format("₱%.0f", revenue));
-            }
-
-            // Get total employee count (all employees including managers)
-            String employeeSql = "SELECT COUNT(*) as totalCount FROM users";
-            PreparedStatement employeeStmt = conn.prepareStatement(employeeSql);
-            ResultSet employeeRs = employeeStmt.executeQuery();
+            Label nameLabel = new Label(mealName);
+            nameLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #333; -fx-font-family: 'System';");
+            nameLabel.setMaxWidth(450);
+            nameLabel.setWrapText(true);
             
-            if (employeeRs.next()) {
-                activeEmployeesText.setText(String.valueOf(employeeRs.getInt("totalCount")));
-            }
-
-            // Get total meals sold this month
-            String mealsSql = "SELECT SUM(quantity) as totalMeals FROM sales WHERE strftime('%Y-%m', sale_date) = strftime('%Y-%m', 'now')";
-            PreparedStatement mealsStmt = conn.prepareStatement(mealsSql);
-            ResultSet mealsRs = mealsStmt.executeQuery();
+            Label quantityLabel = new Label(quantity + " units");
+            quantityLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #e74c3c; -fx-font-weight: bold; -fx-font-family: 'System';");
+            quantityLabel.setPrefWidth(120);
+            quantityLabel.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
             
-            if (mealsRs.next()) {
-                int meals = mealsRs.getInt("totalMeals");
-                mealsSoldText.setText(String.valueOf(meals));
-            }
-
-            // Load Low Stock Items (less than 15 units) with meal names
-            String lowStockSql = "SELECT m.name, i.stock_quantity FROM inventory i JOIN meal m ON i.meal_id = m.meal_id WHERE i.stock_quantity < 15 ORDER BY i.stock_quantity ASC LIMIT 5";
-            PreparedStatement lowStockStmt = conn.prepareStatement(lowStockSql);
-            ResultSet lowStockRs = lowStockStmt.executeQuery();
+            itemRow.getChildren().addAll(nameLabel, quantityLabel);
+            lowStockVBox.getChildren().add(itemRow);
+        }
+        
+        if (lowStock.isEmpty()) {
+            Label noDataLabel = new Label("All items well stocked ✓");
+            noDataLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #27ae60; -fx-padding: 20; -fx-font-family: 'System';");
+            noDataLabel.setAlignment(javafx.geometry.Pos.CENTER);
+            lowStockVBox.getChildren().add(noDataLabel);
+        }
+    }
+
+    private void renderTopStaff(List<DashboardService.StaffActivity> topStaff) {
+        staffPerformanceVBox.getChildren().clear();
+        for (int i = 0; i < topStaff.size(); i++) {
+            String username = topStaff.get(i).username;
+            int loginCount = topStaff.get(i).loginCount;
+            int rank = i + 1;
             
-            lowStockVBox.getChildren().clear();
-            boolean hasLowStock = false;
-            while (lowStockRs.next()) {
-                hasLowStock = true;
-                String mealName = lowStockRs.getString("name");
-                int quantity = lowStockRs.getInt("stock_quantity");
-                
-                HBox itemRow = new HBox(15);
-                itemRow.setPadding(new Insets(12, 15, 12, 15));
-                itemRow.setStyle("-fx-border-color: #efefef; -fx-border-width: 0 0 1 0; -fx-alignment: CENTER_LEFT;");
-                
-                Label nameLabel = new Label(mealName);
-                nameLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #333; -fx-font-family: 'System';");
-                nameLabel.setMaxWidth(450);
-                nameLabel.setWrapText(true);
-                
-                Label quantityLabel = new Label(quantity + " units");
-                quantityLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #e74c3c; -fx-font-weight: bold; -fx-font-family: 'System';");
-                quantityLabel.setPrefWidth(120);
-                quantityLabel.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
-                
-                itemRow.getChildren().addAll(nameLabel, quantityLabel);
-                lowStockVBox.getChildren().add(itemRow);
-            }
+            HBox staffRow = new HBox(15);
+            staffRow.setPadding(new Insets(12, 15, 12, 15));
+            staffRow.setStyle("-fx-border-color: #efefef; -fx-border-width: 0 0 1 0; -fx-alignment: CENTER_LEFT;");
             
-            if (!hasLowStock) {
-                Label noDataLabel = new Label("All items well stocked ✓");
-                noDataLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #27ae60; -fx-padding: 20; -fx-font-family: 'System';");
-                noDataLabel.setAlignment(javafx.geometry.Pos.CENTER);
-                lowStockVBox.getChildren().add(noDataLabel);
-            }
-
-            // Load Staff Performance (based on login frequency)
-            String staffSql = "SELECT username, COUNT(*) as login_count FROM attendance GROUP BY username ORDER BY login_count DESC LIMIT 5";
-            PreparedStatement staffStmt = conn.prepareStatement(staffSql);
-            ResultSet staffRs = staffStmt.executeQuery();
+            Label rankLabel = new Label("#" + rank);
+            rankLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #999; -fx-font-weight: bold; -fx-font-family: 'System';");
+            rankLabel.setPrefWidth(35);
+            rankLabel.setAlignment(javafx.geometry.Pos.CENTER);
             
-            staffPerformanceVBox.getChildren().clear();
-            int rank = 1;
-            boolean hasStaff = false;
-            while (staffRs.next()) {
-                hasStaff = true;
-                String username = staffRs.getString("username");
-                int loginCount = staffRs.getInt("login_count");
-                
-                HBox staffRow = new HBox(15);
-                staffRow.setPadding(new Insets(12, 15, 12, 15));
-                staffRow.setStyle("-fx-border-color: #efefef; -fx-border-width: 0 0 1 0; -fx-alignment: CENTER_LEFT;");
-                
-                Label rankLabel = new Label("#" + rank);
-                rankLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #999; -fx-font-weight: bold; -fx-font-family: 'System';");
-                rankLabel.setPrefWidth(35);
-                rankLabel.setAlignment(javafx.geometry.Pos.CENTER);
-                
-                Label nameLabel = new Label(username);
-                nameLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #333; -fx-font-family: 'System';");
-                nameLabel.setPrefWidth(350);
-                
-                Label logsLabel = new Label(loginCount + " logins");
-                logsLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #27ae60; -fx-font-weight: bold; -fx-font-family: 'System';");
-                logsLabel.setPrefWidth(120);
-                logsLabel.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
-                
-                staffRow.getChildren().addAll(rankLabel, nameLabel, logsLabel);
-                staffPerformanceVBox.getChildren().add(staffRow);
-                rank++;
-            }
+            Label nameLabel = new Label(username);
+            nameLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #333; -fx-font-family: 'System';");
+            nameLabel.setPrefWidth(350);
             
-            if (!hasStaff) {
-                Label noDataLabel = new Label("No login data yet");
-                noDataLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #999; -fx-padding: 20; -fx-font-family: 'System';");
-                noDataLabel.setAlignment(javafx.geometry.Pos.CENTER);
-                staffPerformanceVBox.getChildren().add(noDataLabel);
-            }
-
-            conn.close();
-
-        } catch (Exception e) {
-            e.printStackTrace();
+            Label logsLabel = new Label(loginCount + " logins");
+            logsLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #27ae60; -fx-font-weight: bold; -fx-font-family: 'System';");
+            logsLabel.setPrefWidth(120);
+            logsLabel.setAlignment(javafx.geometry.Pos.CENTER_RIGHT);
+            
+            staffRow.getChildren().addAll(rankLabel, nameLabel, logsLabel);
+            staffPerformanceVBox.getChildren().add(staffRow);
+        }
+        
+        if (topStaff.isEmpty()) {
+            Label noDataLabel = new Label("No login data yet");
+            noDataLabel.setStyle("-fx-font-size: 13; -fx-text-fill: #999; -fx-padding: 20; -fx-font-family: 'System';");
+            noDataLabel.setAlignment(javafx.geometry.Pos.CENTER);
+            staffPerformanceVBox.getChildren().add(noDataLabel);
         }
     }
 }
-
@@ -0,0 +1,126 @@
+package main;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DashboardService
+ *
+ * Reads the data behind the dashboard tiles. Each method serves one tile group and
+ * uses its own pooled connection, so DashboardController can run them concurrently
+ * and render each tile as soon as its own data arrives.
+ *
+ * - loadKpis(): the four headline figures from a single aggregate query: one index
+ *   range scan of this year's sales (idx_sales_ts) with conditional sums for the
+ *   month window, plus the user count. One statement, so one consistent state.
+ * - loadLowStock() / loadTopStaff(): the two small list tiles.
+ * - Never touches UI nodes; callers run it on a DbExecutor thread.
+ */
+public class DashboardService {
+
+    /**
+     * A meal whose stock is running low.
+     */
+    public static final class LowStockItem {
+        public final String mealName;
+        public final int quantity;
+
+        public LowStockItem(String mealName, int quantity) {
+            this.mealName = mealName;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * An employee ranked by number of logins.
+     */
+    public static final class StaffActivity {
+        public final String username;
+        public final int loginCount;
+
+        public StaffActivity(String username, int loginCount) {
+            this.username = username;
+            this.loginCount = loginCount;
+        }
+    }
+
+    private static final String KPI_SQL = ""
+        + "SELECT COUNT(*) AS orders_year, "
+        + "       SUM(CASE WHEN sale_ts >= ? AND sale_ts < ? THEN total_price END) AS revenue_month, "
+        + "       SUM(CASE WHEN sale_ts >= ? AND sale_ts < ? THEN quantity END) AS meals_month, "
+        + "       (SELECT COUNT(*) FROM users) AS employee_count "
+        + "FROM sales "
+        + "WHERE sale_ts >= ? AND sale_ts < ?";
+
+    // Low stock items (less than 15 units) with meal names
+    private static final String LOW_STOCK_SQL = ""
+        + "SELECT m.name, i.stock_quantity FROM inventory i JOIN meal m ON i.meal_id = m.meal_id "
+        + "WHERE i.stock_quantity < 15 ORDER BY i.stock_quantity ASC LIMIT 5";
+
+    // Staff performance (based on login frequency)
+    private static final String TOP_STAFF_SQL = ""
+        + "SELECT username, COUNT(*) AS login_count FROM attendance "
+        + "GROUP BY username ORDER BY login_count DESC LIMIT 5";
+
+    /**
+     * Headline figures for the current month and year.
+     */
+    public DashboardSnapshot loadKpis() throws SQLException {
+        TimeRange year = TimeRange.currentYear();
+        TimeRange month = TimeRange.currentMonth();
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement(KPI_SQL)) {
+            ps.setLong(1, month.startEpoch());
+            ps.setLong(2, month.endEpoch());
+            ps.setLong(3, month.startEpoch());
+            ps.setLong(4, month.endEpoch());
+            ps.setLong(5, year.startEpoch());
+            ps.setLong(6, year.endEpoch());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return new DashboardSnapshot(0, 0, 0, 0);
+                }
+                return new DashboardSnapshot(
+                        rs.getInt("orders_year"),
+                        rs.getDouble("revenue_month"),
+                        rs.getInt("meals_month"),
+                        rs.getInt("employee_count"));
+            }
+        }
+    }
+
+    /**
+     * Up to five meals with fewer than 15 units in stock, lowest first.
+     */
+    public List<LowStockItem> loadLowStock() throws SQLException {
+        List<LowStockItem> items = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement(LOW_STOCK_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                items.add(new LowStockItem(rs.getString("name"), rs.getInt("stock_quantity")));
+            }
+        }
+        return items;
+    }
+
+    /**
+     * The five employees with the most logins.
+     */
+    public List<StaffActivity> loadTopStaff() throws SQLException {
+        List<StaffActivity> staff = new ArrayList<>();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TOP_STAFF_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                staff.add(new StaffActivity(rs.getString("username"), rs.getInt("login_count")));
+            }
+        }
+        return staff;
+    }
+}
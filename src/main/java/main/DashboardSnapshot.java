@@ -0,0 +1,25 @@
+package main;
+
+/**
+ * DashboardSnapshot
+ *
+ * Immutable headline figures for the dashboard KPI tiles, all produced by one
+ * aggregate query in DashboardService, so the four numbers always describe the
+ * same database state.
+ *
+ * - Safe to hand from the DbExecutor thread to the FX thread.
+ */
+public final class DashboardSnapshot {
+
+    public final int ordersThisYear;
+    public final double revenueThisMonth;
+    public final int mealsSoldThisMonth;
+    public final int employeeCount;
+
+    public DashboardSnapshot(int ordersThisYear, double revenueThisMonth, int mealsSoldThisMonth, int employeeCount) {
+        this.ordersThisYear = ordersThisYear;
+        this.revenueThisMonth = revenueThisMonth;
+        this.mealsSoldThisMonth = mealsSoldThisMonth;
+        this.employeeCount = employeeCount;
+    }
+}
@@ -0,0 +1,202 @@
+package main;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database
+ *
+ * Single place that hands out connections to the SQLite database.
+ *
+ * Responsibilities:
+ * - Own a small pool of physical connections that are opened once and reused.
+ * - Apply the connection PRAGMAs (WAL journal, synchronous, busy_timeout,
+ *   mmap_size, cache_size) once per physical connection instead of per call.
+ * - Return connections that behave like normal JDBC connections: callers keep
+ *   using try-with-resources, and close() hands the connection back to the pool.
+ *
+ * Configuration (JVM system properties, read once on first use):
+ * - lamesa.db.url            JDBC url                 (default jdbc:sqlite:database/lamesa.db)
+ * - lamesa.db.poolSize       max physical connections (default 4)
+ * - lamesa.db.acquireTimeoutMs wait for a free connection before failing (default 10000)
+ * - lamesa.db.journalMode    PRAGMA journal_mode      (default WAL)
+ * - lamesa.db.synchronous    PRAGMA synchronous       (default NORMAL)
+ * - lamesa.db.busyTimeoutMs  PRAGMA busy_timeout      (default 5000)
+ * - lamesa.db.mmapSize       PRAGMA mmap_size, bytes  (default 64 MB)
+ * - lamesa.db.cacheSize      PRAGMA cache_size        (default -16000, i.e. ~16 MB)
+ * - lamesa.db.statementCacheSize prepared statements kept per connection (default 32)
+ */
+public final class Database {
+
+    private static final String URL = System.getProperty("lamesa.db.url", "jdbc:sqlite:database/lamesa.db");
+    private static final int POOL_SIZE = Integer.getInteger("lamesa.db.poolSize", 4);
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("lamesa.db.acquireTimeoutMs", 10_000L);
+    private static final String JOURNAL_MODE = System.getProperty("lamesa.db.journalMode", "WAL");
+    private static final String SYNCHRONOUS = System.getProperty("lamesa.db.synchronous", "NORMAL");
+    private static final int BUSY_TIMEOUT_MS = Integer.getInteger("lamesa.db.busyTimeoutMs", 5000);
+    private static final long MMAP_SIZE = Long.getLong("lamesa.db.mmapSize", 64L * 1024 * 1024);
+    private static final int CACHE_SIZE = Integer.getInteger("lamesa.db.cacheSize", -16000);
+
+    // Idle physical connections waiting to be borrowed
+    private static final BlockingQueue<PooledConnection> idle = new ArrayBlockingQueue<>(Math.max(1, POOL_SIZE));
+
+    // Every physical connection opened so far (idle or borrowed), used for shutdown
+    private static final List<PooledConnection> all = new ArrayList<>();
+
+    private static boolean closed = false;
+
+    private Database() {
+    }
+
+    /**
+     * Borrow a connection from the pool.
+     * Opens a new physical connection while the pool is below its size limit,
+     * otherwise waits for one to be returned.
+     *
+     * Always close the returned connection (try-with-resources) so it goes back to the pool.
+     *
+     * @return a pooled connection
+     * @throws SQLException when the pool is shut down, exhausted past the timeout, or the open fails
+     */
+    public static Connection getConnection() throws SQLException {
+        PooledConnection pooled = idle.poll();
+
+        if (pooled == null) {
+            pooled = openIfBelowLimit();
+        }
+
+        if (pooled == null) {
+            try {
+                pooled = idle.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pooled == null) {
+                throw new SQLException("Timed out after " + ACQUIRE_TIMEOUT_MS + " ms waiting for a database connection");
+            }
+        }
+
+        return pooled.borrow();
+    }
+
+    /**
+     * Close every physical connection. Called once when the application exits.
+     */
+    public static void shutdown() {
+        List<PooledConnection> toClose;
+        synchronized (all) {
+            closed = true;
+            toClose = new ArrayList<>(all);
+            all.clear();
+        }
+        idle.clear();
+
+        for (PooledConnection pooled : toClose) {
+            pooled.closePhysical();
+        }
+        Log.info("Database", "Pool shut down (" + toClose.size() + " connections closed)");
+        Log.info("Database", "Statement cache: " + StatementCache.summary());
+    }
+
+    /**
+     * @return prepared statement cache hit/miss counters summed over the pool
+     */
+    public static String getStatementCacheStats() {
+        return StatementCache.summary();
+    }
+
+    /**
+     * @return the JDBC url the pool connects to
+     */
+    public static String getUrl() {
+        return URL;
+    }
+
+    /**
+     * @return the database file, or null when the url is not a plain SQLite file
+     *         (in-memory database, "file:" URI)
+     */
+    static Path getFile() {
+        if (!URL.startsWith("jdbc:sqlite:")) {
+            return null;
+        }
+        String db = URL.substring("jdbc:sqlite:".length());
+        int query = db.indexOf('?');
+        if (query >= 0) {
+            db = db.substring(0, query);
+        }
+        if (db.isEmpty() || db.startsWith(":memory:") || db.startsWith("file:")) {
+            return null;
+        }
+        return Paths.get(db);
+    }
+
+    /**
+     * Called by PooledConnection when a borrowed connection is closed by its user.
+     */
+    static void release(PooledConnection pooled) {
+        synchronized (all) {
+            if (closed) {
+                pooled.closePhysical();
+                return;
+            }
+        }
+        if (!idle.offer(pooled)) {
+            // Should not happen (queue is sized to the pool), but never leak a handle
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * Called by PooledConnection when a physical connection turned out to be broken.
+     */
+    static void discard(PooledConnection pooled) {
+        synchronized (all) {
+            all.remove(pooled);
+        }
+        pooled.closePhysical();
+    }
+
+    private static PooledConnection openIfBelowLimit() throws SQLException {
+        synchronized (all) {
+            if (closed) {
+                throw new SQLException("Database pool has been shut down");
+            }
+            if (all.size() >= POOL_SIZE) {
+                return null;
+            }
+            PooledConnection pooled = new PooledConnection(openPhysical());
+            all.add(pooled);
+            return pooled;
+        }
+    }
+
+    /**
+     * Open a physical connection and apply the PRAGMAs once.
+     */
+    private static Connection openPhysical() throws SQLException {
+        Connection conn = DriverManager.getConnection(URL);
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA journal_mode = " + JOURNAL_MODE);
+            st.execute("PRAGMA synchronous = " + SYNCHRONOUS);
+            st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            st.execute("PRAGMA mmap_size = " + MMAP_SIZE);
+            st.execute("PRAGMA cache_size = " + CACHE_SIZE);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        Log.info("Database", "Opened pooled connection to " + URL);
+        return conn;
+    }
+}
@@ -0,0 +1,182 @@
+package main;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.application.Platform;
+
+/**
+ * DbExecutor
+ *
+ * Runs database work off the JavaFX Application Thread.
+ *
+ * - A small, bounded pool of daemon threads ("lamesa-db-N") executes the tasks.
+ * - supply(...) returns a CompletableFuture that completes on the FX thread, so
+ *   thenAccept / exceptionally callbacks can touch UI nodes directly.
+ * - When the queue is full the future fails with RejectedExecutionException
+ *   instead of blocking the caller.
+ * - supply(task, timeoutMs) additionally fails the future with TimeoutException
+ *   (on the FX thread) when the result does not arrive in time; a late result
+ *   is dropped.
+ * - Tasks started from a controller whose page is still being built off the FX
+ *   thread (see PageLoader) complete only after that page has been handed over.
+ *   When that build is abandoned, tasks that have not started are skipped and
+ *   no completion reaches the FX thread; the page is thrown away.
+ *
+ * Typical use in a controller:
+ *
+ *   DbExecutor.supply(() -> dao.fetchSomething())
+ *       .thenAccept(rows -> table.setItems(...))
+ *       .exceptionally(e -> { showError(e); return null; });
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.db.workers    worker threads  (default: lamesa.db.poolSize, or 4)
+ * - lamesa.db.queueSize  queued tasks    (default 256)
+ */
+public final class DbExecutor {
+
+    /**
+     * A unit of database work that may throw (usually SQLException).
+     */
+    @FunctionalInterface
+    public interface DbTask<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * A unit of database work without a result.
+     */
+    @FunctionalInterface
+    public interface DbAction {
+        void run() throws Exception;
+    }
+
+    private static final int WORKERS = Integer.getInteger("lamesa.db.workers", Integer.getInteger("lamesa.db.poolSize", 4));
+    private static final int QUEUE_SIZE = Integer.getInteger("lamesa.db.queueSize", 256);
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            WORKERS, WORKERS,
+            30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE),
+            new DaemonThreadFactory());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private DbExecutor() {
+    }
+
+    /**
+     * Run a task on the database pool. The returned future completes on the FX thread.
+     */
+    public static <T> CompletableFuture<T> supply(DbTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<Void> build = PageLoader.currentBuild();
+        QueryCanceller abandoned = PageLoader.currentCanceller();
+
+        try {
+            EXECUTOR.execute(() -> {
+                if (abandoned.isCancelled()) {
+                    return;
+                }
+                try {
+                    T value = task.run();
+                    onFxThread(build, () -> future.complete(value));
+                } catch (Throwable t) {
+                    onFxThread(build, () -> future.completeExceptionally(t));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Like supply(task), but the future fails with TimeoutException when the task has
+     * not finished within timeoutMs. The task itself keeps running to completion.
+     */
+    public static <T> CompletableFuture<T> supply(DbTask<T> task, long timeoutMs) {
+        CompletableFuture<T> future = supply(task);
+        CompletableFuture<Void> build = PageLoader.currentBuild();
+        CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!future.isDone()) {
+                onFxThread(build, () -> future.completeExceptionally(
+                        new TimeoutException("Database task timed out after " + timeoutMs + " ms")));
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Run an action on the database pool. The returned future completes on the FX thread.
+     */
+    public static CompletableFuture<Void> run(DbAction action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Strip the CompletionException/ExecutionException wrappers added by CompletableFuture.
+     */
+    public static Throwable rootCause(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Stop accepting work. Running tasks are allowed to finish.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    /**
+     * Hand a completion to the FX thread, once the page build it was started from (if any)
+     * is done. Falls back to the current thread when the JavaFX toolkit is not running or
+     * not on the classpath (headless tools, benchmarks).
+     */
+    private static void onFxThread(CompletableFuture<Void> build, Runnable r) {
+        if (build != null && build.isCancelled()) {
+            return; // the page was abandoned
+        }
+        if (build == null || build.isDone()) {
+            onFxThread(r);
+        } else {
+            build.thenRun(() -> onFxThread(r));
+        }
+    }
+
+    private static void onFxThread(Runnable r) {
+        try {
+            Platform.runLater(r);
+        } catch (IllegalStateException | NoClassDefFoundError toolkitNotRunning) {
+            r.run();
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "lamesa-db-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -47,12 +47,19 @@ public class EditEmployeeController {
         if (selected == null || selected.isEmpty()) return;
 
         EmployeeDAO dao = new EmployeeDAO();
-        boolean ok = dao.updateRoleByUsername(username, selected);
-        if (!ok) {
-            // show minimal feedback (you can replace with Alert)
-            System.err.println("[EditEmployeeController] Failed to update role for " + username);
-        }
-        closeWindow();
+        DbExecutor.supply(() -> dao.updateRoleByUsername(username, selected))
+            .thenAccept(ok -> {
+                if (!ok) {
+                    // show minimal feedback (you can replace with Alert)
+                    Log.error("EditEmployeeController", "Failed to update role for " + username);
+                }
+                closeWindow();
+            })
+            .exceptionally(e -> {
+                Log.error("EditEmployeeController", "Failed to update role for " + username);
+                closeWindow();
+                return null;
+            });
     }
 
     @FXML
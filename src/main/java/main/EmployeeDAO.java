@@ -1,7 +1,6 @@
 package main;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -20,7 +19,6 @@ import java.util.List;
  */
 public class EmployeeDAO {
 
-    private static final String DB_URL = "jdbc:sqlite:database/lamesa.db";
     private static final DateTimeFormatter TF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
@@ -55,19 +53,15 @@ public class EmployeeDAO {
         String sql = ""
             + "SELECT u.username, u.role, a.login_time, a.logout_time "
             + "FROM users u "
-            + "LEFT JOIN ( "
-            + "  SELECT username, login_time, logout_time "
-            + "  FROM attendance "
-            + "  WHERE id IN ( "
-            + "    SELECT id FROM attendance a2 WHERE a2.username = attendance.username ORDER BY login_time DESC LIMIT 1 "
-            + "  ) "
-            + ") a ON a.username = u.username "
+            + "LEFT JOIN attendance a ON a.id = ( "
+            + "  SELECT a2.id FROM attendance a2 WHERE a2.username = u.username ORDER BY a2.login_ts DESC LIMIT 1 "
+            + ") "
             + "ORDER BY u.username COLLATE NOCASE ASC;";
 
-        // Note: the subquery style above is SQLite-friendly. If you prefer you can replace
-        // it with a different approach (window functions) if using a newer SQLite build.
+        // Note: the correlated subquery is one seek per user on
+        // idx_attendance_username_login_ts (newest login_ts first).
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        try (Connection conn = Database.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
@@ -80,7 +74,7 @@ public class EmployeeDAO {
             }
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("EmployeeDAO", "Could not load employees", e);
         }
 
         return out;
@@ -93,7 +87,7 @@ public class EmployeeDAO {
     public boolean updateRoleByUsername(String username, String newRole) {
         String sql = "UPDATE users SET role = ? WHERE username = ?";
 
-        try (Connection conn = DriverManager.getConnection(DB_URL);
+        try (Connection conn = Database.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, newRole);
@@ -102,7 +96,7 @@ public class EmployeeDAO {
             return updated > 0;
 
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("EmployeeDAO", "Could not update role for " + username, e);
             return false;
         }
     }
@@ -114,7 +108,7 @@ public class EmployeeDAO {
 public boolean deleteUserByUsername(String username) {
     String sql = "DELETE FROM users WHERE username = ?";
     
-    try (Connection conn = DriverManager.getConnection(DB_URL);
+    try (Connection conn = Database.getConnection();
          PreparedStatement ps = conn.prepareStatement(sql)) {
         
         ps.setString(1, username);
@@ -122,7 +116,7 @@ public boolean deleteUserByUsername(String username) {
         return deleted > 0; 
         
     } catch (SQLException e) {
-        e.printStackTrace();
+        Log.error("EmployeeDAO", "Could not delete " + username, e);
         return false;
     }
 }
@@ -26,7 +26,7 @@ import java.util.List;
  * - Search bar to filter employees by username
  * - Role filter dropdown (All, Admin, Employee)
  */
-public class EmployeesController {
+public class EmployeesController implements PageLifecycle {
 
     // TableView and columns mapped from FXML
     @FXML private TableView<Employee> employeesTable;
@@ -53,7 +53,7 @@ public class EmployeesController {
 
     @FXML
     private void initialize() {
-        System.out.println("[EmployeesController] Initializing...");
+        Log.info("EmployeesController", "Initializing...");
         
         // 1) Configure table columns
         usernameColumn.setCellValueFactory(new PropertyValueFactory<>("username"));
@@ -202,7 +202,7 @@ public class EmployeesController {
         if (dataIndex >= 0) {
             data.set(dataIndex, edited);
             filterEmployees(); // refresh filtered view
-            System.out.println("Edited: " + edited.getUsername());
+            Log.info("EmployeesController", "Edited: " + edited.getUsername());
         }
     });
 });
@@ -217,19 +217,20 @@ public class EmployeesController {
     confirm.setContentText("Remove employee: " + employee.getUsername() + "?");
 
     if (confirm.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-        // Delete from database first
-        boolean deleted = dao.deleteUserByUsername(employee.getUsername());
-        
-        if (deleted) {
-            // Only remove from UI if database deletion succeeded
-            data.remove(employee);
-            filterEmployees();
-            showAlert(Alert.AlertType.INFORMATION, "Success", 
-                     "Employee removed successfully.");
-        } else {
-            showAlert(Alert.AlertType.ERROR, "Error", 
-                     "Failed to remove employee from database.");
-        }
+        // Delete from database first (off the FX thread)
+        DbExecutor.supply(() -> dao.deleteUserByUsername(employee.getUsername()))
+            .thenAccept(deleted -> {
+                if (deleted) {
+                    // Only remove from UI if database deletion succeeded
+                    data.remove(employee);
+                    filterEmployees();
+                    showAlert(Alert.AlertType.INFORMATION, "Success", 
+                             "Employee removed successfully.");
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Error", 
+                             "Failed to remove employee from database.");
+                }
+            });
     }
 });
 
@@ -280,30 +281,53 @@ public class EmployeesController {
         });
         roleFilterCombo.setOnAction(e -> filterEmployees());
 
-        // 4) Load data from database
-        Platform.runLater(() -> {
-            loadData();
-            filterEmployees();
-        });
+        // 4) Load data from database (in the background; the table shows a placeholder meanwhile)
+        loadData();
 
         // 5) Setup search/filter feature
         setupSearch();
         
-        System.out.println("[EmployeesController] Initialization complete. Total employees: " + data.size());
+        Log.info("EmployeesController", "Initialization complete. Total employees: " + data.size());
+    }
+
+    /**
+     * Back from another page: reload the users, keeping the current search and role filter.
+     */
+    @Override
+    public void onShow() {
+        loadData();
     }
 
     /**
      * Load all users and their last attendance from the database.
-     * Populates the ObservableList for the TableView.
+     * The query runs on a DbExecutor thread; populating the ObservableList
+     * for the TableView happens back on the FX thread.
      */
     private void loadData() {
-        System.out.println("[EmployeesController] Loading data from database...");
+        Log.info("EmployeesController", "Loading data from database...");
+        employeesTable.setPlaceholder(new Label("Loading employees…"));
+
+        DbExecutor.supply(dao::fetchAllUsersWithLastAttendance)
+            .thenAccept(rows -> {
+                showData(rows);
+                employeesTable.setPlaceholder(new Label("No employees found"));
+                filterEmployees();
+            })
+            .exceptionally(e -> {
+                Log.error("EmployeesController", "ERROR loading data", DbExecutor.rootCause(e));
+                showAlert(Alert.AlertType.ERROR, "Error", "Failed to load employee data: " + DbExecutor.rootCause(e).getMessage());
+                return null;
+            });
+    }
+
+    /**
+     * Populate the ObservableList from the fetched rows (FX thread).
+     */
+    private void showData(List<EmployeeDAO.EmployeeRow> rows) {
         data.clear();
 
         try {
-            // Fetch all users with last login/logout info
-            List<EmployeeDAO.EmployeeRow> rows = dao.fetchAllUsersWithLastAttendance();
-            System.out.println("[EmployeesController] Fetched " + rows.size() + " users from database");
+            Log.info("EmployeesController", "Fetched " + rows.size() + " users from database");
 
             for (EmployeeDAO.EmployeeRow row : rows) {
                 String username = row.username;
@@ -314,17 +338,16 @@ public class EmployeesController {
                 // Determine shift status (Completed, hours worked, or "-")
                 String shiftStatus = computeShiftStatus(row.lastLogin, lastLogout);
 
-                System.out.println("[EmployeesController] Adding: " + username + " | " + role + " | " + lastLogin + " | " + shiftStatus);
+                Log.debug("EmployeesController", () -> "Adding: " + username + " | " + role + " | " + lastLogin + " | " + shiftStatus);
 
                 // Add to ObservableList
                 data.add(new Employee(username, role, lastLogin, shiftStatus));
             }
 
-            System.out.println("[EmployeesController] Data loaded successfully. Total items: " + data.size());
+            Log.info("EmployeesController", "Data loaded successfully. Total items: " + data.size());
             
         } catch (Exception e) {
-            System.err.println("[EmployeesController] ERROR loading data:");
-            e.printStackTrace();
+            Log.error("EmployeesController", "ERROR loading data", e);
             showAlert(Alert.AlertType.ERROR, "Error", "Failed to load employee data: " + e.getMessage());
         }
     }
@@ -348,7 +371,7 @@ public class EmployeesController {
         }
 
         employeesTable.setItems(filteredData);
-        System.out.println("[EmployeesController] Filtered: " + filteredData.size() + " employees shown (Role: " + roleFilter + ", Search: " + searchText + ")");
+        Log.info("EmployeesController", "Filtered: " + filteredData.size() + " employees shown (Role: " + roleFilter + ", Search: " + searchText + ")");
     }
 
     /**
@@ -379,7 +402,7 @@ public class EmployeesController {
                 return String.format("%.2f hrs", hours);
             }
         } catch (DateTimeParseException e) {
-            System.err.println("[EmployeesController] Date parse error: " + e.getMessage());
+            Log.error("EmployeesController", "Date parse error: " + e.getMessage());
             return "-";
         }
     }
@@ -1,7 +1,6 @@
 package main;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -18,7 +17,6 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleButton;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
@@ -31,7 +29,7 @@ import javafx.scene.control.ButtonType;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
-public class FoodMenuController {
+public class FoodMenuController implements PageLifecycle {
 
     private List<FoodMenuItem> allMeals = new ArrayList<>();
 
@@ -154,21 +152,10 @@ public class FoodMenuController {
         imageView.setPreserveRatio(true);
         imageView.getStyleClass().add("food-card-image");
 
-        // Load the image if path exists
+        // Load the image if path exists; decoded once at card size and shared across filter passes
         if (meal.getImagePath() != null && !meal.getImagePath().isEmpty()) 
-            {
-            try {
-                String imagePath = meal.getImagePath();
-                if (!imagePath.startsWith("assets/")) {
-                    imagePath = "assets/" + imagePath;
-                }
-                Image image = new Image(getClass().getResourceAsStream("/" + imagePath));
-                if (image != null && !image.isError()) {
-                    imageView.setImage(image);
-                }
-            } catch (Exception e) {
-                System.out.println("[FoodMenuController] Could not load image: " + meal.getImagePath());
-            }
+        {
+            ImageCache.into(imageView, meal.getImagePath(), 260, 180);
         }
 
         // Title
@@ -233,8 +220,7 @@ public class FoodMenuController {
             loadFoodCards();  // Refresh after edit
             
         } catch (Exception e) {
-            System.out.println("[FoodMenuController] ERROR opening edit dialog: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("FoodMenuController", "ERROR opening edit dialog: " + e.getMessage(), e);
         }
     }
 
@@ -249,23 +235,27 @@ public class FoodMenuController {
 
         if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK)
         {
-            String dbUrl = "jdbc:sqlite:database/lamesa.db";
             String sql = "DELETE FROM meal WHERE meal_id = ?";
 
-            try (Connection conn = DriverManager.getConnection(dbUrl);
-                 PreparedStatement ps = conn.prepareStatement(sql))
+            DbExecutor.supply(() ->
             {
-                ps.setInt(1, meal.getMealId());
-                int rowsDeleted = ps.executeUpdate();
-                System.out.println("[FoodMenuController] Deleted meal: " + meal.getName() + " (rows: " + rowsDeleted + ")");
-                
+                try (Connection conn = Database.getConnection();
+                     PreparedStatement ps = conn.prepareStatement(sql))
+                {
+                    ps.setInt(1, meal.getMealId());
+                    return ps.executeUpdate();
+                }
+            })
+            .thenAccept(rowsDeleted ->
+            {
+                Log.info("FoodMenuController", "Deleted meal: " + meal.getName() + " (rows: " + rowsDeleted + ")");
                 loadFoodCards();  // Refresh after delete
-            }
-            catch (SQLException e)
+            })
+            .exceptionally(e ->
             {
-                System.out.println("[FoodMenuController] ERROR deleting meal: " + e.getMessage());
-                e.printStackTrace();
-            }
+                Log.error("FoodMenuController", "ERROR deleting meal: " + DbExecutor.rootCause(e).getMessage());
+                return null;
+            });
         }
     }
 
@@ -281,8 +271,9 @@ public class FoodMenuController {
 
         boolean anyTypeSelected = vegetarianToggle.isSelected() || nonVegetarianToggle.isSelected();
 
-        System.out.println("[FILTER DEBUG] anyCategorySelected: " + anyCategorySelected + " | anyTypeSelected: " + anyTypeSelected);
-        System.out.println("[FILTER DEBUG] Vegetarian: " + vegetarianToggle.isSelected() + " | Non-Veg: " + nonVegetarianToggle.isSelected());
+        // Runs on every keystroke: the debug lines are only built when debug output is on
+        Log.debug("FoodMenuController", () -> "Filter anyCategorySelected: " + anyCategorySelected + " | anyTypeSelected: " + anyTypeSelected
+                + " | Vegetarian: " + vegetarianToggle.isSelected() + " | Non-Veg: " + nonVegetarianToggle.isSelected());
 
         for (FoodMenuItem meal : allMeals)
         {
@@ -297,24 +288,55 @@ public class FoodMenuController {
             }
             else if (anyTypeSelected)
             {
-                System.out.println("[FILTER DEBUG] " + meal.getName() + " - Type: " + meal.getTypeName() + " | typeMatch: " + typeMatch);
+                Log.debug("FoodMenuController", () -> "Filtered out " + meal.getName() + " - Type: " + meal.getTypeName() + " | typeMatch: " + typeMatch);
             }
         }
 
-        System.out.println("[FoodMenuController] Showing " + foodCardsPane.getChildren().size() + " cards");
+        Log.debug("FoodMenuController", () -> "Showing " + foodCardsPane.getChildren().size() + " cards");
+    }
+
+    // Back from another page: reload the meals, keeping the current search and filters
+    @Override
+    public void onShow()
+    {
+        loadFoodCards();
     }
 
+    // Loads all meals in the background, then redraws the cards on the FX thread
     private void loadFoodCards()
     {
-        allMeals.clear();
+        if (allMeals.isEmpty())
+        {
+            Label loadingLabel = new Label("Loading menu…");
+            loadingLabel.getStyleClass().add("food-card-description");
+            foodCardsPane.getChildren().setAll(loadingLabel);
+        }
+
+        DbExecutor.supply(this::queryMeals)
+            .thenAccept(meals ->
+            {
+                allMeals = meals;
+                Log.info("FoodMenuController", "Loaded " + allMeals.size() + " meals");
+                applyFilters(); // Display the loaded meals
+            })
+            .exceptionally(e ->
+            {
+                Log.error("FoodMenuController", "ERROR loading meals: " + DbExecutor.rootCause(e).getMessage());
+                return null;
+            });
+    }
+
+    // Reads all meals with their category and type names (runs on a DbExecutor thread)
+    private List<FoodMenuItem> queryMeals() throws SQLException
+    {
+        List<FoodMenuItem> meals = new ArrayList<>();
 
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
         // Note: m.category_id references meal_category (meal times), m.type_id references meal_types (dietary types)
         String sql = "SELECT m.meal_id, m.name, m.price, m.description, m.image_path, c.category_name AS category_name, t.type_name AS type_name " + 
                      "FROM meal m " + "LEFT JOIN meal_category c ON m.category_id = c.category_id " +
                      "LEFT JOIN meal_types t ON m.type_id = t.type_id " + "ORDER BY m.name";
         
-        try(Connection conn = DriverManager.getConnection(dbUrl);
+        try(Connection conn = Database.getConnection();
             PreparedStatement ps = conn.prepareStatement(sql);
             ResultSet rs = ps.executeQuery()) 
             {
@@ -329,19 +351,11 @@ public class FoodMenuController {
                         rs.getString("description"),
                         rs.getString("image_path")
                     );
-                    allMeals.add(meal);
+                    meals.add(meal);
                 }
-
-                System.out.println("[FoodMenuController] Loaded " + allMeals.size() + " meals");
-            }
-
-            catch (SQLException e) 
-            {
-                System.out.println("[FoodMenuController] ERROR loading meals: " + e.getMessage());
-                e.printStackTrace();
             }
 
-            applyFilters(); // Display the loaded meals
+        return meals;
     }
 
     @FXML
@@ -360,8 +374,7 @@ public class FoodMenuController {
         }
         catch (Exception e) 
         {
-            System.out.println("[FoodMenuController] ERROR: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("FoodMenuController", "ERROR: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
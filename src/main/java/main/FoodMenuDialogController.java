@@ -2,11 +2,7 @@ package main;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -89,84 +85,68 @@ public class FoodMenuDialogController
             typeBox.setValue(meal.getTypeName());
         }
         
-        // Load existing image
+        // Load existing image (in the background unless it was shown before)
         if (meal.getImagePath() != null && !meal.getImagePath().isEmpty()) {
-            try {
-                String imagePath = meal.getImagePath();
-                if (!imagePath.startsWith("assets/")) {
-                    imagePath = "assets/" + imagePath;
-                }
-                Image image = new Image(getClass().getResourceAsStream("/" + imagePath));
-                if (image != null && !image.isError()) {
-                    imageUpload.setImage(image);
-                    uploadLabel.setVisible(false);
-                }
-            } catch (Exception e) {
-                System.out.println("[FoodMenuDialogController] Could not load image: " + meal.getImagePath());
-            }
+            ImageCache.get(meal.getImagePath(), imageUpload.getFitWidth(), imageUpload.getFitHeight())
+                .thenAccept(image -> {
+                    // Keep a picture the user uploaded while it was loading
+                    if (selectedImageFile == null) {
+                        imageUpload.setImage(image);
+                        uploadLabel.setVisible(false);
+                    }
+                });
         }
     }
 
-    // Loads meal categories and stores it in a ObservableList
+    // Loads meal categories in the background and fills the category dropdown
     @FXML
     private void loadCategories()
     {
-        ObservableList<String> categoryList = FXCollections.observableArrayList();
-
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
-        System.out.println("[FoodMenuDialogController] Connecting to: " + dbUrl);
-        try(Connection conn = DriverManager.getConnection(dbUrl))
-        {
-            System.out.println("[FoodMenuDialogController] Connected successfully!");
-            String sql = "SELECT category_name FROM meal_category ORDER BY category_id";
-            try(PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery())
-                {
-                    while(rs.next())
-                    {
-                        String category = rs.getString("category_name");
-                        categoryList.add(category);
-                    }
-
-                    categoryBox.setItems(categoryList);
-                }
-        }
-        catch (SQLException e) 
-        {
-            System.out.println("[FoodMenuDialogController] ERROR: " + e.getMessage());
-            e.printStackTrace();
-        }
+        DbExecutor.supply(() -> queryNames("SELECT category_name FROM meal_category ORDER BY category_id"))
+            .thenAccept(categoryList -> setItemsKeepingValue(categoryBox, categoryList))
+            .exceptionally(e -> {
+                Log.error("FoodMenuDialogController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+                return null;
+            });
     }
 
-    // Loads meal types and stores it in a ObservableList
+    // Loads meal types in the background and fills the type dropdown
     
     private void loadTypes()
     {
-        ObservableList<String> typeList = FXCollections.observableArrayList();
-
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
-        System.out.println("[FoodMenuDialogController] Connecting to: " + dbUrl);
-        try(Connection conn = DriverManager.getConnection(dbUrl))
-        {
-            System.out.println("[FoodMenuDialogController] Connected successfully!");
-            String sql = "SELECT type_name FROM meal_types ORDER BY type_id";
-            try(PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery())
-                {
-                    while(rs.next())
-                    {
-                        String type = rs.getString("type_name");
-                        typeList.add(type);
-                    }
+        DbExecutor.supply(() -> queryNames("SELECT type_name FROM meal_types ORDER BY type_id"))
+            .thenAccept(typeList -> setItemsKeepingValue(typeBox, typeList))
+            .exceptionally(e -> {
+                Log.error("FoodMenuDialogController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+                return null;
+            });
+    }
 
-                    typeBox.setItems(typeList);
-                }
+    // setEditMode may run before the lists arrive, so keep the value it chose
+    private static void setItemsKeepingValue(ChoiceBox<String> box, ObservableList<String> items)
+    {
+        String selected = box.getValue();
+        box.setItems(items);
+        if (selected != null) {
+            box.setValue(selected);
         }
-        catch (SQLException e) 
+    }
+
+    // Runs a single-column name query and stores it in a ObservableList (runs on a DbExecutor thread)
+    private ObservableList<String> queryNames(String sql) throws SQLException
+    {
+        ObservableList<String> names = FXCollections.observableArrayList();
+
+        try(Connection conn = Database.getConnection();
+            PreparedStatement ps = conn.prepareStatement(sql);
+            ResultSet rs = ps.executeQuery())
         {
-            System.out.println("[FoodMenuDialogController] ERROR: " + e.getMessage());
-            e.printStackTrace();
+            while(rs.next())
+            {
+                names.add(rs.getString(1));
+            }
         }
+        return names;
     }
 
     // Handles the uploading of Image
@@ -184,90 +164,59 @@ public class FoodMenuDialogController
         if(file != null)
         {
             selectedImageFile = file;
-            imageUpload.setImage(new Image(file.toURI().toString()));
+            // Decoded at the preview's size, in the background
+            imageUpload.setImage(new Image(file.toURI().toString(),
+                imageUpload.getFitWidth(), imageUpload.getFitHeight(), true, true, true));
             uploadLabel.setVisible(false);  // Hide the "Click to upload" text
         }
     }
 
-    // This saves the image uploaded to Assets Folder
-    
-    private String saveImageToAssets()
-    {   
-        try 
-        {
-            if(selectedImageFile == null) 
+    // Stores the uploaded image (deduplicated, with thumbnails) and returns its image_path
+    private String saveImageToStore(File selectedImageFile)
+    {
+        if (selectedImageFile == null)
             return null;
-        
-        Path assetsFolder = Path.of("src/main/resources/assets");
-        String ext = selectedImageFile.getName().substring(selectedImageFile.getName().lastIndexOf(".")); // Gets the file extension ".png, .jpg, .jpeg"
-        String newName = "food_menu_item_#" + System.currentTimeMillis() + ext;
-        Files.copy(
-            selectedImageFile.toPath(),             // Source file (where to copy FROM)
-            assetsFolder.resolve(newName),          // Destination (where to copy TO)
-            StandardCopyOption.REPLACE_EXISTING);   // If file exists, overwrite it
-
-            return "assets/" + newName;
+
+        try
+        {
+            return ImageStore.put(selectedImageFile.toPath());
         }
         catch (IOException e)
         {
-            System.out.println("[FoodMenuDialogController] ERROR: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("FoodMenuDialogController", "ERROR: " + e.getMessage(), e);
             return null;
         }
     }
 
-    private int getCategoryId(String categoryName)
+    private int getCategoryId(Connection conn, String categoryName) throws SQLException
     {
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
-        System.out.println("[FoodMenuDialogController] Connecting to: " + dbUrl);
-        try(Connection conn = DriverManager.getConnection(dbUrl))
+        String sql = "SELECT category_id FROM meal_category WHERE category_name = ?";
+        try(PreparedStatement ps = conn.prepareStatement(sql))
         {
-            System.out.println("[FoodMenuDialogController] Connected successfully!");
-            String sql = "SELECT category_id FROM meal_category WHERE category_name = ?";
-            try(PreparedStatement ps = conn.prepareStatement(sql))
-            {
-                ps.setString(1, categoryName);
+            ps.setString(1, categoryName);
 
-                try(ResultSet rs = ps.executeQuery())
-                {
-                    if(rs.next())
-                        return rs.getInt("category_id");
-                }
+            try(ResultSet rs = ps.executeQuery())
+            {
+                if(rs.next())
+                    return rs.getInt("category_id");
             }
         }
-        catch (SQLException e) 
-        {
-            System.out.println("[FoodMenuDialogController] ERROR: " + e.getMessage());
-            e.printStackTrace();
-        }
         return -1; //Return a -1 if not found
     }
 
-    private int getTypeId(String typeName)
+    private int getTypeId(Connection conn, String typeName) throws SQLException
     {
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
-        System.out.println("[FoodMenuDialogController] Connecting to: " + dbUrl);
-        try(Connection conn = DriverManager.getConnection(dbUrl))
+        String sql = "SELECT type_id FROM meal_types WHERE type_name = ?";
+        try(PreparedStatement ps = conn.prepareStatement(sql))
         {
-            System.out.println("[FoodMenuDialogController] Connected successfully!");
-            String sql = "SELECT type_id FROM meal_types WHERE type_name = ?";
-            try(PreparedStatement ps = conn.prepareStatement(sql))
-            {
-                ps.setString(1, typeName);
-            
+            ps.setString(1, typeName);
 
-                try(ResultSet rs = ps.executeQuery())
-                {
-                    if(rs.next())
-                        return rs.getInt("type_id");
-                }
+            try(ResultSet rs = ps.executeQuery())
+            {
+                if(rs.next())
+                    return rs.getInt("type_id");
             }
         }
-        catch (SQLException e)
-        {
-            System.out.println("[FoodMenuDialogController] ERROR: " + e.getMessage());
-            e.printStackTrace();
-        }
         return -1;
     }
     
@@ -282,19 +231,19 @@ public class FoodMenuDialogController
 
         // Validation
         if (name == null || name.trim().isEmpty()) {
-            System.out.println("[FoodMenuDialogController] ERROR: Meal name is required");
+            Log.warn("FoodMenuDialogController", "Meal name is required");
             return;
         }
         if (category == null || category.trim().isEmpty()) {
-            System.out.println("[FoodMenuDialogController] ERROR: Category is required");
+            Log.warn("FoodMenuDialogController", "Category is required");
             return;
         }
         if (type == null || type.trim().isEmpty()) {
-            System.out.println("[FoodMenuDialogController] ERROR: Type is required");
+            Log.warn("FoodMenuDialogController", "Type is required");
             return;
         }
         if (priceText == null || priceText.trim().isEmpty()) {
-            System.out.println("[FoodMenuDialogController] ERROR: Price is required");
+            Log.warn("FoodMenuDialogController", "Price is required");
             return;
         }
 
@@ -302,41 +251,65 @@ public class FoodMenuDialogController
         try {
             price = Double.parseDouble(priceText);
         } catch (NumberFormatException e) {
-            System.out.println("[FoodMenuDialogController] ERROR: Invalid price format");
+            Log.warn("FoodMenuDialogController", "Invalid price format");
             return;
         }
 
-        int category_id = getCategoryId(category);
-        int type_id = getTypeId(type);
-        
-        if (category_id == -1 || type_id == -1) {
-            System.out.println("[FoodMenuDialogController] ERROR: Invalid category or type ID");
-            return;
-        }
-        
-        // Only save new image if user uploaded one, otherwise keep existing
-        String imagePath = saveImageToAssets();
-        if (imagePath == null && existingImagePath != null) {
-            imagePath = existingImagePath;  // Keep existing image
-        }
+        // Copy the image and write the meal in the background; close once it is saved
+        File imageFile = selectedImageFile;
+        FoodMenuItem meal = editingMeal;
+        okayButton.setDisable(true);
+
+        DbExecutor.supply(() -> saveMeal(meal, name, category, type, price, description, imageFile))
+            .thenAccept(saved -> {
+                if (saved) {
+                    okayButton.getScene().getWindow().hide();
+                } else {
+                    okayButton.setDisable(false);
+                }
+            })
+            .exceptionally(e -> {
+                Log.error("FoodMenuDialogController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+                okayButton.setDisable(false);
+                return null;
+            });
+    }
 
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
-        System.out.println("[FoodMenuDialogController] Connecting to: " + dbUrl);
-        try(Connection conn = DriverManager.getConnection(dbUrl))
+    /**
+     * Insert a new meal or update the edited one (runs on a DbExecutor thread).
+     *
+     * @return false when the category or type could not be resolved
+     */
+    private boolean saveMeal(FoodMenuItem meal, String name, String category, String type,
+                             double price, String description, File imageFile) throws SQLException
+    {
+        try(Connection conn = Database.getConnection())
         {
-            System.out.println("[FoodMenuDialogController] Connected successfully!");
+            int category_id = getCategoryId(conn, category);
+            int type_id = getTypeId(conn, type);
+            
+            if (category_id == -1 || type_id == -1) {
+                Log.error("FoodMenuDialogController", "ERROR: Invalid category or type ID");
+                return false;
+            }
+            
+            // Only save new image if user uploaded one, otherwise keep existing
+            String imagePath = saveImageToStore(imageFile);
+            if (imagePath == null && existingImagePath != null) {
+                imagePath = existingImagePath;  // Keep existing image
+            }
             
             String sql;
-            if (editingMeal == null) {
+            if (meal == null) {
                 // ADD mode - insert new meal
                 sql = "INSERT INTO meal (name, price, category_id, type_id, description, image_path) " +
                       "VALUES (?, ?, ?, ?, ?, ?)";
-                System.out.println("[FoodMenuDialogController] INSERT mode - Adding new meal");
+                Log.info("FoodMenuDialogController", "INSERT mode - Adding new meal");
             } else {
                 // EDIT mode - update existing meal
                 sql = "UPDATE meal SET name = ?, price = ?, category_id = ?, type_id = ?, description = ?, image_path = ? " +
                       "WHERE meal_id = ?";
-                System.out.println("[FoodMenuDialogController] UPDATE mode - Editing meal ID: " + editingMeal.getMealId());
+                Log.info("FoodMenuDialogController", "UPDATE mode - Editing meal ID: " + meal.getMealId());
             }
             
             try(PreparedStatement ps = conn.prepareStatement(sql))
@@ -348,27 +321,21 @@ public class FoodMenuDialogController
                 ps.setString(5, description);
                 ps.setString(6, imagePath != null ? imagePath : "");
                 
-                if (editingMeal != null) {
-                    ps.setInt(7, editingMeal.getMealId());  // Add meal_id for UPDATE
+                if (meal != null) {
+                    ps.setInt(7, meal.getMealId());  // Add meal_id for UPDATE
                 }
                 
                 int result = ps.executeUpdate();
-                System.out.println("[FoodMenuDialogController] Rows affected: " + result);
+                Log.info("FoodMenuDialogController", "Rows affected: " + result);
                 
                 if (result > 0) {
-                    System.out.println("[FoodMenuDialogController] SUCCESS - Meal saved! Image path: " + imagePath);
+                    Log.info("FoodMenuDialogController", "SUCCESS - Meal saved! Image path: " + imagePath);
                 } else {
-                    System.out.println("[FoodMenuDialogController] ERROR - No rows were updated");
+                    Log.error("FoodMenuDialogController", "ERROR - No rows were updated");
                 }
-                
-                okayButton.getScene().getWindow().hide();
             }
         }
-        catch (SQLException e)
-        {
-            System.out.println("[FoodMenuDialogController] ERROR: " + e.getMessage());
-            e.printStackTrace();
-        }
+        return true;
     }
 
     @FXML
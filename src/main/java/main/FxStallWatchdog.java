@@ -0,0 +1,213 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javafx.application.Platform;
+
+/**
+ * FxStallWatchdog
+ *
+ * Finds the actions that freeze the UI: blocking work on the JavaFX Application
+ * Thread delays everything queued behind it, so a heartbeat posted to the FX
+ * thread runs late.
+ *
+ * - A daemon sampler thread wakes every sample interval. When no heartbeat is
+ *   pending it posts one with Platform.runLater; the heartbeat reports a stall
+ *   when it ran later than the budget after it was posted.
+ * - While the pending heartbeat is overdue, the sampler records the FX thread's stack.
+ * - When the heartbeat finally runs, the stall's duration and its samples
+ *   (identical stacks merged, most frequent first) are appended to a rotating
+ *   diagnostics log by the sampler thread, never by the FX thread.
+ * - Heartbeats are plain runLater tasks, so the watchdog never asks JavaFX for a
+ *   pulse; an idle app stays idle. Outside stalls the cost is one wake-up and one
+ *   tiny FX task per sample interval.
+ * - A stall is measured from the heartbeat posted just before or during it, so
+ *   the reported duration can be short by up to one sample interval.
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.fx.stallBudgetMs  heartbeat delay that counts as a stall (default 250, 0 disables)
+ * - lamesa.fx.stallSampleMs  heartbeat and stack sampling interval (default 50)
+ * - lamesa.fx.stallLog       log file (default logs/fx-stalls.log)
+ */
+final class FxStallWatchdog {
+
+    private static final long BUDGET_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("lamesa.fx.stallBudgetMs", 250L));
+    private static final long SAMPLE_MS = Math.max(5, Long.getLong("lamesa.fx.stallSampleMs", 50L));
+    private static final int MAX_FRAMES = 40;
+
+    private static final RotatingFile LOG = new RotatingFile(
+            Paths.get(System.getProperty("lamesa.fx.stallLog", "logs/fx-stalls.log")), 1024L * 1024, 3);
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * A heartbeat that ran over budget late, reported by the FX thread.
+     */
+    private static final class Stall {
+        final long startNanos;
+        final long endNanos;
+
+        Stall(long startNanos, long endNanos) {
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+    }
+
+    /**
+     * One stack sample of the FX thread.
+     */
+    private static final class Sample {
+        final long nanos;
+        final Thread.State state;
+        final StackTraceElement[] stack;
+
+        Sample(long nanos, Thread.State state, StackTraceElement[] stack) {
+            this.nanos = nanos;
+            this.state = state;
+            this.stack = stack;
+        }
+    }
+
+    // When the pending heartbeat was posted, 0 while none is pending
+    private static volatile long heartbeatPostedNanos = 0;
+    private static volatile boolean running = false;
+
+    private static final ConcurrentLinkedQueue<Stall> STALLS = new ConcurrentLinkedQueue<>();
+
+    private static Thread sampler;
+
+    private FxStallWatchdog() {
+    }
+
+    /**
+     * Start watching the calling thread, which must be the FX Application Thread.
+     */
+    static void start() {
+        if (BUDGET_NANOS <= 0 || running) {
+            return;
+        }
+        Thread fxThread = Thread.currentThread();
+        heartbeatPostedNanos = 0;
+        running = true;
+
+        sampler = new Thread(() -> sampleLoop(fxThread), "lamesa-fx-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        Log.info("FxStallWatchdog", "Watching the FX thread (budget "
+                + TimeUnit.NANOSECONDS.toMillis(BUDGET_NANOS) + " ms, log " + LOG.path() + ")");
+    }
+
+    /**
+     * Stop watching. Call on the FX Application Thread.
+     */
+    static void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sampler.interrupt();
+    }
+
+    /**
+     * Runs on the FX thread: report how late it ran, then allow the next heartbeat.
+     */
+    private static void heartbeat() {
+        long t = System.nanoTime();
+        long posted = heartbeatPostedNanos;
+        // Queue the stall before clearing the pending heartbeat (see sampleLoop)
+        if (t - posted > BUDGET_NANOS) {
+            STALLS.add(new Stall(posted, t));
+        }
+        heartbeatPostedNanos = 0;
+    }
+
+    private static void sampleLoop(Thread fxThread) {
+        List<Sample> samples = new ArrayList<>();
+
+        while (running) {
+            try {
+                Thread.sleep(SAMPLE_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long posted = heartbeatPostedNanos;
+            long now = System.nanoTime();
+            if (posted == 0) {
+                // The previous heartbeat ran, so every stall it found is queued
+                Stall stall;
+                while ((stall = STALLS.poll()) != null) {
+                    write(stall, samplesWithin(samples, stall));
+                }
+                samples.clear();
+
+                heartbeatPostedNanos = now;
+                Platform.runLater(FxStallWatchdog::heartbeat);
+            } else if (now - posted > BUDGET_NANOS) {
+                samples.add(new Sample(now, fxThread.getState(), fxThread.getStackTrace()));
+            }
+        }
+    }
+
+    private static List<Sample> samplesWithin(List<Sample> samples, Stall stall) {
+        List<Sample> within = new ArrayList<>();
+        for (Sample s : samples) {
+            if (s.nanos >= stall.startNanos && s.nanos <= stall.endNanos) {
+                within.add(s);
+            }
+        }
+        return within;
+    }
+
+    private static void write(Stall stall, List<Sample> samples) {
+        double ms = (stall.endNanos - stall.startNanos) / 1e6;
+        LocalDateTime started = LocalDateTime.now().minusNanos(System.nanoTime() - stall.startNanos);
+
+        // Merge identical stacks, most frequent first
+        Map<List<StackTraceElement>, Integer> counts = new LinkedHashMap<>();
+        Map<List<StackTraceElement>, Thread.State> states = new LinkedHashMap<>();
+        for (Sample s : samples) {
+            List<StackTraceElement> key = Arrays.asList(s.stack);
+            counts.merge(key, 1, Integer::sum);
+            states.putIfAbsent(key, s.state);
+        }
+        List<Map.Entry<List<StackTraceElement>, Integer>> ordered = new ArrayList<>(counts.entrySet());
+        ordered.sort((a, b) -> b.getValue() - a.getValue());
+
+        StringBuilder entry = new StringBuilder();
+        entry.append(String.format(Locale.ROOT, "%s  FX thread stalled for %.0f ms (%d samples)%n",
+                started.format(TIME), ms, samples.size()));
+        for (Map.Entry<List<StackTraceElement>, Integer> e : ordered) {
+            entry.append(String.format(Locale.ROOT, "  %d of %d samples, %s:%n",
+                    e.getValue(), samples.size(), states.get(e.getKey())));
+            List<StackTraceElement> stack = e.getKey();
+            for (int i = 0; i < Math.min(MAX_FRAMES, stack.size()); i++) {
+                entry.append("    at ").append(stack.get(i)).append('\n');
+            }
+            if (stack.size() > MAX_FRAMES) {
+                entry.append("    ... ").append(stack.size() - MAX_FRAMES).append(" more\n");
+            }
+        }
+        entry.append('\n');
+
+        Log.warn("FxStallWatchdog", String.format(Locale.ROOT, "FX thread stalled for %.0f ms (see %s)", ms, LOG.path()));
+        try {
+            LOG.append(entry.toString());
+        } catch (IOException e) {
+            Log.warn("FxStallWatchdog", "Could not write " + LOG.path() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * ImageCache
+ *
+ * Shared cache of decoded meal images, so rebuilding the food cards (every
+ * search keystroke and filter toggle) never reads or decodes an image that was
+ * already shown.
+ *
+ * - Keyed by image_path and requested size. Images are decoded at that size
+ *   (aspect ratio kept), not at the photo's full resolution, from the smallest
+ *   file ImageStore has that covers it.
+ * - into(view, path, w, h) shows a cached image at once. Otherwise the view gets
+ *   a placeholder and the image is decoded on a background thread ("lamesa-image-N");
+ *   it is shown when ready, unless the view was given another image meanwhile.
+ *   Requests for an image that is still decoding share that decode.
+ * - Bounded by decoded size (width x height x 4 bytes); the least recently used
+ *   images are evicted first. Paths that failed to load are remembered and not
+ *   retried until clear().
+ * - FX thread only, except for the decoding itself.
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.ui.imageCacheMb   decoded bytes kept, in MB (default 64)
+ * - lamesa.ui.imageThreads   decoder threads (default 2)
+ */
+final class ImageCache {
+
+    private static final long MAX_BYTES = Math.max(0, Long.getLong("lamesa.ui.imageCacheMb", 64L)) * 1024 * 1024;
+    private static final int THREADS = Math.max(1, Integer.getInteger("lamesa.ui.imageThreads", 2));
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "lamesa-image-" + THREAD_COUNT.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ImageView property holding the key of the image the view is waiting for
+    private static final String PENDING = "lamesa.imageCache.pending";
+
+    // Access order: the eldest entry is the image used least recently
+    private static final Map<String, Image> IMAGES = new LinkedHashMap<>(64, 0.75f, true);
+    private static final Map<String, CompletableFuture<Image>> DECODING = new HashMap<>();
+    private static final Set<String> FAILED = new HashSet<>();
+    private static final Map<String, Image> PLACEHOLDERS = new HashMap<>();
+    private static long bytes = 0;
+
+    private ImageCache() {
+    }
+
+    /**
+     * Show an image in a view: at once when cached, otherwise a placeholder until
+     * it has been decoded in the background. A path that cannot be loaded leaves
+     * the view empty.
+     *
+     * @param imagePath image_path as stored for the meal ("store:<sha256>", "assets/x.png" or "x.png")
+     */
+    static void into(ImageView view, String imagePath, double width, double height) {
+        String key = key(imagePath, width, height);
+        Image cached = IMAGES.get(key);
+        if (cached != null) {
+            view.getProperties().remove(PENDING);
+            view.setImage(cached);
+            return;
+        }
+        if (FAILED.contains(key)) {
+            view.getProperties().remove(PENDING);
+            view.setImage(null);
+            return;
+        }
+
+        view.getProperties().put(PENDING, key);
+        view.setImage(placeholder(width, height));
+        get(imagePath, width, height).whenComplete((image, error) -> {
+            // Skip views that were reused for another image in the meantime
+            if (key.equals(view.getProperties().get(PENDING))) {
+                view.getProperties().remove(PENDING);
+                view.setImage(image);
+            }
+        });
+    }
+
+    /**
+     * The image, decoded in the background when not cached. The future completes on
+     * the FX thread, and fails when the image cannot be loaded.
+     */
+    static CompletableFuture<Image> get(String imagePath, double width, double height) {
+        String key = key(imagePath, width, height);
+        Image cached = IMAGES.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (FAILED.contains(key)) {
+            return CompletableFuture.failedFuture(new IOException("Image not available: " + imagePath));
+        }
+        CompletableFuture<Image> pending = DECODING.get(key);
+        if (pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        DECODING.put(key, future);
+        DECODER.execute(() -> {
+            Image image;
+            try {
+                image = decode(imagePath, width, height);
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    DECODING.remove(key);
+                    FAILED.add(key);
+                    Log.warn("ImageCache", "Could not load image: " + imagePath + " (" + e.getMessage() + ")");
+                    future.completeExceptionally(e);
+                });
+                return;
+            }
+            Platform.runLater(() -> {
+                DECODING.remove(key);
+                put(key, image);
+                future.complete(image);
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Drop every cached image, e.g. after images were replaced on disk.
+     */
+    static void clear() {
+        IMAGES.clear();
+        FAILED.clear();
+        bytes = 0;
+    }
+
+    private static Image decode(String imagePath, double width, double height) throws IOException {
+        try (InputStream in = ImageStore.open(imagePath, width, height)) {
+            Image image = new Image(in, width, height, true, true);
+            if (image.isError()) {
+                throw new IOException("cannot decode " + imagePath, image.getException());
+            }
+            return image;
+        }
+    }
+
+    private static void put(String key, Image image) {
+        long size = size(image);
+        if (size > MAX_BYTES) {
+            return; // larger than the whole cache; used once, not kept
+        }
+        Image previous = IMAGES.put(key, image);
+        bytes += size - (previous != null ? size(previous) : 0);
+
+        Iterator<Map.Entry<String, Image>> eldest = IMAGES.entrySet().iterator();
+        while (bytes > MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<String, Image> e = eldest.next();
+            bytes -= size(e.getValue());
+            eldest.remove();
+            Log.debug("ImageCache", () -> "Evicted " + e.getKey());
+        }
+    }
+
+    private static long size(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    /**
+     * A small flat image with the requested aspect ratio; a view that preserves the
+     * ratio scales it to the same box the real image will fill.
+     */
+    private static Image placeholder(double width, double height) {
+        int w = Math.max(1, (int) Math.round(width / 10));
+        int h = Math.max(1, (int) Math.round(height / 10));
+        return PLACEHOLDERS.computeIfAbsent(w + "x" + h, k -> {
+            WritableImage image = new WritableImage(w, h);
+            PixelWriter pixels = image.getPixelWriter();
+            Color fill = Color.web("#e8e8e8");
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    pixels.setColor(x, y, fill);
+                }
+            }
+            return image;
+        });
+    }
+
+    private static String key(String imagePath, double width, double height) {
+        String path = imagePath.startsWith("assets/") ? imagePath.substring("assets/".length()) : imagePath;
+        return path + "@" + (int) width + "x" + (int) height;
+    }
+}
@@ -0,0 +1,355 @@
+package main;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+
+/**
+ * ImageStore
+ *
+ * Meal pictures uploaded through the food menu dialog, kept on disk outside the
+ * application's classpath (so they also work when the app runs from a jar).
+ *
+ * - Content addressed: a file is stored under the SHA-256 of its bytes alone, so
+ *   the same picture uploaded twice (under any name or extension) is stored once.
+ *   put() returns the image_path to save with the meal: "store:<sha256>". Images
+ *   are decoded by content, so the extension is not needed.
+ * - Layout under the store directory:
+ *     originals/<first 2 hex>/<sha256>         the uploaded file, unchanged
+ *     card/<first 2 hex>/<sha256>.png          fits the food card image (260x180)
+ *     dialog/<first 2 hex>/<sha256>.png        fits the meal dialog image (310x190)
+ *   The thumbnails are written once per picture, on a background thread
+ *   ("lamesa-thumbnails") right after the upload; until they exist the original is used.
+ * - Every file is written to a temp file and moved into place atomically, so
+ *   readers never see half a file.
+ * - open(imagePath, w, h) returns the smallest stored file that covers the
+ *   requested size, read with NIO. Older image_path values ("assets/x.png" or
+ *   "x.png", images bundled with the app) are still read from the classpath.
+ * - Pictures uploaded before the store existed were copied next to the bundled
+ *   assets; SchemaMigrator V5 moves them into the store once (importUploads).
+ *
+ * Configuration (JVM system property):
+ * - lamesa.images.dir  store directory (default: "images" next to the database file)
+ */
+final class ImageStore {
+
+    static final String PREFIX = "store:";
+
+    /**
+     * A pre-generated thumbnail size.
+     */
+    private static final class Size {
+        final String name;
+        final int width;
+        final int height;
+
+        Size(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    // Smallest first
+    private static final Size[] THUMBNAILS = {
+        new Size("card", 260, 180),
+        new Size("dialog", 310, 190),
+    };
+
+    private static final Path ROOT = root();
+
+    private static final ExecutorService THUMBNAILER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lamesa-thumbnails");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private ImageStore() {
+    }
+
+    /**
+     * Whether an image_path refers to this store (as opposed to a bundled asset).
+     */
+    static boolean isStored(String imagePath) {
+        return imagePath != null && imagePath.startsWith(PREFIX);
+    }
+
+    /**
+     * Copy a picture into the store and schedule its thumbnails. Returns at once when
+     * the same bytes are already stored. Call off the FX thread.
+     *
+     * @return the image_path to save with the meal
+     */
+    static String put(Path source) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return put(in, source.getFileName().toString());
+        }
+    }
+
+    private static String put(ReadableByteChannel in, String name) throws IOException {
+        Path originals = ROOT.resolve("originals");
+        Files.createDirectories(originals);
+        Path temp = Files.createTempFile(originals, "upload", ".tmp");
+        String hash;
+        try {
+            hash = copyAndHash(in, temp);
+            Path target = original(hash);
+            if (Files.exists(target)) {
+                Log.info("ImageStore", "Already stored: " + name + " (" + hash + ")");
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                Log.info("ImageStore", "Stored " + name + " as " + hash);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        THUMBNAILER.execute(() -> writeThumbnails(hash));
+        return PREFIX + hash;
+    }
+
+    /**
+     * Move pictures uploaded before the store existed into it and point their meals
+     * at the stored copy. Those uploads were saved as bundled assets
+     * ("assets/food_menu_item_#<millis>.<ext>"); one that is not on the classpath is
+     * left as it is and logged. Runs once, as SchemaMigrator V5.
+     */
+    static void importUploads(Connection conn) throws SQLException {
+        Map<Integer, String> uploads = new LinkedHashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT meal_id, image_path FROM meal WHERE instr(image_path, 'food_menu_item_#') > 0");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                uploads.put(rs.getInt("meal_id"), rs.getString("image_path"));
+            }
+        }
+
+        try (PreparedStatement update = conn.prepareStatement("UPDATE meal SET image_path = ? WHERE meal_id = ?")) {
+            for (Map.Entry<Integer, String> upload : uploads.entrySet()) {
+                String resource = assetResource(upload.getValue());
+                try (InputStream in = ImageStore.class.getResourceAsStream("/" + resource)) {
+                    if (in == null) {
+                        Log.warn("ImageStore", "Meal " + upload.getKey() + ": " + resource + " not found, left as is");
+                        continue;
+                    }
+                    update.setString(1, put(Channels.newChannel(in), resource));
+                    update.setInt(2, upload.getKey());
+                    update.executeUpdate();
+                } catch (IOException e) {
+                    Log.warn("ImageStore", "Meal " + upload.getKey() + ": could not import " + resource + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Open an image for display at up to width x height: the smallest stored
+     * thumbnail that is at least that large, else the original. Older paths are
+     * read from the bundled assets.
+     */
+    static InputStream open(String imagePath, double width, double height) throws IOException {
+        if (!isStored(imagePath)) {
+            return openAsset(imagePath);
+        }
+        String hash = imagePath.substring(PREFIX.length());
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new IOException("Invalid image path: " + imagePath);
+        }
+
+        for (Size size : THUMBNAILS) {
+            if (width <= size.width && height <= size.height) {
+                Path thumbnail = thumbnail(hash, size);
+                if (Files.isRegularFile(thumbnail)) {
+                    return read(thumbnail);
+                }
+                break;
+            }
+        }
+        return read(original(hash));
+    }
+
+    // ==================== FILES ====================
+
+    private static Path original(String hash) {
+        return ROOT.resolve("originals").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static Path thumbnail(String hash, Size size) {
+        return ROOT.resolve(size.name).resolve(hash.substring(0, 2)).resolve(hash + ".png");
+    }
+
+    /**
+     * Whole file through a FileChannel; images are small enough to hold in memory.
+     */
+    private static InputStream read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Image too large: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && ch.read(buffer) >= 0) {
+                // keep reading
+            }
+            return new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    private static InputStream openAsset(String imagePath) throws IOException {
+        String resource = assetResource(imagePath);
+        InputStream in = ImageStore.class.getResourceAsStream("/" + resource);
+        if (in == null) {
+            throw new IOException("Image not found: " + resource);
+        }
+        return in;
+    }
+
+    private static String assetResource(String imagePath) {
+        return imagePath.startsWith("assets/") ? imagePath : "assets/" + imagePath;
+    }
+
+    private static String copyAndHash(ReadableByteChannel in, Path target) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 not available", e);
+        }
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+            out.force(true);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : sha256.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static Path root() {
+        String configured = System.getProperty("lamesa.images.dir");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        Path db = Database.getFile();
+        Path dir = db != null ? db.toAbsolutePath().getParent() : null;
+        return dir != null ? dir.resolve("images") : Paths.get("images");
+    }
+
+    // ==================== THUMBNAILS ====================
+
+    private static void writeThumbnails(String hash) {
+        for (Size size : THUMBNAILS) {
+            Path target = thumbnail(hash, size);
+            if (Files.exists(target)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try (InputStream in = read(original(hash))) {
+                Image image = new Image(in, size.width, size.height, true, true);
+                if (image.isError()) {
+                    throw new IOException("cannot decode", image.getException());
+                }
+                Files.createDirectories(target.getParent());
+                Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+                try {
+                    Files.write(temp, png(image));
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+                Log.debug("ImageStore", () -> "Thumbnail " + size.name + " for " + hash + " in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException | RuntimeException e) {
+                Log.warn("ImageStore", "Could not write " + size.name + " thumbnail for " + hash + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Encode as an 8-bit RGBA PNG. Written by hand so the app needs neither AWT nor javafx.swing.
+     */
+    private static byte[] png(Image image) throws IOException {
+        int w = (int) image.getWidth();
+        int h = (int) image.getHeight();
+        int[] argb = new int[w * h];
+        image.getPixelReader().getPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), argb, 0, w);
+
+        // Each scanline: filter type 0 (none), then RGBA
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(h * (1 + w * 4) / 2);
+        try (DeflaterOutputStream z = new DeflaterOutputStream(raw, new Deflater(Deflater.BEST_SPEED))) {
+            byte[] line = new byte[1 + w * 4];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0, i = 1; x < w; x++) {
+                    int p = argb[y * w + x];
+                    line[i++] = (byte) (p >> 16);
+                    line[i++] = (byte) (p >> 8);
+                    line[i++] = (byte) p;
+                    line[i++] = (byte) (p >>> 24);
+                }
+                z.write(line);
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(raw.size() + 64);
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' });
+        ByteBuffer header = ByteBuffer.allocate(13).putInt(w).putInt(h)
+                .put((byte) 8)   // bit depth
+                .put((byte) 6)   // color type RGBA
+                .put((byte) 0).put((byte) 0).put((byte) 0);
+        chunk(out, "IHDR", header.array());
+        chunk(out, "IDAT", raw.toByteArray());
+        chunk(out, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    private static void chunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -2,10 +2,11 @@ package main;
 
 // Java SQL imports
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 // JavaFX imports
 import javafx.collections.FXCollections;
@@ -19,6 +20,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TableColumn;
@@ -35,7 +37,7 @@ import javafx.util.converter.IntegerStringConverter;
 // Controller for the Inventory page.
 // Handles displaying, editing, filtering, and searching inventory items.
 
-public class InventoryController 
+public class InventoryController implements PageLifecycle
 {
 
     // ==================== FXML FIELDS - TABLE ====================
@@ -90,7 +92,7 @@ public class InventoryController
     // ==================== DATA STORAGE ====================
 
     // Master list containing all inventory items from database
-    private ObservableList<InventoryItem> masterObservableList;
+    private ObservableList<InventoryItem> masterObservableList = FXCollections.observableArrayList();
 
     // Index for cycling through status filters
     private int statusFilterIndex = 0;
@@ -178,7 +180,7 @@ public class InventoryController
 
             // Update stock in database
             updateStockInDatabase(newStock, inventoryId);
-            System.out.println("Update inventory " + inventoryId + " to stock: " + newStock);
+            Log.info("InventoryController", "Update inventory " + inventoryId + " to stock: " + newStock);
             item.setStockQuantity(newStock);
 
             // Auto-update instruction and status based on stock level
@@ -215,19 +217,47 @@ public class InventoryController
     // ==================== DATA LOADING ====================
 
 
+    // Back from another page: reload the rows; the table keeps the old ones until the new ones arrive.
+
+    @Override
+    public void onShow() 
+    {
+        loadInventoryData();
+    }
+
+
     // Loads all inventory items from the database into the table.
+    // The query runs on a DbExecutor thread; the table shows a placeholder until it returns.
 
     private void loadInventoryData() 
     {
-        masterObservableList = FXCollections.observableArrayList();
-        
-        // Connection to database
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
-        System.out.println("[InventoryController] Connecting to: " + dbUrl);
+        inventoryTable.setPlaceholder(new Label("Loading inventory…"));
+
+        DbExecutor.supply(this::queryInventoryItems).thenAccept(items -> 
+        {
+            masterObservableList = FXCollections.observableArrayList(items);
+            Log.info("InventoryController", "Total items loaded: " + masterObservableList.size());
+            Log.debug("InventoryController", "Master Observable List loaded: " + masterObservableList.size());
+            inventoryTable.setPlaceholder(new Label("No inventory items"));
+            inventoryTable.setItems(masterObservableList);
+            filterInventory(searchField.getText());
+        }).exceptionally(e -> 
+        {
+            Log.error("InventoryController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+            inventoryTable.setPlaceholder(new Label("Could not load inventory"));
+            return null;
+        });
+    }
+
+    // Reads all inventory rows (runs on a DbExecutor thread, must not touch UI nodes).
+
+    private List<InventoryItem> queryInventoryItems() throws SQLException 
+    {
+        List<InventoryItem> items = new ArrayList<>();
         
-        try (Connection conn = DriverManager.getConnection(dbUrl)) 
+        try (Connection conn = Database.getConnection()) 
         {             
-            System.out.println("[InventoryController] Connected successfully!");
+            Log.debug("InventoryController", "Connected successfully!");
             
             // JOIN with meal, meal_types, and meal_category to get names
             String sql = "SELECT i.inventory_id, m.name AS product_name, " +
@@ -253,7 +283,7 @@ public class InventoryController
                     int stockQuantity = rs.getInt("stock_quantity");
                     String dateAdded = rs.getString("date_added");
                     
-                    System.out.println("[DEBUG] " + productName + " | Category: " + category + " | Type: " + type);
+                    Log.debug("InventoryController", () -> productName + " | Category: " + category + " | Type: " + type);
                     
                     // Auto-calculate instruction and status based on stock
                     String instruction;
@@ -271,19 +301,12 @@ public class InventoryController
                     
                     // POJO 
                     InventoryItem item = new InventoryItem(id, productName, category, type, instruction, stockQuantity, status, dateAdded);
-                    masterObservableList.add(item);
+                    items.add(item);
                 }
             }
-        } 
-        catch (SQLException e) 
-        {
-            System.out.println("[InventoryController] ERROR: " + e.getMessage());
-            e.printStackTrace();
         }
 
-        System.out.println("[InventoryController] Total items loaded: " + masterObservableList.size());
-        System.out.println("[InventoryController] Master Observable List loaded: " + masterObservableList.size());
-        inventoryTable.setItems(masterObservableList);
+        return items;
     }
 
     // ==================== DATABASE UPDATE METHODS ====================
@@ -295,57 +318,57 @@ public class InventoryController
     {
         // Note: instruction column doesn't exist in meal-linked inventory
         // This is kept for UI compatibility but does nothing
-        System.out.println("[InventoryController] Instruction update skipped (not stored in DB)");
+        Log.info("InventoryController", "Instruction update skipped (not stored in DB)");
     }
 
  
-    // Updates the stock quantity in the database.
+    // Updates the stock quantity in the database (on a DbExecutor thread).
 
     private void updateStockInDatabase(int newStock, int inventoryId) 
     {
-        String dburl = "jdbc:sqlite:database/lamesa.db";
-        
-        try (Connection con = DriverManager.getConnection(dburl)) 
+        DbExecutor.run(() -> 
         {
-            String sql = "UPDATE inventory SET stock_quantity = ? WHERE inventory_id = ?";
-
-            try (PreparedStatement ps = con.prepareStatement(sql)) 
+            try (Connection con = Database.getConnection()) 
             {
-                ps.setInt(1, newStock);
-                ps.setInt(2, inventoryId);
-                ps.executeUpdate();
+                String sql = "UPDATE inventory SET stock_quantity = ? WHERE inventory_id = ?";
+
+                try (PreparedStatement ps = con.prepareStatement(sql)) 
+                {
+                    ps.setInt(1, newStock);
+                    ps.setInt(2, inventoryId);
+                    ps.executeUpdate();
+                }
             }
-        } 
-        catch (SQLException e) 
+        }).exceptionally(e -> 
         {
-            System.out.println("[InventoryController] ERROR: " + e.getMessage());
-            e.printStackTrace();
-        }
+            Log.error("InventoryController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+            return null;
+        });
     }
 
     
-    // Updates the status field in the database.
+    // Updates the status field in the database (on a DbExecutor thread).
     
     private void updateStatusInDatabase(String newStatus, int inventoryId) 
     {
-        String dburl = "jdbc:sqlite:database/lamesa.db";
-        
-        try (Connection con = DriverManager.getConnection(dburl)) 
+        DbExecutor.run(() -> 
         {
-            String sql = "UPDATE inventory SET status = ? WHERE inventory_id = ?";
-
-            try (PreparedStatement ps = con.prepareStatement(sql)) 
+            try (Connection con = Database.getConnection()) 
             {
-                ps.setString(1, newStatus);
-                ps.setInt(2, inventoryId);
-                ps.executeUpdate();
+                String sql = "UPDATE inventory SET status = ? WHERE inventory_id = ?";
+
+                try (PreparedStatement ps = con.prepareStatement(sql)) 
+                {
+                    ps.setString(1, newStatus);
+                    ps.setInt(2, inventoryId);
+                    ps.executeUpdate();
+                }
             }
-        } 
-        catch (SQLException e) 
+        }).exceptionally(e -> 
         {
-            System.out.println("[InventoryController] ERROR: " + e.getMessage());
-            e.printStackTrace();
-        }
+            Log.error("InventoryController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+            return null;
+        });
     }
 
     // ==================== FILTER METHODS ====================
@@ -383,7 +406,7 @@ public class InventoryController
     @FXML
     private void handleNewStock() 
     {
-        System.out.println("New Stock button clicked");
+        Log.debug("InventoryController", "New Stock button clicked");
         
         try 
         {
@@ -401,8 +424,7 @@ public class InventoryController
         } 
         catch (Exception e) 
         {
-            System.out.println("[InventoryController] ERROR loading dialog: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("InventoryController", "ERROR loading dialog: " + e.getMessage(), e);
         }
     }
 
@@ -432,7 +454,7 @@ public class InventoryController
             inventoryTable.setItems(filteredList);
         }
 
-        System.out.println("[InventoryController] current status: " + currentFilter);
+        Log.debug("InventoryController", "current status: " + currentFilter);
         ++statusFilterIndex;
         statusFilterButton.setText(currentFilter);
         
@@ -457,7 +479,7 @@ public class InventoryController
 
         if (toDelete.isEmpty()) 
         {
-            System.out.println("[InventoryController] No items selected for deletion");
+            Log.info("InventoryController", "No items selected for deletion");
             return;
         }
 
@@ -469,31 +491,36 @@ public class InventoryController
 
         if (alert.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) 
         {
-            String dbUrl = "jdbc:sqlite:database/lamesa.db";
-            
-            try (Connection conn = DriverManager.getConnection(dbUrl)) 
+            deleteButton.setDisable(true);
+
+            DbExecutor.run(() -> 
             {
-                String sql = "DELETE FROM inventory WHERE inventory_id = ?";
-                
-                try (PreparedStatement ps = conn.prepareStatement(sql)) 
+                try (Connection conn = Database.getConnection()) 
                 {
-                    for (InventoryItem item : toDelete) 
+                    String sql = "DELETE FROM inventory WHERE inventory_id = ?";
+                    
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) 
                     {
-                        ps.setInt(1, item.getId());
-                        ps.executeUpdate();
-                        System.out.println("[InventoryController] Deleted: " + item.getProductName());
+                        for (InventoryItem item : toDelete) 
+                        {
+                            ps.setInt(1, item.getId());
+                            ps.executeUpdate();
+                            Log.info("InventoryController", "Deleted: " + item.getProductName());
+                        }
                     }
                 }
-            } 
-            catch (SQLException e) 
+            }).whenComplete((ignored, e) -> 
             {
-                System.out.println("[InventoryController] ERROR deleting: " + e.getMessage());
-                e.printStackTrace();
-            }
+                if (e != null) 
+                {
+                    Log.error("InventoryController", "ERROR deleting: " + DbExecutor.rootCause(e).getMessage());
+                }
 
-            // Reset select all checkbox and refresh
-            selectAllCheckBox.setSelected(false);
-            loadInventoryData();
+                // Reset select all checkbox and refresh
+                deleteButton.setDisable(false);
+                selectAllCheckBox.setSelected(false);
+                loadInventoryData();
+            });
         }
     }
 }
@@ -0,0 +1,230 @@
+package main;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Log
+ *
+ * Small leveled logger for the whole app. Callers never wait for the console.
+ *
+ * - Log.debug/info/warn/error(tag, message) put a record into a lock-free ring
+ *   buffer; one daemon thread formats the records and writes them to the console
+ *   (DEBUG/INFO to System.out, WARN/ERROR to System.err).
+ * - Levels below lamesa.log.level are dropped before anything is allocated.
+ *   Use the Supplier overload or isDebugEnabled() for messages that are costly to
+ *   build, e.g. inside loops.
+ * - When the buffer is full, new records are dropped (and counted) rather than
+ *   blocking the caller; the writer reports how many were lost.
+ * - flush(timeoutMs) waits for everything logged so far to be written; it runs on JVM
+ *   shutdown too.
+ *
+ * Output format: "HH:mm:ss.SSS LEVEL [Tag] message".
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.log.level       DEBUG, INFO (default), WARN or ERROR
+ * - lamesa.log.bufferSize  ring buffer capacity, rounded up to a power of two (default 8192)
+ */
+public final class Log {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    /**
+     * One log call, formatted later by the writer thread.
+     */
+    private static final class Record {
+        final long millis;
+        final Level level;
+        final String tag;
+        final String message;
+        final Throwable error;
+
+        Record(Level level, String tag, String message, Throwable error) {
+            this.millis = System.currentTimeMillis();
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    private static final Level LEVEL = parseLevel(System.getProperty("lamesa.log.level", "INFO"));
+
+    private static final int CAPACITY = Integer.highestOneBit(
+            Math.max(16, Integer.getInteger("lamesa.log.bufferSize", 8192) - 1)) << 1;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    // Multi-producer, single-consumer ring: producers claim slots from 'head',
+    // the writer consumes at 'tail' and clears each slot after reading it
+    private static final AtomicReferenceArray<Record> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicLong HEAD = new AtomicLong();
+    private static volatile long tail = 0;
+
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static volatile boolean writerSleeping = false;
+
+    private static final Thread WRITER = new Thread(Log::writeLoop, "lamesa-log");
+
+    static {
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(1000), "lamesa-log-flush"));
+    }
+
+    private Log() {
+    }
+
+    // ==================== PUBLIC API ====================
+
+    public static boolean isDebugEnabled() {
+        return LEVEL == Level.DEBUG;
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    public static void debug(String tag, String message) {
+        if (LEVEL == Level.DEBUG) {
+            offer(new Record(Level.DEBUG, tag, message, null));
+        }
+    }
+
+    /**
+     * Debug message built only when debug output is enabled.
+     */
+    public static void debug(String tag, Supplier<String> message) {
+        if (LEVEL == Level.DEBUG) {
+            offer(new Record(Level.DEBUG, tag, message.get(), null));
+        }
+    }
+
+    public static void info(String tag, String message) {
+        if (isEnabled(Level.INFO)) {
+            offer(new Record(Level.INFO, tag, message, null));
+        }
+    }
+
+    public static void warn(String tag, String message) {
+        if (isEnabled(Level.WARN)) {
+            offer(new Record(Level.WARN, tag, message, null));
+        }
+    }
+
+    public static void warn(String tag, String message, Throwable error) {
+        if (isEnabled(Level.WARN)) {
+            offer(new Record(Level.WARN, tag, message, error));
+        }
+    }
+
+    public static void error(String tag, String message) {
+        offer(new Record(Level.ERROR, tag, message, null));
+    }
+
+    public static void error(String tag, String message, Throwable error) {
+        offer(new Record(Level.ERROR, tag, message, error));
+    }
+
+    /**
+     * Wait until everything logged before this call has been written, or the timeout passes.
+     */
+    public static void flush(long timeoutMs) {
+        long target = HEAD.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (tail < target && System.nanoTime() < deadline) {
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        reportDropped();
+    }
+
+    // ==================== RING BUFFER ====================
+
+    private static void offer(Record record) {
+        while (true) {
+            long h = HEAD.get();
+            if (h - tail >= CAPACITY) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+            if (HEAD.compareAndSet(h, h + 1)) {
+                SLOTS.set((int) (h & MASK), record);
+                if (writerSleeping) {
+                    LockSupport.unpark(WRITER);
+                }
+                return;
+            }
+        }
+    }
+
+    private static void writeLoop() {
+        StringBuilder sb = new StringBuilder(256);
+        while (true) {
+            long t = tail;
+            int slot = (int) (t & MASK);
+            Record r = SLOTS.get(slot);
+
+            if (r == null) {
+                // Empty, or a producer claimed the slot but has not stored it yet
+                System.out.flush();
+                reportDropped();
+                writerSleeping = true;
+                if (SLOTS.get(slot) == null) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                writerSleeping = false;
+                continue;
+            }
+
+            SLOTS.set(slot, null);
+            write(r, sb);
+            // Advance only after writing, so flush() does not return while a line is half written
+            tail = t + 1;
+        }
+    }
+
+    private static void write(Record r, StringBuilder sb) {
+        sb.setLength(0);
+        TIME.formatTo(Instant.ofEpochMilli(r.millis), sb);
+        sb.append(' ').append(String.format(Locale.ROOT, "%-5s", r.level)).append(" [").append(r.tag).append("] ")
+          .append(r.message);
+        if (r.error != null) {
+            StringWriter trace = new StringWriter();
+            r.error.printStackTrace(new PrintWriter(trace));
+            sb.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+
+        PrintStream out = r.level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        out.println(sb);
+    }
+
+    // Synchronized so a flush() waits for a report the writer thread is printing
+    private static synchronized void reportDropped() {
+        long lost = DROPPED.getAndSet(0);
+        if (lost > 0) {
+            System.err.println("[Log] Buffer full, dropped " + lost + " messages");
+        }
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Log] Unknown lamesa.log.level '" + value + "', using INFO");
+            return Level.INFO;
+        }
+    }
+}
@@ -27,6 +27,9 @@ import java.sql.*;
  * 4. Record attendance login timestamp
  * 5. Navigate to main UI
  *
+ * Database work (credential check, attendance insert) runs on a DbExecutor thread;
+ * alerts and navigation happen in the FX-thread callback.
+ *
  * FIXED ISSUES:
  * - Changed database path from "Database/lamesa.db" to "database/lamesa.db" (lowercase)
  * - Fixed database locking issue by closing connection before calling AttendanceUtils
@@ -42,21 +45,35 @@ public class LoginController {
 
     private boolean isPasswordVisible = false;
 
-    private static final String DB_URL = "jdbc:sqlite:database/lamesa.db";
+    /**
+     * Result of a credential check.
+     */
+    private static final class AuthResult {
+        final boolean valid;
+        final String role;
+
+        AuthResult(boolean valid, String role) {
+            this.valid = valid;
+            this.role = role;
+        }
+    }
 
     public LoginController() {
         checkDatabase();
     }
 
     /**
-     * Check if the SQLite database file exists.
+     * Check if the SQLite database file exists (in the background).
      */
     private void checkDatabase() {
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            System.out.println("[LoginController] Database exists.");
-        } catch (SQLException e) {
-            System.err.println("[LoginController] Database check failed: " + e.getMessage());
-        }
+        DbExecutor.run(() -> {
+            try (Connection conn = Database.getConnection()) {
+                Log.info("LoginController", "Database exists.");
+            }
+        }).exceptionally(e -> {
+            Log.error("LoginController", "Database check failed: " + DbExecutor.rootCause(e).getMessage());
+            return null;
+        });
     }
 
     /**
@@ -64,7 +81,7 @@ public class LoginController {
      */
     @FXML
     private void switchToRegister() {
-        System.out.println("[LoginController] switchToRegister()");
+        Log.info("LoginController", "switchToRegister()");
         App.setRoot("register");
     }
 
@@ -108,100 +125,110 @@ public class LoginController {
      */
     @FXML
     private void handleLogin() {
-        System.out.println("[LoginController] ===== LOGIN ATTEMPT START =====");
+        Log.debug("LoginController", "===== LOGIN ATTEMPT START =====");
         
         // 1. Get user input
         String username = (usernameField == null) ? "" : usernameField.getText().trim();
         String password = getPasswordInput();
 
-        System.out.println("[LoginController] handleLogin for user='" + username + "'");
+        Log.info("LoginController", "handleLogin for user='" + username + "'");
 
         // 2. Basic validation
         if (username.isEmpty() || password.isEmpty()) {
-            System.out.println("[LoginController] Validation failed: empty fields");
+            Log.warn("LoginController", "Validation failed: empty fields");
             showAlert(Alert.AlertType.ERROR, "Validation error", "Username and password must not be empty.");
             return;
         }
 
-        // Variables to store authentication results
-        String authenticatedRole = null;
-        boolean authSuccess = false;
+        // 3-7. Check credentials and record the login timestamp off the FX thread
+        DbExecutor.supply(() -> authenticateAndRecordLogin(username, password))
+            .thenAccept(result -> {
+                if (!result.valid) {
+                    showAlert(Alert.AlertType.ERROR, "Login failed", "Invalid username or password.");
+                    return;
+                }
+                if (result.role == null) {
+                    return;
+                }
+
+                // 6. Store session info (username + role) for RBAC
+                Log.debug("LoginController", "Setting session...");
+                SessionManager.setCurrentUser(username, result.role);
+                Log.debug("LoginController", "Session set. Current user: " + SessionManager.getUsername());
+
+                // 8. Navigate to main UI
+                Log.debug("LoginController", "Navigating to main screen...");
+                App.setRoot("main");
+                Log.debug("LoginController", "===== LOGIN PROCESS COMPLETE =====");
+            })
+            .exceptionally(e -> {
+                Throwable cause = DbExecutor.rootCause(e);
+                if (cause instanceof NoSuchAlgorithmException) {
+                    Log.error("LoginController", "Encryption error", cause);
+                    showAlert(Alert.AlertType.ERROR, "Encryption error", cause.getMessage());
+                } else {
+                    Log.error("LoginController", "SQL Exception during login", cause);
+                    showAlert(Alert.AlertType.ERROR, "Database error", cause.getMessage());
+                }
+                return null;
+            });
+    }
+
+    /**
+     * Check the credentials and, when they are valid, record the login timestamp.
+     * Runs on a DbExecutor thread; must not touch UI nodes.
+     */
+    private AuthResult authenticateAndRecordLogin(String username, String password)
+            throws SQLException, NoSuchAlgorithmException {
+        String authenticatedRole;
 
-        // 3. Connect to DB and check credentials
         // CRITICAL FIX: Use try-with-resources to ensure connection is closed before calling AttendanceUtils
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            System.out.println("[LoginController] Database connection successful");
+        try (Connection conn = Database.getConnection()) {
+            Log.debug("LoginController", "Database connection successful");
 
             String sql = "SELECT password_hash, role FROM users WHERE username = ?";
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setString(1, username);
                 
                 try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        System.out.println("[LoginController] User found in database");
-                        
-                        String storedHash = rs.getString("password_hash");
-                        String providedHash = hashPassword(password);
-
-                        // 4. Validate password
-                        if (!storedHash.equals(providedHash)) {
-                            System.out.println("[LoginController] Password mismatch!");
-                            showAlert(Alert.AlertType.ERROR, "Login failed", "Invalid username or password.");
-                            return;
-                        }
-
-                        // 5. Authentication successful
-                        System.out.println("[LoginController] ===== AUTHENTICATION SUCCESSFUL =====");
-                        authenticatedRole = rs.getString("role");
-                        authSuccess = true;
-                        System.out.println("[LoginController] User role: " + authenticatedRole);
-
-                    } else {
+                    if (!rs.next()) {
                         // User not found
-                        System.out.println("[LoginController] User not found in database");
-                        showAlert(Alert.AlertType.ERROR, "Login failed", "Invalid username or password.");
-                        return;
+                        Log.warn("LoginController", "User not found in database");
+                        return new AuthResult(false, null);
+                    }
+
+                    Log.debug("LoginController", "User found in database");
+                    
+                    String storedHash = rs.getString("password_hash");
+                    String providedHash = hashPassword(password);
+
+                    // 4. Validate password
+                    if (!storedHash.equals(providedHash)) {
+                        Log.warn("LoginController", "Password mismatch!");
+                        return new AuthResult(false, null);
                     }
+
+                    // 5. Authentication successful
+                    Log.debug("LoginController", "===== AUTHENTICATION SUCCESSFUL =====");
+                    authenticatedRole = rs.getString("role");
+                    Log.info("LoginController", "User role: " + authenticatedRole);
                 }
             }
-            
-            // Connection will be automatically closed here when exiting try-with-resources
-            
-        } catch (SQLException e) {
-            System.err.println("[LoginController] SQL Exception during login:");
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Database error", e.getMessage());
-            return;
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("[LoginController] Encryption error:");
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Encryption error", e.getMessage());
-            return;
         }
 
         // CRITICAL FIX: Database connection is now closed, safe to call AttendanceUtils
-        if (authSuccess && authenticatedRole != null) {
-            // 6. Store session info (username + role) for RBAC
-            System.out.println("[LoginController] Setting session...");
-            SessionManager.setCurrentUser(username, authenticatedRole);
-            System.out.println("[LoginController] Session set. Current user: " + SessionManager.getUsername());
-
+        if (authenticatedRole != null) {
             // 7. Record login timestamp using AttendanceUtils
-            // Connection is closed, so no database lock conflict
-            System.out.println("[LoginController] About to call AttendanceUtils.recordLogin()...");
+            Log.debug("LoginController", "About to call AttendanceUtils.recordLogin()...");
             try {
                 AttendanceUtils.recordLogin(username);
-                System.out.println("[LoginController] AttendanceUtils.recordLogin() completed");
+                Log.debug("LoginController", "AttendanceUtils.recordLogin() completed");
             } catch (Exception e) {
-                System.err.println("[LoginController] ERROR calling AttendanceUtils.recordLogin():");
-                e.printStackTrace();
+                Log.error("LoginController", "ERROR calling AttendanceUtils.recordLogin()", e);
             }
-
-            // 8. Navigate to main UI
-            System.out.println("[LoginController] Navigating to main screen...");
-            App.setRoot("main");
-            System.out.println("[LoginController] ===== LOGIN PROCESS COMPLETE =====");
         }
+
+        return new AuthResult(true, authenticatedRole);
     }
 
     /**
@@ -1,19 +1,20 @@
 package main;
 
-import javafx.application.Platform;
-import javafx.fxml.FXMLLoader;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.StackPane;
-
-import java.io.IOException;
-import java.net.URL;
+import javafx.util.Duration;
 
 /**
  * Controller for main.fxml.
  * This class keeps a static instance so other controllers (like MenuController)
  * can call loadPage() and change what is displayed in the main content area.
+ *
+ * Pages are kept in a PageCache: each page's FXML is built once, off the FX
+ * thread, and shown again from memory afterwards. Controllers that implement
+ * PageLifecycle are told when their page is hidden and shown again.
  */
 public class MainController {
 
@@ -23,15 +24,42 @@ public class MainController {
     // The container where pages (FXML files) will be loaded
     @FXML
     private StackPane contentPane;
-    
+
+    // Pages loaded so far in this session, and the one on screen
+    private final PageCache pageCache = new PageCache();
+    private PageCache.Page current;
+
+    // Builds pages ahead of time when their sidebar button is hovered or focused
+    private final PagePrefetcher prefetcher = new PagePrefetcher(pageCache);
+
+    // Incremented on every loadPage(); only the latest request may swap pages
+    private int pageRequest = 0;
+
+    // Progress indicator shown over the current page while the next one is built
+    private static final Duration PROGRESS_DELAY = Duration.millis(150);
+    private final PauseTransition progressDelay = new PauseTransition(PROGRESS_DELAY);
+    private ProgressIndicator progress;
 
     @FXML
     private void initialize() {
         // Save this controller instance for global access
         instance = this;
 
-        // Load a default page AFTER the UI is fully loaded
-        Platform.runLater(() -> loadPage("dashboard"));
+        // Leaving the main screen (logout, role switch) hides the current page
+        contentPane.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null && current != null) {
+                current.hide();
+                current = null;
+            }
+        });
+
+        // Load a default page AFTER the UI is fully loaded (main.fxml itself may still be
+        // under construction on the loader thread), unless a page was requested meanwhile
+        PageLoader.runOnFxThread(() -> {
+            if (pageRequest == 0) {
+                loadPage("dashboard");
+            }
+        });
     }
 
     /**
@@ -43,8 +71,15 @@ public class MainController {
     }
 
     /**
-     * Loads an FXML page into the content area.
-     * Example: loadPage("dashboard") will load /main/dashboard.fxml
+     * Shows a page in the content area.
+     * Example: loadPage("dashboard") shows /main/dashboard.fxml
+     *
+     * The first time, the page is built off the FX thread while the current page
+     * stays usable under a progress indicator; it replaces the current page in one
+     * step once it is ready. Later calls show the cached page and call its
+     * controller's onShow(), as does the first display of a page prefetched more
+     * than lamesa.ui.pageFreshMs earlier. Opening the page that is already shown refreshes it
+     * the same way. When pages are clicked in quick succession, the last click wins.
      *
      * If the file does not exist, it will show an error message instead of crashing.
      */
@@ -52,39 +87,106 @@ public class MainController {
         // If contentPane is not ready, stop here
         if (contentPane == null) return;
 
-        try {
-            System.out.println("[MainController] Loading page: " + page);
-            // Build the file path to the FXML
-            String resourcePath = "/main/" + page + ".fxml";
+        int request = ++pageRequest;
 
-            // Try to locate the file
-            URL url = App.class.getResource(resourcePath);
-            System.out.println("[MainController] Resource path: " + resourcePath + " -> " + url);
-            if (url == null) {
-                throw new IOException("Resource not found: " + resourcePath);
-            }
+        if (current != null && current.name.equals(page)) {
+            hideProgress();
+            current.show();
+            return;
+        }
 
-            // Load the FXML file and place it inside the content pane
-            FXMLLoader loader = new FXMLLoader(url);
-            Node node = loader.load();
-            
-            // If loading the dashboard, pass the username to its controller
-            if (page.equals("dashboard")) {
-                DashboardController controller = loader.getController();
-                controller.setUsername(SessionManager.getUsername());
+        PageCache.Page cached = pageCache.cached(page);
+        if (cached != null) {
+            Log.debug("MainController", "Showing cached page: " + page);
+            hideProgress();
+            display(cached);
+            return;
+        }
+
+        Log.info("MainController", "Loading page: " + page);
+        showProgress();
+        pageCache.load(page).whenComplete((next, e) -> {
+            // A later click asked for another page; this one stays cached for next time
+            if (request != pageRequest) {
+                return;
+            }
+            hideProgress();
+
+            if (e != null) {
+                // If something goes wrong, show an error message on the screen
+                Log.error("MainController", "Could not load page: " + page, DbExecutor.rootCause(e));
+                if (current != null) {
+                    current.hide();
+                    current = null;
+                }
+                Label lbl = new Label("Page not found: " + page);
+                lbl.setStyle("-fx-font-size:16; -fx-text-fill:#333;");
+                contentPane.getChildren().setAll(lbl);
+                return;
             }
+            display(next);
+        });
+    }
 
-            contentPane.getChildren().setAll(node);
+    // Swap a page in and tell its controller. A page's first display skips the refresh
+    // only while the data its initialize() loaded is fresh; a page prefetched a while
+    // ago is refreshed like one shown again.
+    private void display(PageCache.Page next) {
+        boolean first = !next.displayed;
+        swapTo(next);
+        if (first && next.isFresh()) {
+            next.firstShow();
+        } else {
+            next.show();
+        }
+    }
+
+    // Replace the current page in a single change of the content pane's children
+    private void swapTo(PageCache.Page next) {
+        if (current != null) {
+            current.hide();
+        }
+        contentPane.getChildren().setAll(next.root);
+        current = next;
+        current.displayed = true;
+    }
+
+    /**
+     * Sidebar hover/focus hints, see PagePrefetcher.
+     */
+    void prefetchHovered(String page) {
+        prefetcher.hovered(page);
+    }
 
+    void prefetchFocused(String page) {
+        prefetcher.focused(page);
+    }
 
-        } catch (IOException e) {
-            // If something goes wrong, show an error message on the screen
-            e.printStackTrace();
-            contentPane.getChildren().clear();
+    void prefetchLeft(String page) {
+        prefetcher.left(page);
+    }
+
+    // ==================== PROGRESS INDICATOR ====================
+
+    // Shown over the current page only when a build takes longer than PROGRESS_DELAY
+    private void showProgress() {
+        if (progress == null) {
+            progress = new ProgressIndicator();
+            progress.setMaxSize(48, 48);
+            progress.setMouseTransparent(true);
+            progressDelay.setOnFinished(e -> {
+                if (!contentPane.getChildren().contains(progress)) {
+                    contentPane.getChildren().add(progress);
+                }
+            });
+        }
+        progressDelay.playFromStart();
+    }
 
-            Label lbl = new Label("Page not found: " + page);
-            lbl.setStyle("-fx-font-size:16; -fx-text-fill:#333;");
-            contentPane.getChildren().add(lbl);
+    private void hideProgress() {
+        progressDelay.stop();
+        if (progress != null) {
+            contentPane.getChildren().remove(progress);
         }
     }
 }
@@ -13,6 +13,9 @@ import java.util.List;
  * MenuController - Sidebar Navigation
  * 
  * Manages all sidebar navigation buttons and RBAC (Role-Based Access Control)
+ *
+ * Hovering or focusing a page button hints MainController to build that page
+ * ahead of the click (see PagePrefetcher).
  * 
  * UPDATED: Added Food Menu button and navigation
  */
@@ -44,6 +47,39 @@ public class MenuController {
 
         setButtonsContentDisplay(); // Format button layout (icon + text)
         applyRoleRestrictions();    // Hide restricted menu items
+
+        // Start building a page as soon as the user heads for its button
+        prefetchOnHover(dashboardBtn, "dashboard");
+        prefetchOnHover(inventoryBtn, "inventory");
+        prefetchOnHover(analyticsBtn, "analytics");
+        prefetchOnHover(foodMenuBtn, "food_menu");
+        prefetchOnHover(employeesBtn, "employees");
+        prefetchOnHover(settingsBtn, "settings");
+    }
+
+    /**
+     * Pass hover and keyboard focus on a menu button to MainController's prefetcher.
+     */
+    private void prefetchOnHover(Button btn, String page) {
+        if (btn == null) return;
+
+        btn.setOnMouseEntered(e -> {
+            MainController mc = MainController.getInstance();
+            if (mc != null) mc.prefetchHovered(page);
+        });
+        btn.setOnMouseExited(e -> {
+            MainController mc = MainController.getInstance();
+            if (mc != null && !btn.isFocused()) mc.prefetchLeft(page);
+        });
+        btn.focusedProperty().addListener((obs, wasFocused, isFocused) -> {
+            MainController mc = MainController.getInstance();
+            if (mc == null) return;
+            if (isFocused) {
+                mc.prefetchFocused(page);
+            } else if (!btn.isHover()) {
+                mc.prefetchLeft(page);
+            }
+        });
     }
 
     /**
@@ -70,7 +106,7 @@ public class MenuController {
      */
     private void applyRoleRestrictions() {
         String role = SessionManager.getRole();
-        System.out.println("[MenuController] Applying RBAC for role: " + role);
+        Log.info("MenuController", "Applying RBAC for role: " + role);
 
         // Only managers should see Reports, Employees
         if (!SessionManager.isManager()) {
@@ -110,7 +146,7 @@ public class MenuController {
     
     @FXML 
     private void onAnalytics() {
-        System.out.println("[MenuController] Analytics button clicked");
+        Log.info("MenuController", "Analytics button clicked");
         loadOrShow("analytics");
     }
     
@@ -120,7 +156,7 @@ public class MenuController {
      */
     @FXML 
     private void onFoodMenu() {
-        System.out.println("[MenuController] Food Menu button clicked");
+        Log.info("MenuController", "Food Menu button clicked");
         loadOrShow("food_menu");
     }
     
@@ -141,7 +177,7 @@ public class MenuController {
     
     @FXML 
     private void onSettings() {
-        System.out.println("[MenuController] Settings button clicked");
+        Log.info("MenuController", "Settings button clicked");
         loadOrShow("settings");
     }
 
@@ -160,12 +196,12 @@ public class MenuController {
         } catch (Throwable ignored) {}
 
         // If no MainController yet (fresh login), load main.fxml first
-        try {
-            App.setRoot("main");
+        App.setRoot("main").thenAccept(shown -> {
             MainController mc2 = MainController.getInstance();
-            if (mc2 != null) mc2.loadPage(page);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            if (shown && mc2 != null) mc2.loadPage(page);
+        }).exceptionally(e -> {
+            Log.error("MenuController", "Could not open " + page, DbExecutor.rootCause(e));
+            return null;
+        });
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package main;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -35,17 +34,25 @@ public class NewStockDialogController {
 
     @FXML
     public void initialize() {
-        productNameCombo.setItems(loadProducts());
+        productNameCombo.setPromptText("Loading…");
+        DbExecutor.supply(this::loadProducts)
+            .thenAccept(productNameCombo::setItems)
+            .exceptionally(e -> {
+                Log.error("NewStockDialogController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+                return null;
+            });
         instructionCombo.setItems(FXCollections.observableArrayList("Low in Stock", "High in Stock"));
         statusCombo.setItems(FXCollections.observableArrayList("Available", "Action Required"));
     }
 
-    private ObservableList<String> loadProducts() {
+    /**
+     * Load all meal names (runs on a DbExecutor thread).
+     */
+    private ObservableList<String> loadProducts() throws SQLException {
         ObservableList<String> list = FXCollections.observableArrayList();
 
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
 
-        try(Connection conn = DriverManager.getConnection(dbUrl)) {
+        try(Connection conn = Database.getConnection()) {
             String sql = "SELECT name FROM meal ORDER BY meal_id";
 
             try(PreparedStatement ps = conn.prepareStatement(sql);
@@ -55,9 +62,6 @@ public class NewStockDialogController {
                     list.add(rs.getString("name"));
                 }
             }
-
-        } catch (SQLException e) {
-            System.out.println("[NewStockDialogController] ERROR: " + e.getMessage());
         }
         return list;
     }
@@ -68,11 +72,25 @@ public class NewStockDialogController {
         String status = statusCombo.getValue();
         int stock = Integer.parseInt(stockField.getText());
 
-        String dbUrl = "jdbc:sqlite:database/lamesa.db";
+        // Save in the background; the dialog closes once the write is done
+        okayButton.setDisable(true);
+        DbExecutor.run(() -> saveStock(product, status, stock))
+            .whenComplete((ignored, e) -> {
+                if (e != null) {
+                    Log.error("NewStockDialogController", "ERROR: " + DbExecutor.rootCause(e).getMessage());
+                }
+                // Step 3: Close the dialog
+                okayButton.getScene().getWindow().hide();
+            });
+    }
 
+    /**
+     * Insert or update the inventory row for a product (runs on a DbExecutor thread).
+     */
+    private void saveStock(String product, String status, int stock) throws SQLException {
         // Step 1: Get meal_id from meal table
         int mealId = -1;
-        try(Connection conn = DriverManager.getConnection(dbUrl)) {
+        try(Connection conn = Database.getConnection()) {
             String sql = "SELECT meal_id FROM meal WHERE name = ?";
 
             try(PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -83,16 +101,16 @@ public class NewStockDialogController {
                 }
             }
         } catch (SQLException e) {
-            System.out.println("[NewStockDialogController] ERROR getting meal_id: " + e.getMessage());
+            Log.error("NewStockDialogController", "ERROR getting meal_id: " + e.getMessage());
         }
 
         if (mealId == -1) {
-            System.out.println("[NewStockDialogController] ERROR: Meal not found: " + product);
+            Log.error("NewStockDialogController", "ERROR: Meal not found: " + product);
             return;
         }
 
         // Step 2: Check if inventory entry exists for this meal, update or insert
-        try (Connection conn = DriverManager.getConnection(dbUrl)) {
+        try (Connection conn = Database.getConnection()) {
             // First check if inventory entry exists for this meal
             String checkSQL = "SELECT inventory_id FROM inventory WHERE meal_id = ?";
             int inventoryId = -1;
@@ -114,7 +132,7 @@ public class NewStockDialogController {
                     ps.setString(2, status);
                     ps.setInt(3, inventoryId);
                     ps.executeUpdate();
-                    System.out.println("[NewStockDialogController] Updated stock: " + product + " | Quantity: " + stock);
+                    Log.info("NewStockDialogController", "Updated stock: " + product + " | Quantity: " + stock);
                 }
             } else {
                 // Insert new inventory entry
@@ -124,15 +142,10 @@ public class NewStockDialogController {
                     ps.setInt(2, stock);
                     ps.setString(3, status);
                     ps.executeUpdate();
-                    System.out.println("[NewStockDialogController] Added new stock: " + product + " | Quantity: " + stock);
+                    Log.info("NewStockDialogController", "Added new stock: " + product + " | Quantity: " + stock);
                 }
             }
-        } catch (SQLException e) {
-            System.out.println("[NewStockDialogController] ERROR: " + e.getMessage());
         }
-        
-        // Step 3: Close the dialog
-        okayButton.getScene().getWindow().hide();
     }
 
     @FXML
@@ -0,0 +1,209 @@
+package main;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javafx.scene.Node;
+
+/**
+ * PageCache
+ *
+ * Keeps the pages loaded into MainController's content area, so switching pages
+ * from the sidebar does not parse the FXML, apply its stylesheets and create its
+ * controller again every time.
+ *
+ * - cached(name) returns a page that is ready; load(name) builds /main/<name>.fxml
+ *   off the FX thread, from its compiled view when it has one (see PageLoader). Two requests for a page that is still
+ *   being built share one build.
+ * - prefetch(name) starts a build nobody waits for yet (see PagePrefetcher);
+ *   cancelPrefetch(name) drops or abandons it (PageLoader.cancel) unless load()
+ *   has claimed it since.
+ * - Above the size limit, prefetched pages that were never shown are dropped
+ *   first, so a prefetch never displaces a page the user opened; otherwise the
+ *   least recently shown page goes. Dropped pages are loaded again the next time
+ *   they are opened. hasRoomForPrefetch() tells whether a prefetch would fit.
+ * - A page remembers when it was built. Its data, loaded by initialize(), counts
+ *   as fresh for lamesa.ui.pageFreshMs; a prefetched page first shown later than
+ *   that is refreshed like a page shown again.
+ * - One cache per MainController, i.e. per login, so a new user never sees the
+ *   previous user's pages.
+ * - FX thread only, like the nodes it holds.
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.ui.pageCacheSize  pages kept in memory (default 6, 0 disables caching)
+ * - lamesa.ui.pageFreshMs    how long a newly built page's data counts as fresh (default 2000)
+ */
+final class PageCache {
+
+    private static final int MAX_PAGES = Math.max(0, Integer.getInteger("lamesa.ui.pageCacheSize", 6));
+    private static final long FRESH_NANOS = Math.max(0, Long.getLong("lamesa.ui.pageFreshMs", 2000L)) * 1_000_000;
+
+    /**
+     * A loaded page: its root node and its controller.
+     */
+    static final class Page {
+        final String name;
+        final Node root;
+        final Object controller;
+
+        // When the build finished, i.e. when initialize() started loading the page's data
+        final long builtAt = System.nanoTime();
+
+        // Built for a prefetch that nobody had claimed with load() by the time it finished
+        final boolean prefetched;
+
+        // Set once the page has been on screen; a prefetched page has not
+        boolean displayed;
+
+        Page(String name, Node root, Object controller, boolean prefetched) {
+            this.name = name;
+            this.root = root;
+            this.controller = controller;
+            this.prefetched = prefetched;
+        }
+
+        /**
+         * A prefetched page the user has not opened; dropped before any other page.
+         */
+        boolean isUnopenedPrefetch() {
+            return prefetched && !displayed;
+        }
+
+        /**
+         * Whether the data initialize() loaded is recent enough to show without a refresh.
+         */
+        boolean isFresh() {
+            return System.nanoTime() - builtAt <= FRESH_NANOS;
+        }
+
+        void show() {
+            if (controller instanceof PageLifecycle) {
+                ((PageLifecycle) controller).onShow();
+            }
+        }
+
+        void firstShow() {
+            if (controller instanceof PageLifecycle) {
+                ((PageLifecycle) controller).onFirstShow();
+            }
+        }
+
+        void hide() {
+            if (controller instanceof PageLifecycle) {
+                ((PageLifecycle) controller).onHide();
+            }
+        }
+    }
+
+    // Access order: the eldest entry is the page shown least recently
+    private final Map<String, Page> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Page> eldest) {
+            if (size() <= MAX_PAGES) {
+                return false;
+            }
+            // The last entry is the page being inserted; it never makes room for itself
+            int older = size() - 1;
+            for (Page page : values()) {
+                if (older-- == 0) {
+                    break;
+                }
+                if (page.isUnopenedPrefetch()) {
+                    Log.debug("PageCache", "Dropping prefetched page: " + page.name);
+                    remove(page.name);
+                    return false;
+                }
+            }
+            Log.debug("PageCache", "Dropping page: " + eldest.getKey());
+            return true;
+        }
+    };
+
+    // Builds in progress, by page name
+    private final Map<String, CompletableFuture<Page>> loading = new HashMap<>();
+
+    // Builds in progress that only a prefetch asked for, by page name
+    private final Map<String, CompletableFuture<PageLoader.Loaded>> prefetches = new HashMap<>();
+
+    /**
+     * The cached page, or null when it has to be loaded.
+     */
+    Page cached(String name) {
+        return pages.get(name);
+    }
+
+    /**
+     * Build a page and cache it. The future completes on the FX thread
+     * and fails when the FXML is missing or fails to load.
+     */
+    CompletableFuture<Page> load(String name) {
+        // Someone is waiting for it now, so a prefetch of this page may no longer be cancelled
+        prefetches.remove(name);
+        return start(name, false);
+    }
+
+    /**
+     * Start building a page ahead of time. Same as load(), but cancelPrefetch() may drop it.
+     */
+    CompletableFuture<Page> prefetch(String name) {
+        return start(name, true);
+    }
+
+    /**
+     * Drop a prefetch that is still queued, or abandon one that is being built.
+     *
+     * @return true when the build was dropped or abandoned
+     */
+    boolean cancelPrefetch(String name) {
+        CompletableFuture<PageLoader.Loaded> source = prefetches.remove(name);
+        if (source == null || !PageLoader.cancel(source)) {
+            return false;
+        }
+        // A later load() starts a new build instead of joining the abandoned one
+        loading.remove(name);
+        return true;
+    }
+
+    /**
+     * Whether a prefetched page can be kept without dropping a page the user opened.
+     */
+    boolean hasRoomForPrefetch() {
+        if (pages.size() + loading.size() < MAX_PAGES) {
+            return true;
+        }
+        for (Page page : pages.values()) {
+            if (page.isUnopenedPrefetch()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<Page> start(String name, boolean prefetch) {
+        CompletableFuture<Page> pending = loading.get(name);
+        if (pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<PageLoader.Loaded> source = PageLoader.load(name);
+        CompletableFuture<Page> future = source.thenApply(loaded -> {
+            // Still registered as a prefetch means load() never claimed it
+            Page page = new Page(name, loaded.root, loaded.controller, prefetches.get(name) == source);
+            pages.put(name, page);
+            return page;
+        });
+        if (!future.isDone()) {
+            loading.put(name, future);
+            if (prefetch) {
+                prefetches.put(name, source);
+            }
+            future.whenComplete((page, e) -> {
+                loading.remove(name, future);
+                prefetches.remove(name, source);
+            });
+        }
+        return future;
+    }
+}
@@ -0,0 +1,29 @@
+package main;
+
+/**
+ * PageLifecycle
+ *
+ * Optional callbacks for the controller of a page shown in MainController's
+ * content area. Pages are cached (see PageCache), so a controller's initialize()
+ * runs once per login and the same page is hidden and shown again many times.
+ *
+ * - onShow(): the cached page is displayed again, or displayed for the first time
+ *   well after it was prefetched. Refresh whatever may have changed since, without
+ *   rebuilding the page, and resume what only runs while visible.
+ * - onFirstShow(): the page is displayed for the first time and the data its
+ *   initialize() started loading is still fresh. Start what only runs while
+ *   visible; there is nothing to refresh yet.
+ * - onHide(): the page was replaced by another one (or the main screen was left).
+ *   Pause timers and cancel background work that only matters while visible.
+ */
+public interface PageLifecycle {
+
+    default void onShow() {
+    }
+
+    default void onFirstShow() {
+    }
+
+    default void onHide() {
+    }
+}
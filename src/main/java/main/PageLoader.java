@@ -0,0 +1,222 @@
+package main;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+/**
+ * PageLoader
+ *
+ * Builds FXML scene graphs off the JavaFX Application Thread. Nodes that are not
+ * attached to a showing scene may be created and changed on any thread, so the
+ * whole page (controls, charts, controller and its initialize()) is built on a
+ * loader thread. Only attaching the finished page happens on the FX thread, so
+ * the current screen stays responsive while the next one is built.
+ *
+ * - load(name) builds /main/<name>.fxml; the returned future completes on the FX
+ *   thread with the page's root and controller.
+ * - A page with a generated view class (main.<Name>View, see CompiledView and the
+ *   precompiled-views profile) is built by that class instead of FXMLLoader.
+ *   Each build is logged with its time and whether it was compiled or FXML, so
+ *   the two can be compared with lamesa.ui.compiledViews on and off.
+ * - Pages are built one at a time on a single daemon thread ("lamesa-fxml").
+ *   cancel(future) drops a build that has not started yet, and abandons one that
+ *   has: the build's QueryCanceller (currentCanceller(), for the queries its
+ *   controller starts) is cancelled and the page is thrown away when done.
+ * - FX-thread callbacks that a controller schedules while its page is being built
+ *   (DbExecutor results, runOnFxThread) are held back until the build is done and
+ *   the caller has attached the page. They therefore never touch nodes the loader
+ *   thread is still constructing.
+ *
+ * Configuration (JVM system property):
+ * - lamesa.ui.compiledViews  true (default) or false to load every page with FXMLLoader
+ */
+final class PageLoader {
+
+    /**
+     * A built page: its root node and its controller (null when the FXML has none).
+     */
+    static final class Loaded {
+        final Parent root;
+        final Object controller;
+
+        Loaded(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    private static final boolean COMPILED_VIEWS = !"false".equalsIgnoreCase(System.getProperty("lamesa.ui.compiledViews"));
+
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lamesa-fxml");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Set on the loader thread while a page is being built; completes after the page is handed over
+    private static final ThreadLocal<CompletableFuture<Void>> BUILDING = new ThreadLocal<>();
+
+    // Cancelled when the page being built on the loader thread is abandoned
+    private static final ThreadLocal<QueryCanceller> CANCELLER = new ThreadLocal<>();
+
+    // Builds queued on the loader thread and not started yet
+    private static final Set<CompletableFuture<Loaded>> QUEUED = ConcurrentHashMap.newKeySet();
+
+    // Builds started and not handed over yet, with their cancellers
+    private static final Map<CompletableFuture<Loaded>, QueryCanceller> STARTED = new ConcurrentHashMap<>();
+
+    // Generated view constructor per page name, empty when the page has no compiled view
+    private static final Map<String, Optional<Constructor<? extends CompiledView>>> VIEWS = new ConcurrentHashMap<>();
+
+    private PageLoader() {
+    }
+
+    /**
+     * Build a page on the loader thread. The future completes on the FX thread.
+     */
+    static CompletableFuture<Loaded> load(String name) {
+        String resourcePath = "/main/" + name + ".fxml";
+        URL url = App.class.getResource(resourcePath);
+        if (url == null) {
+            return CompletableFuture.failedFuture(new IOException("FXML resource not found: " + resourcePath));
+        }
+
+        CompletableFuture<Loaded> future = new CompletableFuture<>();
+        QUEUED.add(future);
+        LOADER.execute(() -> {
+            if (!QUEUED.remove(future)) {
+                return; // cancelled while queued
+            }
+            CompletableFuture<Void> build = new CompletableFuture<>();
+            QueryCanceller canceller = new QueryCanceller();
+            STARTED.put(future, canceller);
+            BUILDING.set(build);
+            CANCELLER.set(canceller);
+            long start = System.nanoTime();
+            try {
+                Constructor<? extends CompiledView> view = compiledView(name);
+                Loaded page;
+                if (view != null) {
+                    CompiledView compiled = view.newInstance();
+                    compiled.build();
+                    page = new Loaded(compiled.getRoot(), compiled.getController());
+                } else {
+                    FXMLLoader loader = new FXMLLoader(url);
+                    page = new Loaded(loader.load(), loader.getController());
+                }
+                Log.info("PageLoader", "Built " + name + " (" + (view != null ? "compiled" : "FXML") + ") in "
+                        + (System.nanoTime() - start) / 1000 / 1000.0 + " ms");
+                // Hand the page over first, then release the callbacks its controller queued
+                Platform.runLater(() -> {
+                    if (STARTED.remove(future) != null && canceller.isCancelled()) {
+                        abandon(name, future, build);
+                        return;
+                    }
+                    future.complete(page);
+                    build.complete(null);
+                });
+            } catch (Throwable t) {
+                Platform.runLater(() -> {
+                    if (STARTED.remove(future) != null && canceller.isCancelled()) {
+                        abandon(name, future, build);
+                        return;
+                    }
+                    future.completeExceptionally(t);
+                    build.complete(null);
+                });
+            } finally {
+                BUILDING.remove();
+                CANCELLER.remove();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancel a build. A queued build is dropped. A build that already started has
+     * its queries cancelled; it runs to completion, then its future is cancelled
+     * and the callbacks its controller queued are discarded. Call on the FX thread.
+     *
+     * @return true when the build was dropped or abandoned, false when it was already handed over
+     */
+    static boolean cancel(CompletableFuture<Loaded> future) {
+        if (QUEUED.remove(future)) {
+            future.cancel(false);
+            return true;
+        }
+        QueryCanceller canceller = STARTED.get(future);
+        if (canceller != null) {
+            canceller.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    // FX thread: the page will never be shown, so neither the caller nor its controller's callbacks run
+    private static void abandon(String name, CompletableFuture<Loaded> future, CompletableFuture<Void> build) {
+        Log.debug("PageLoader", "Abandoned " + name);
+        future.cancel(false);
+        build.cancel(false);
+    }
+
+    /**
+     * The generated view class of a page, or null to use FXMLLoader.
+     */
+    private static Constructor<? extends CompiledView> compiledView(String name) {
+        if (!COMPILED_VIEWS) {
+            return null;
+        }
+        return VIEWS.computeIfAbsent(name, n -> {
+            String className = PageLoader.class.getPackageName() + "." + CompiledView.viewClassName(n);
+            try {
+                return Optional.of(Class.forName(className).asSubclass(CompiledView.class).getDeclaredConstructor());
+            } catch (ClassNotFoundException e) {
+                return Optional.empty();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                Log.warn("PageLoader", "Unusable compiled view " + className + ", using FXML", e);
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * The page being built on the calling thread, or null when the caller is not building one.
+     */
+    static CompletableFuture<Void> currentBuild() {
+        return BUILDING.get();
+    }
+
+    /**
+     * The canceller of the page being built on the calling thread, or QueryCanceller.NONE.
+     * Controllers derive the cancellers of the queries initialize() starts from it (child()).
+     */
+    static QueryCanceller currentCanceller() {
+        QueryCanceller canceller = CANCELLER.get();
+        return canceller != null ? canceller : QueryCanceller.NONE;
+    }
+
+    /**
+     * Platform.runLater, except that during a page build the task waits until the
+     * page has been handed over.
+     */
+    static void runOnFxThread(Runnable r) {
+        CompletableFuture<Void> build = BUILDING.get();
+        if (build == null) {
+            Platform.runLater(r);
+        } else {
+            build.thenRun(() -> Platform.runLater(r));
+        }
+    }
+}
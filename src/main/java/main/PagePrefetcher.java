@@ -0,0 +1,100 @@
+package main;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+/**
+ * PagePrefetcher
+ *
+ * Starts building a page while the user is still moving towards its sidebar
+ * button, so the click usually finds the page ready.
+ *
+ * - hovered(page) / focused(page): after a short hover-intent delay the page is
+ *   built through PageCache.prefetch(). Building it runs its controller's
+ *   initialize(), which also starts its first data queries; their results fill
+ *   the page before it is ever shown.
+ * - left(page): mouse-out or focus loss before the delay drops the request. A
+ *   prefetch the user did not click through is cancelled: still queued, it is
+ *   dropped; already building, its queries are cancelled and the page is thrown
+ *   away (PageLoader.cancel).
+ * - A prefetch only uses a free cache slot or one held by another unshown
+ *   prefetch (PageCache.hasRoomForPrefetch), never a page the user opened.
+ * - At most lamesa.ui.prefetchLimit prefetches run at once; further hovers are
+ *   ignored until one finishes, so sweeping over the sidebar cannot queue every page.
+ * - Pages already cached are skipped; a page that is already being built is
+ *   shared with that build, never built twice.
+ * - FX thread only.
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.ui.prefetch         true (default) or false
+ * - lamesa.ui.prefetchLimit    concurrent prefetches (default 2)
+ * - lamesa.ui.prefetchDelayMs  hover-intent delay before a prefetch starts (default 120)
+ */
+final class PagePrefetcher {
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("lamesa.ui.prefetch"));
+    private static final int LIMIT = Math.max(1, Integer.getInteger("lamesa.ui.prefetchLimit", 2));
+    private static final Duration DELAY = Duration.millis(Math.max(0, Long.getLong("lamesa.ui.prefetchDelayMs", 120L)));
+
+    private final PageCache pageCache;
+    private final Semaphore permits = new Semaphore(LIMIT);
+
+    // Hover-intent timers, by page name
+    private final Map<String, PauseTransition> pending = new HashMap<>();
+
+    PagePrefetcher(PageCache pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * The pointer entered the page's button.
+     */
+    void hovered(String page) {
+        schedule(page);
+    }
+
+    /**
+     * The page's button received keyboard focus.
+     */
+    void focused(String page) {
+        schedule(page);
+    }
+
+    /**
+     * The pointer left the button, or it lost focus.
+     */
+    void left(String page) {
+        PauseTransition timer = pending.remove(page);
+        if (timer != null) {
+            timer.stop();
+        }
+        if (pageCache.cancelPrefetch(page)) {
+            Log.debug("PagePrefetcher", "Cancelled prefetch: " + page);
+        }
+    }
+
+    private void schedule(String page) {
+        if (!ENABLED || pending.containsKey(page) || pageCache.cached(page) != null) {
+            return;
+        }
+        PauseTransition timer = new PauseTransition(DELAY);
+        timer.setOnFinished(e -> {
+            pending.remove(page);
+            start(page);
+        });
+        pending.put(page, timer);
+        timer.playFromStart();
+    }
+
+    private void start(String page) {
+        if (pageCache.cached(page) != null || !pageCache.hasRoomForPrefetch() || !permits.tryAcquire()) {
+            return;
+        }
+        Log.debug("PagePrefetcher", "Prefetching: " + page);
+        pageCache.prefetch(page).whenComplete((p, e) -> permits.release());
+    }
+}
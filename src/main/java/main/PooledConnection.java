@@ -0,0 +1,162 @@
+package main;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PooledConnection
+ *
+ * One physical SQLite connection owned by the Database pool.
+ *
+ * - borrow() hands out a lightweight Connection proxy. Every call is forwarded to
+ *   the physical connection except close(), which resets the connection and
+ *   gives it back to the pool instead of closing the file.
+ * - Statements opened through the proxy are tracked, so a caller that forgets to
+ *   close one cannot leave an open read snapshot on a pooled connection.
+ * - A proxy stops working after close(), so a stale reference cannot touch a
+ *   connection that now belongs to someone else.
+ * - prepareStatement(sql) is served from this connection's StatementCache, so
+ *   hot queries are parsed once per physical connection instead of once per call.
+ * - Every statement handed out is wrapped by QueryMetrics, which times its executions.
+ */
+final class PooledConnection {
+
+    private final Connection physical;
+
+    // Idle prepared statements for this connection, keyed by SQL text
+    private final StatementCache statementCache;
+
+    // Statements handed out during the current borrow (closed on release)
+    private final List<Statement> openStatements = new ArrayList<>();
+
+    PooledConnection(Connection physical) {
+        this.physical = physical;
+        this.statementCache = new StatementCache(physical);
+    }
+
+    /**
+     * Create a new handle for the caller that borrowed this connection.
+     */
+    Connection borrow() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handle());
+    }
+
+    /**
+     * Really close the underlying connection (pool shutdown or broken connection).
+     */
+    void closePhysical() {
+        statementCache.clear();
+        try {
+            if (!physical.isClosed()) {
+                physical.close();
+            }
+        } catch (SQLException e) {
+            Log.error("PooledConnection", "Error closing connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Put the connection back into a clean state and return it to the pool.
+     */
+    private void release() {
+        boolean healthy = true;
+
+        for (Statement st : openStatements) {
+            try {
+                st.close();
+            } catch (SQLException e) {
+                healthy = false;
+            }
+        }
+        openStatements.clear();
+
+        try {
+            if (!physical.getAutoCommit()) {
+                // Uncommitted work must never leak to the next borrower
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            healthy = false;
+        }
+
+        if (healthy) {
+            Database.release(this);
+        } else {
+            Log.warn("PooledConnection", "Discarding broken connection");
+            Database.discard(this);
+        }
+    }
+
+    /**
+     * Invocation handler behind each borrowed Connection proxy.
+     */
+    private final class Handle implements InvocationHandler {
+
+        private boolean closed = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + Database.getUrl() + (closed ? ", closed" : "") + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(physical)) {
+                        return physical;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            Object result;
+            if (name.equals("prepareStatement") && args.length == 1) {
+                result = statementCache.prepare((String) args[0]);
+            } else {
+                try {
+                    result = method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                result = QueryMetrics.instrument((Statement) result, method.getReturnType(), sql);
+                openStatements.add((Statement) result);
+            }
+            return result;
+        }
+    }
+}
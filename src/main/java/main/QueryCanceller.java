@@ -0,0 +1,92 @@
+package main;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * QueryCanceller
+ *
+ * Lets the FX thread abort database work it no longer needs (e.g. results for a
+ * date range the user has already changed).
+ *
+ * - Query code registers each statement right before executing it and
+ *   unregisters it right after, while it still holds the connection.
+ * - cancel() calls Statement.cancel() on every registered statement (SQLite
+ *   interrupts the running query, which then fails with an SQLException) and
+ *   makes any later register() fail immediately.
+ * - cancel() and unregister() share one lock, so a statement is never cancelled
+ *   after its connection went back to the pool and may be running someone else's query.
+ * - child() hands out a canceller that is also cancelled with this one (e.g. a
+ *   refresh started while its page is still being built, see PageLoader).
+ */
+public final class QueryCanceller {
+
+    /** A canceller that is never cancelled, for callers that don't need one. */
+    public static final QueryCanceller NONE = new QueryCanceller();
+
+    private final List<Statement> running = new ArrayList<>();
+    private final List<QueryCanceller> children = new ArrayList<>();
+    private boolean cancelled = false;
+
+    /**
+     * A new canceller that is cancelled when this one is (already cancelled if this one is).
+     */
+    public synchronized QueryCanceller child() {
+        QueryCanceller child = new QueryCanceller();
+        if (cancelled) {
+            child.cancel();
+        } else if (this != NONE) {
+            children.add(child);
+        }
+        return child;
+    }
+
+    /**
+     * Track a statement that is about to execute.
+     *
+     * @throws SQLException when this canceller was already cancelled
+     */
+    public synchronized void register(Statement st) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled");
+        }
+        if (this != NONE) {
+            running.add(st);
+        }
+    }
+
+    /**
+     * Stop tracking a statement that finished (successfully or not).
+     */
+    public synchronized void unregister(Statement st) {
+        running.remove(st);
+    }
+
+    /**
+     * Abort every registered statement and refuse new ones. Safe to call from any thread.
+     */
+    public synchronized void cancel() {
+        if (this == NONE || cancelled) {
+            return;
+        }
+        cancelled = true;
+        for (Statement st : running) {
+            try {
+                st.cancel();
+            } catch (SQLException e) {
+                Log.warn("QueryCanceller", "Could not cancel statement: " + e.getMessage());
+            }
+        }
+        running.clear();
+        for (QueryCanceller child : children) {
+            child.cancel();
+        }
+        children.clear();
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
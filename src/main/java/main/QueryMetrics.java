@@ -0,0 +1,494 @@
+package main;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * QueryMetrics
+ *
+ * Timing and row counts for every statement run through the connection pool,
+ * keyed by a logical query name.
+ *
+ * - PooledConnection wraps each Statement it hands out; callers need no changes.
+ * - The logical name is the calling method plus the SQL verb, e.g.
+ *   "DashboardService.loadKpis:SELECT" (lambdas are reported as their enclosing
+ *   method; shared helpers in HELPERS are skipped so their callers are named).
+ * - Names are remembered per calling class and SQL text. A repeated query costs a
+ *   short walk to its first application frame (classes only) and a map lookup;
+ *   the full stack walk that resolves the method runs once per class and text.
+ * - A query's latency runs from execute until its ResultSet is exhausted or
+ *   closed, so it includes fetching the rows, not just the first step.
+ * - Latencies go into lock-free log-scale histograms (four buckets per power of
+ *   two, ~19% resolution) that give p50/p95/p99 without keeping samples.
+ * - snapshot() returns an immutable copy sorted by total time; reset() clears.
+ *   summary() lists the queries with the most total time; App logs it on exit.
+ * - Executions over the SlowQueryLog threshold are also handed to SlowQueryLog,
+ *   with the types of their bound parameters.
+ *
+ * Configuration (JVM system property):
+ * - lamesa.db.metrics  "false" disables the instrumentation (default true)
+ */
+public final class QueryMetrics {
+
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("lamesa.db.metrics", "true"));
+
+    // Generic query helpers; their callers are the meaningful names
+    private static final Set<String> HELPERS = Set.of("AnalyticsDAO.query");
+
+    // Infrastructure classes between the caller and the driver
+    private static final Set<String> INFRASTRUCTURE = Set.of(
+            "main.QueryMetrics", "main.PooledConnection", "main.StatementCache", "main.Database");
+
+    private static final ConcurrentHashMap<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    // Calling class -> SQL text -> logical name. Bounded per class so SQL built with literals
+    // cannot grow it forever; texts beyond the bound are resolved on every execution.
+    private static final int MAX_NAMES_PER_CLASS = 256;
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, String>> NAMES = new ConcurrentHashMap<>();
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /**
+     * Figures for one logical query, as of snapshot().
+     */
+    public static final class QueryStats {
+        public final String name;
+        public final long count;
+        public final long errors;
+        public final long rows;
+        public final double totalMs;
+        public final double p50Ms;
+        public final double p95Ms;
+        public final double p99Ms;
+        public final double maxMs;
+
+        QueryStats(String name, long count, long errors, long rows, double totalMs,
+                   double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalMs = totalMs;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-50s n=%d err=%d rows=%d total=%.1fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    name, count, errors, rows, totalMs, p50Ms, p95Ms, p99Ms, maxMs);
+        }
+    }
+
+    private QueryMetrics() {
+    }
+
+    // ==================== PUBLIC API ====================
+
+    /**
+     * Current figures for every query seen since start or the last reset(),
+     * most total time first.
+     */
+    public static List<QueryStats> snapshot() {
+        List<QueryStats> out = new ArrayList<>();
+        STATS.forEach((name, s) -> out.add(s.toStats(name)));
+        out.sort(Comparator.comparingDouble((QueryStats q) -> q.totalMs).reversed());
+        return out;
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * The top queries by total time, one per line.
+     */
+    public static String summary(int top) {
+        List<QueryStats> all = snapshot();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(top, all.size()); i++) {
+            sb.append(System.lineSeparator()).append("  ").append(all.get(i));
+        }
+        return all.size() + " queries" + sb;
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Wrap a statement handed out by the pool so its executions are measured.
+     *
+     * @param type the Statement interface the caller asked for
+     * @param sql  the SQL it was prepared with, or null for a plain Statement
+     */
+    static Statement instrument(Statement statement, Class<?> type, String sql) {
+        if (!ENABLED || !Statement.class.isAssignableFrom(type)) {
+            return statement;
+        }
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[] { type },
+                new TimedStatement(statement, sql));
+    }
+
+    static void record(String name, long nanos, long rows, boolean failed) {
+        STATS.computeIfAbsent(name, k -> new Stats()).add(nanos, rows, failed);
+    }
+
+    /**
+     * Logical name of an execution of sql; call from the thread that executes it.
+     */
+    private static String queryName(String sql) {
+        Class<?> site = callerClass();
+        if (site == null || sql == null) {
+            return caller() + ":" + verb(sql);
+        }
+        ConcurrentHashMap<String, String> names = NAMES.computeIfAbsent(site, k -> new ConcurrentHashMap<>());
+        String name = names.get(sql);
+        if (name == null) {
+            name = caller() + ":" + verb(sql);
+            if (names.size() < MAX_NAMES_PER_CLASS) {
+                names.putIfAbsent(sql, name);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Class of the first application frame above the JDBC plumbing, or null.
+     */
+    private static Class<?> callerClass() {
+        return WALKER.walk(frames -> frames
+                .map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(c -> c.getName().startsWith("main.") && !isInfrastructure(c.getName()))
+                .findFirst()
+                .orElse(null));
+    }
+
+    /**
+     * "Class.method" of the first application frame above the JDBC plumbing.
+     */
+    private static String caller() {
+        return WALKER.walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("main.") && !isInfrastructure(f.getClassName()))
+                .map(f -> simpleName(f.getClassName()) + "." + enclosingMethod(f.getMethodName()))
+                .filter(name -> !HELPERS.contains(name))
+                .findFirst()
+                .orElse("unknown"));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        int nested = className.indexOf('$');
+        return INFRASTRUCTURE.contains(nested < 0 ? className : className.substring(0, nested));
+    }
+
+    private static String simpleName(String className) {
+        String name = className.substring("main.".length());
+        int nested = name.indexOf('$');
+        return nested < 0 ? name : name.substring(0, nested);
+    }
+
+    // "lambda$loadFirstLogin$2" -> "loadFirstLogin"
+    private static String enclosingMethod(String method) {
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            return end < 0 ? method : method.substring("lambda$".length(), end);
+        }
+        return method;
+    }
+
+    private static String verb(String sql) {
+        if (sql == null) {
+            return "SQL";
+        }
+        String s = sql.trim();
+        int end = 0;
+        while (end < s.length() && Character.isLetter(s.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "SQL" : s.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    // ==================== HISTOGRAM ====================
+
+    /**
+     * Counters and latency histogram for one logical query.
+     */
+    private static final class Stats {
+        private static final int BUCKETS = 4 * 62;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private volatile long maxNanos = 0;
+
+        void add(long nanos, long rowCount, boolean failed) {
+            count.increment();
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+            if (nanos > maxNanos) {
+                maxNanos = nanos;   // racy but only ever grows close to the true max
+            }
+            buckets.incrementAndGet(bucket(Math.max(1, nanos / 1000)));
+        }
+
+        QueryStats toStats(String name) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            // Bucket bounds can overshoot the largest sample; never report more than it
+            double maxMs = maxNanos / 1e6;
+            return new QueryStats(name, count.sum(), errors.sum(), rows.sum(), totalNanos.sum() / 1e6,
+                    Math.min(maxMs, percentile(counts, total, 0.50)),
+                    Math.min(maxMs, percentile(counts, total, 0.95)),
+                    Math.min(maxMs, percentile(counts, total, 0.99)), maxMs);
+        }
+
+        // Upper bound of the bucket holding the given fraction of samples, in ms
+        private static double percentile(long[] counts, long total, double fraction) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundMicros(i) / 1000.0;
+                }
+            }
+            return upperBoundMicros(counts.length - 1) / 1000.0;
+        }
+
+        // Values below 4 us get their own bucket; above, four buckets per power of two
+        private static int bucket(long micros) {
+            if (micros < 4) {
+                return (int) micros;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >> (exp - 2)) & 3;
+            return Math.min(BUCKETS - 1, 4 * (exp - 1) + sub);
+        }
+
+        private static long upperBoundMicros(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int exp = bucket / 4 + 1;
+            int sub = bucket % 4;
+            return ((5L + sub) << (exp - 2)) - 1;
+        }
+    }
+
+    // ==================== PROXIES ====================
+
+    /**
+     * Times executions of one statement. A query is recorded when its result set
+     * is exhausted or closed, or when the statement is closed or re-executed.
+     */
+    private static final class TimedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+
+        // The query whose rows are still being read, if any
+        private TimedResultSet pending;
+
+        // Type of each bound parameter (1-based), for the slow query log
+        private String[] parameterTypes = new String[0];
+
+        TimedStatement(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    finishPending();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            boolean executes = name.startsWith("execute");
+            if (!executes) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bind((Integer) args[0], name.equals("setNull") || args[1] == null
+                            ? "null" : args[1].getClass().getSimpleName());
+                } else if (name.equals("clearParameters")) {
+                    parameterTypes = new String[0];
+                }
+                return forward(method, args);
+            }
+
+            finishPending();
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            String queryName = queryName(sql);
+            long start = System.nanoTime();
+
+            Object result;
+            try {
+                result = forward(method, args);
+            } catch (Throwable t) {
+                finish(queryName, sql, System.nanoTime() - start, 0, true);
+                throw t;
+            }
+
+            if (result instanceof ResultSet) {
+                pending = new TimedResultSet(this, (ResultSet) result, queryName, sql, start);
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                        new Class<?>[] { ResultSet.class }, pending);
+            }
+
+            long elapsed = System.nanoTime() - start;
+            long rows = 0;
+            if (result instanceof Integer) {
+                rows = (Integer) result;
+            } else if (result instanceof Long) {
+                rows = (Long) result;
+            } else if (result instanceof int[]) {
+                for (int n : (int[]) result) {
+                    rows += Math.max(0, n);
+                }
+            }
+            finish(queryName, sql, elapsed, rows, false);
+            return result;
+        }
+
+        void finish(String queryName, String sql, long nanos, long rows, boolean failed) {
+            record(queryName, nanos, rows, failed);
+            if (SlowQueryLog.isSlow(nanos)) {
+                SlowQueryLog.report(queryName, sql, parameterShape(), nanos, rows);
+            }
+        }
+
+        private void bind(int index, String type) {
+            if (index < 1 || index > 999) {
+                return;
+            }
+            if (index > parameterTypes.length) {
+                parameterTypes = Arrays.copyOf(parameterTypes, index);
+            }
+            parameterTypes[index - 1] = type;
+        }
+
+        // e.g. "(String, Long)"; unbound positions show as "?"
+        private String parameterShape() {
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(parameterTypes[i] == null ? "?" : parameterTypes[i]);
+            }
+            return sb.append(')').toString();
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void finishPending() {
+            if (pending != null) {
+                pending.finish(false);
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Counts the rows read from one query and records it once when done.
+     */
+    private static final class TimedResultSet implements InvocationHandler {
+        private final TimedStatement owner;
+        private final ResultSet resultSet;
+        private final String queryName;
+        private final String sql;
+        private final long start;
+        private long rows = 0;
+        private boolean done = false;
+
+        TimedResultSet(TimedStatement owner, ResultSet resultSet, String queryName, String sql, long start) {
+            this.owner = owner;
+            this.resultSet = resultSet;
+            this.queryName = queryName;
+            this.sql = sql;
+            this.start = start;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                if (!done && e.getCause() instanceof SQLException) {
+                    finish(true);
+                }
+                throw e.getCause();
+            }
+
+            if (name.equals("next")) {
+                if ((Boolean) result) {
+                    rows++;
+                } else {
+                    finish(false);
+                }
+            } else if (name.equals("close")) {
+                finish(false);
+            }
+            return result;
+        }
+
+        void finish(boolean failed) {
+            if (!done) {
+                done = true;
+                owner.finish(queryName, sql, System.nanoTime() - start, rows, failed);
+            }
+        }
+    }
+}
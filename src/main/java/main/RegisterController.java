@@ -38,8 +38,6 @@ public class RegisterController {
     private boolean isPasswordVisible = false;
     private boolean isConfirmPasswordVisible = false;
 
-    // Database configuration and table DDL
-    private static final String DB_URL = "jdbc:sqlite:database/lamesa.db";
   
     /**
      * Constructor - checks if database exists on controller load.
@@ -49,16 +47,17 @@ public class RegisterController {
     }
 
     /**
-     * Checks if the database file exists.
+     * Checks if the database file exists (in the background).
      */
     private void checkDatabase() {
-        try {
-            Connection conn = DriverManager.getConnection(DB_URL);
+        DbExecutor.run(() -> {
+            Connection conn = Database.getConnection();
             conn.close();
-            System.out.println("[RegisterController] Database exists.");
-        } catch (SQLException e) {
-            System.err.println("[RegisterController] Database check failed: " + e.getMessage());
-        }
+            Log.info("RegisterController", "Database exists.");
+        }).exceptionally(e -> {
+            Log.error("RegisterController", "Database check failed: " + DbExecutor.rootCause(e).getMessage());
+            return null;
+        });
     }
 
     /**
@@ -67,11 +66,11 @@ public class RegisterController {
      */
     @FXML
     private void switchToLogin() {
-        System.out.println("[RegisterController] switchToLogin()");
+        Log.info("RegisterController", "switchToLogin()");
         try {
             App.setRoot("login");
         } catch (Exception e) {
-            e.printStackTrace();
+            Log.error("RegisterController", "Unable to switch to login", e);
             showAlert(Alert.AlertType.ERROR, "Navigation error", "Unable to switch to login: " + e.getMessage());
         }
     }
@@ -139,7 +138,7 @@ public class RegisterController {
         String password = getPasswordInput();
         String confirm = getConfirmPasswordInput();
 
-        System.out.println("[RegisterController] registerUser for '" + username + "'");
+        Log.info("RegisterController", "registerUser for '" + username + "'");
 
         // 1. Validate inputs; validateInputs returns null when valid, or an error message.
         String validationError = validateInputs(username, password, confirm);
@@ -148,16 +147,51 @@ public class RegisterController {
             return;
         }
 
-        // 2. Database operations (check then insert)
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+        // 2. Database operations (check then insert) run off the FX thread;
+        //    the callback runs on the JavaFX Application Thread.
+        DbExecutor.supply(() -> insertUser(username, password))
+            .thenAccept(created -> {
+                if (!created) {
+                    showAlert(Alert.AlertType.ERROR, "Registration failed", "Username already exists.");
+                    return;
+                }
+
+                // Inform user and navigate into the app
+                showAlert(Alert.AlertType.INFORMATION, "Registration successful", "Account created. Signing you in...");
+                try {
+                    App.setRoot("choice");
+                } catch (Exception e) {
+                    Log.error("RegisterController", "Unable to open main application", e);
+                    showAlert(Alert.AlertType.ERROR, "Navigation error", "Unable to open main application: " + e.getMessage());
+                }
+            })
+            .exceptionally(e -> {
+                Throwable cause = DbExecutor.rootCause(e);
+                Log.error("RegisterController", "Registration failed", cause);
+                if (cause instanceof NoSuchAlgorithmException) {
+                    showAlert(Alert.AlertType.ERROR, "Encryption error", "Unable to process the password hash.");
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Database error", "An error occurred while accessing the database.");
+                }
+                return null;
+            });
+
+    }
+
+    /**
+     * Insert the new user unless the username is taken (runs on a DbExecutor thread).
+     *
+     * @return false when the username already exists
+     */
+    private boolean insertUser(String username, String password) throws SQLException, NoSuchAlgorithmException {
+        try (Connection conn = Database.getConnection()) {
             // Check if username already exists
             String checkSql = "SELECT COUNT(1) AS cnt FROM users WHERE username = ?";
             try (PreparedStatement ps = conn.prepareStatement(checkSql)) {
                 ps.setString(1, username);
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next() && rs.getInt("cnt") > 0) {
-                        showAlert(Alert.AlertType.ERROR, "Registration failed", "Username already exists.");
-                        return;
+                        return false;
                     }
                 }
             }
@@ -169,28 +203,8 @@ public class RegisterController {
                 ps.setString(2, hashPassword(password)); // Hash with SHA-256 (not ideal for prod)
                 ps.executeUpdate();
             }
-
-            // Inform user and navigate into the app
-            showAlert(Alert.AlertType.INFORMATION, "Registration successful", "Account created. Signing you in...");
-
-            // Platform.runLater to ensure navigation occurs on the JavaFX Application Thread.
-            Platform.runLater(() -> {
-                try {
-                    App.setRoot("choice");
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    showAlert(Alert.AlertType.ERROR, "Navigation error", "Unable to open main application: " + e.getMessage());
-                }
-            });
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Database error", "An error occurred while accessing the database.");
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Encryption error", "Unable to process the password hash.");
         }
-
+        return true;
     }
 
     /**
@@ -0,0 +1,69 @@
+package main;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * RotatingFile
+ *
+ * Append-only text file for diagnostics logs that must not grow without bound.
+ *
+ * - Before an append that would pass maxBytes, the file is renamed to .1, the
+ *   previous .1 to .2 and so on; the oldest beyond maxFiles is dropped.
+ * - append() is synchronized and opens the file per call: the logs using it are
+ *   written rarely, and this keeps no handle open between writes.
+ */
+final class RotatingFile {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+
+    RotatingFile(Path file, long maxBytes, int maxFiles) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    Path path() {
+        return file;
+    }
+
+    synchronized void append(String text) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        if (Files.exists(file) && Files.size(file) + text.length() > maxBytes) {
+            rotate();
+        }
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            w.write(text);
+        }
+    }
+
+    // file -> .1 -> .2 ... ; the oldest falls off
+    private void rotate() throws IOException {
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path from = sibling(i);
+            if (Files.exists(from)) {
+                Files.move(from, sibling(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles >= 1) {
+            Files.move(file, sibling(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    private Path sibling(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
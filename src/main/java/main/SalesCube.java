@@ -0,0 +1,584 @@
+package main;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * SalesCube
+ *
+ * In-memory columnar copy of the sales table for slice-and-dice analytics.
+ *
+ * - One primitive array per column: day (epoch day), month (year * 12 + month - 1),
+ *   meal_id, category_id, type_id, quantity and price in cents (rounded by SQLite,
+ *   like the rollups' revenue_cents). No per-row objects.
+ * - Kept current incrementally: refresh() appends only sales with a sale_id above
+ *   the highest one already loaded. The meal dimension is re-read only when the
+ *   meal_version counter (SchemaMigrator V4) moved, so a meal moved to another
+ *   category/type is reflected in every row without reading meal on every call.
+ * - aggregate(groupBy, filter) answers any group-by over day/month/year/meal/
+ *   category/type, filtered by date range, category, type and meal, with one
+ *   tight loop over the int/long arrays into dense accumulators.
+ * - Cold start: the first refresh() reads the columns from the SalesSnapshot file
+ *   (if it is still current for the database) and only fetches newer sales over
+ *   JDBC; those are then appended to the snapshot.
+ * - Large cubes are aggregated in parallel: rows are split into partitions on the
+ *   common ForkJoinPool and the partial sums merged.
+ * - Thread safe: refresh and aggregate are synchronized (an aggregate over a
+ *   million rows takes milliseconds).
+ *
+ * Sales are only ever appended; edits or deletes of existing sales rows are not
+ * picked up by a running cube (deleted rows are caught by the snapshot check at
+ * the next start).
+ *
+ * Configuration (JVM system property):
+ * - lamesa.analytics.parallelThreshold  rows from which aggregates run in parallel (default 200000)
+ */
+public final class SalesCube {
+
+    /**
+     * Dimension to group by.
+     */
+    public enum GroupBy { DAY, MONTH, YEAR, MEAL, CATEGORY, TYPE }
+
+    /**
+     * Row filter. Null fields match everything.
+     */
+    public static final class Filter {
+        final TimeRange range;
+        final Integer categoryId;
+        final Integer typeId;
+        final Integer mealId;
+
+        public Filter(TimeRange range, Integer categoryId, Integer typeId, Integer mealId) {
+            this.range = range;
+            this.categoryId = categoryId;
+            this.typeId = typeId;
+            this.mealId = mealId;
+        }
+
+        public static Filter all() {
+            return new Filter(null, null, null, null);
+        }
+
+        public static Filter range(TimeRange range) {
+            return new Filter(range, null, null, null);
+        }
+    }
+
+    /**
+     * Result of an aggregate: one entry per group that had at least one sale,
+     * ordered by key. Revenue is in cents, so sums are exact.
+     */
+    public static final class Grouped {
+        public final int[] keys;
+        public final long[] quantity;
+        public final long[] revenueCents;
+        public final long[] orders;
+
+        Grouped(int[] keys, long[] quantity, long[] revenueCents, long[] orders) {
+            this.keys = keys;
+            this.quantity = quantity;
+            this.revenueCents = revenueCents;
+            this.orders = orders;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+    }
+
+    private static final SalesCube SHARED = new SalesCube();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Below this many rows a single-threaded scan beats forking
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("lamesa.analytics.parallelThreshold", 200_000);
+    private static final int PARTITION_ROWS = 64 * 1024;
+
+    // Columns; rows [0, size) are valid
+    private int[] day = new int[INITIAL_CAPACITY];
+    private int[] month = new int[INITIAL_CAPACITY];
+    private int[] meal = new int[INITIAL_CAPACITY];
+    private int[] category = new int[INITIAL_CAPACITY];
+    private int[] type = new int[INITIAL_CAPACITY];
+    private int[] quantity = new int[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Key bounds of the loaded rows, so aggregates can size their accumulators without a scan
+    private int minDaySeen = Integer.MAX_VALUE;
+    private int maxDaySeen = Integer.MIN_VALUE;
+    private int maxMealSeen = 0;
+
+    // Highest sale_id loaded so far
+    private long highWaterMark = 0;
+
+    // On-disk copy of the columns; null when disabled
+    private final SalesSnapshot snapshot;
+    private boolean started = false;
+    private boolean snapshotStale = true;
+
+    // Meal dimension: meal_id -> category/type/name (0 / null when unknown),
+    // as of meal_version mealVersion (-1 = not loaded, or no counter to compare)
+    private long mealVersion = -1;
+    private int[] mealCategory = new int[0];
+    private int[] mealType = new int[0];
+    private final Map<Integer, String> mealNames = new HashMap<>();
+
+    SalesCube(SalesSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    private SalesCube() {
+        this(SalesSnapshot.forDatabase());
+    }
+
+    /**
+     * The cube shared by the Analytics page.
+     */
+    public static SalesCube shared() {
+        return SHARED;
+    }
+
+    /**
+     * Load sales added since the last refresh (all sales on the first call).
+     *
+     * @return the number of rows appended
+     */
+    public synchronized int refresh(QueryCanceller canceller) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            long version = mealVersion(conn);
+            boolean dimensionChanged = false;
+            if (version < 0 || version != mealVersion) {
+                dimensionChanged = loadMeals(conn, canceller);
+                mealVersion = version;
+            }
+            if (dimensionChanged) {
+                // Re-derive the denormalized columns for rows already loaded
+                for (int i = 0; i < size; i++) {
+                    category[i] = categoryOf(meal[i]);
+                    type[i] = typeOf(meal[i]);
+                }
+            }
+            if (!started) {
+                started = true;
+                loadSnapshot(conn);
+            }
+
+            int first = size;
+            int added = loadSales(conn, canceller);
+            if (added > 0 || snapshotStale) {
+                saveSnapshot(first);
+            }
+            return added;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long highWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Name of a meal, or null when the meal no longer exists.
+     */
+    public synchronized String mealName(int mealId) {
+        return mealNames.get(mealId);
+    }
+
+    /**
+     * Group the filtered rows and sum quantity, revenue and order count per group.
+     * Large cubes are split into row partitions that are aggregated in parallel on
+     * the common ForkJoinPool and merged; sums are integers, so the result is the
+     * same whichever way the rows were split.
+     */
+    public synchronized Grouped aggregate(GroupBy groupBy, Filter filter) {
+        if (size == 0) {
+            return new Grouped(new int[0], new long[0], new long[0], new long[0]);
+        }
+
+        Scan scan = new Scan(groupBy, filter);
+        Partial total;
+        if (size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            total = ForkJoinPool.commonPool().invoke(new PartitionTask(scan, 0, size));
+        } else {
+            total = scan.run(0, size);
+        }
+        return compact(scan.minKey, total);
+    }
+
+    /**
+     * The meal_version counter, which changes whenever a meal is added, removed,
+     * renamed or re-categorized; -1 when the database has no counter (not migrated).
+     */
+    static long mealVersion(Connection conn) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT version FROM meal_version WHERE id = 1");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Convert a MONTH group key back to "yyyy-MM".
+     */
+    public static String monthKeyToString(int key) {
+        return String.format("%04d-%02d", key / 12, key % 12 + 1);
+    }
+
+    // ==================== LOADING ====================
+
+    private boolean loadMeals(Connection conn, QueryCanceller canceller) throws SQLException {
+        String sql = "SELECT meal_id, name, COALESCE(category_id, 0), COALESCE(type_id, 0) FROM meal";
+        Map<Integer, String> names = new HashMap<>();
+        int[] cats = new int[0];
+        int[] types = new int[0];
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            canceller.register(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (id >= cats.length) {
+                        cats = Arrays.copyOf(cats, Math.max(id + 1, cats.length * 2));
+                        types = Arrays.copyOf(types, cats.length);
+                    }
+                    names.put(id, rs.getString(2));
+                    cats[id] = rs.getInt(3);
+                    types[id] = rs.getInt(4);
+                }
+            } finally {
+                canceller.unregister(ps);
+            }
+        }
+
+        boolean changed = !sameDimension(cats, mealCategory) || !sameDimension(types, mealType);
+        mealCategory = cats;
+        mealType = types;
+        mealNames.clear();
+        mealNames.putAll(names);
+        return changed;
+    }
+
+    private void loadSnapshot(Connection conn) throws SQLException {
+        if (snapshot == null) {
+            return;
+        }
+        SalesSnapshot.Columns c = snapshot.read();
+        if (c == null) {
+            return;
+        }
+        if (!SalesSnapshot.isCurrent(conn, c)) {
+            Log.info("SalesCube", "Snapshot " + snapshot.file() + " is out of date, rebuilding");
+            return;
+        }
+
+        int n = c.rows;
+        int capacity = Math.max(INITIAL_CAPACITY, n);
+        day = Arrays.copyOf(c.day, capacity);
+        meal = Arrays.copyOf(c.meal, capacity);
+        quantity = Arrays.copyOf(c.quantity, capacity);
+        priceCents = Arrays.copyOf(c.priceCents, capacity);
+        month = new int[capacity];
+        category = new int[capacity];
+        type = new int[capacity];
+
+        // Sales are roughly in date order, so the month only needs computing when the day changes
+        int lastDay = Integer.MIN_VALUE;
+        int lastMonth = 0;
+        for (int i = 0; i < n; i++) {
+            if (day[i] != lastDay) {
+                lastDay = day[i];
+                lastMonth = monthKey(lastDay);
+            }
+            month[i] = lastMonth;
+            category[i] = categoryOf(meal[i]);
+            type[i] = typeOf(meal[i]);
+            trackBounds(day[i], meal[i]);
+        }
+        size = n;
+        highWaterMark = c.highWaterMark;
+        snapshotStale = false;
+        Log.info("SalesCube", "Loaded " + n + " sales from " + snapshot.file());
+    }
+
+    // Write failures only cost the next cold start; analytics keep working
+    private void saveSnapshot(int first) {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            if (snapshotStale) {
+                snapshot.rewrite(day, meal, quantity, priceCents, size, highWaterMark);
+            } else {
+                snapshot.append(day, meal, quantity, priceCents, first, size, highWaterMark);
+            }
+            snapshotStale = false;
+        } catch (IOException e) {
+            Log.error("SalesCube", "Could not write snapshot " + snapshot.file() + ": " + e.getMessage());
+        }
+    }
+
+    private int loadSales(Connection conn, QueryCanceller canceller) throws SQLException {
+        // Cents rounded by SQLite, exactly as the rollups' revenue_cents (SchemaMigrator V6)
+        String sql = "SELECT sale_id, date(sale_date), meal_id, quantity, CAST(ROUND(total_price * 100) AS INTEGER) "
+                   + "FROM sales WHERE sale_id > ? ORDER BY sale_id";
+        int added = 0;
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, highWaterMark);
+            canceller.register(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    LocalDate d = LocalDate.parse(rs.getString(2));
+                    append(d, rs.getInt(3), rs.getInt(4), rs.getLong(5));
+                    highWaterMark = rs.getLong(1);
+                    added++;
+                }
+            } finally {
+                canceller.unregister(ps);
+            }
+        }
+
+        if (added > 0) {
+            Log.info("SalesCube", "Loaded " + added + " sales (" + size + " rows, up to sale_id " + highWaterMark + ")");
+        }
+        return added;
+    }
+
+    private void append(LocalDate d, int mealId, int qty, long cents) {
+        if (size == day.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, day.length * 2);
+            day = Arrays.copyOf(day, capacity);
+            month = Arrays.copyOf(month, capacity);
+            meal = Arrays.copyOf(meal, capacity);
+            category = Arrays.copyOf(category, capacity);
+            type = Arrays.copyOf(type, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+        }
+        int epochDay = (int) d.toEpochDay();
+        day[size] = epochDay;
+        month[size] = monthKey(epochDay);
+        meal[size] = mealId;
+        category[size] = categoryOf(mealId);
+        type[size] = typeOf(mealId);
+        quantity[size] = qty;
+        priceCents[size] = cents;
+        size++;
+        trackBounds(epochDay, mealId);
+    }
+
+    private void trackBounds(int epochDay, int mealId) {
+        if (epochDay < minDaySeen) minDaySeen = epochDay;
+        if (epochDay > maxDaySeen) maxDaySeen = epochDay;
+        if (mealId > maxMealSeen) maxMealSeen = mealId;
+    }
+
+    private static int monthKey(int epochDay) {
+        LocalDate d = LocalDate.ofEpochDay(epochDay);
+        return d.getYear() * 12 + d.getMonthValue() - 1;
+    }
+
+    private static int max(int[] values) {
+        int m = 0;
+        for (int v : values) {
+            if (v > m) m = v;
+        }
+        return m;
+    }
+
+    private int categoryOf(int mealId) {
+        return mealId >= 0 && mealId < mealCategory.length ? mealCategory[mealId] : 0;
+    }
+
+    private int typeOf(int mealId) {
+        return mealId >= 0 && mealId < mealType.length ? mealType[mealId] : 0;
+    }
+
+    private static boolean sameDimension(int[] a, int[] b) {
+        int n = Math.max(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int x = i < a.length ? a[i] : 0;
+            int y = i < b.length ? b[i] : 0;
+            if (x != y) return false;
+        }
+        return true;
+    }
+
+    // ==================== AGGREGATION ====================
+
+    private int[] keyColumn(GroupBy groupBy) {
+        switch (groupBy) {
+            case DAY:      return day;
+            case MONTH:
+            case YEAR:     return month;
+            case MEAL:     return meal;
+            case CATEGORY: return category;
+            case TYPE:     return type;
+            default:       throw new IllegalArgumentException("Unknown group: " + groupBy);
+        }
+    }
+
+    private static Grouped compact(int minKey, Partial p) {
+        int groups = 0;
+        for (long c : p.orders) {
+            if (c > 0) groups++;
+        }
+
+        int[] keys = new int[groups];
+        long[] q = new long[groups];
+        long[] r = new long[groups];
+        long[] o = new long[groups];
+        int j = 0;
+        for (int slot = 0; slot < p.orders.length; slot++) {
+            if (p.orders[slot] > 0) {
+                keys[j] = slot + minKey;
+                q[j] = p.quantity[slot];
+                r[j] = p.revenueCents[slot];
+                o[j] = p.orders[slot];
+                j++;
+            }
+        }
+        return new Grouped(keys, q, r, o);
+    }
+
+    /**
+     * Dense per-key sums for one partition of rows.
+     */
+    private static final class Partial {
+        final long[] quantity;
+        final long[] revenueCents;
+        final long[] orders;
+
+        Partial(int width) {
+            quantity = new long[width];
+            revenueCents = new long[width];
+            orders = new long[width];
+        }
+
+        Partial merge(Partial other) {
+            for (int k = 0; k < orders.length; k++) {
+                quantity[k] += other.quantity[k];
+                revenueCents[k] += other.revenueCents[k];
+                orders[k] += other.orders[k];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One aggregate request: the filter, the key space and the columns it reads.
+     * Holds its own references to the arrays, so partitions can run on pool
+     * threads while aggregate() keeps the cube locked.
+     */
+    private final class Scan {
+        final int[] keyColumn;
+        final boolean byYear;
+        final int minKey;
+        final int width;
+        final int minDay;
+        final int maxDay;
+        final int cat;
+        final int typ;
+        final int mea;
+
+        final int[] day = SalesCube.this.day;
+        final int[] meal = SalesCube.this.meal;
+        final int[] category = SalesCube.this.category;
+        final int[] type = SalesCube.this.type;
+        final int[] quantity = SalesCube.this.quantity;
+        final long[] priceCents = SalesCube.this.priceCents;
+
+        Scan(GroupBy groupBy, Filter filter) {
+            keyColumn = keyColumn(groupBy);
+            byYear = groupBy == GroupBy.YEAR;
+
+            int lo;
+            int hi;
+            switch (groupBy) {
+                case DAY:      lo = minDaySeen; hi = maxDaySeen; break;
+                case MONTH:    lo = monthKey(minDaySeen); hi = monthKey(maxDaySeen); break;
+                case YEAR:     lo = monthKey(minDaySeen) / 12; hi = monthKey(maxDaySeen) / 12; break;
+                case MEAL:     lo = 0; hi = maxMealSeen; break;
+                case CATEGORY: lo = 0; hi = max(mealCategory); break;
+                default:       lo = 0; hi = max(mealType); break;
+            }
+            minKey = lo;
+            width = hi - lo + 1;
+
+            if (filter.range != null) {
+                minDay = (int) filter.range.start.toEpochDay();
+                maxDay = (int) filter.range.end.toEpochDay() - 1;
+            } else {
+                minDay = Integer.MIN_VALUE;
+                maxDay = Integer.MAX_VALUE;
+            }
+            cat = filter.categoryId != null ? filter.categoryId : -1;
+            typ = filter.typeId != null ? filter.typeId : -1;
+            mea = filter.mealId != null ? filter.mealId : -1;
+        }
+
+        Partial run(int from, int to) {
+            Partial p = new Partial(width);
+            long[] qty = p.quantity;
+            long[] rev = p.revenueCents;
+            long[] cnt = p.orders;
+
+            for (int i = from; i < to; i++) {
+                int d = day[i];
+                if (d < minDay || d > maxDay) continue;
+                if (cat >= 0 && category[i] != cat) continue;
+                if (typ >= 0 && type[i] != typ) continue;
+                if (mea >= 0 && meal[i] != mea) continue;
+
+                int slot = (byYear ? keyColumn[i] / 12 : keyColumn[i]) - minKey;
+                qty[slot] += quantity[i];
+                rev[slot] += priceCents[i];
+                cnt[slot]++;
+            }
+            return p;
+        }
+    }
+
+    /**
+     * Splits a row range in halves until it is small enough to scan directly.
+     * Sales are appended in time order, so each partition is roughly a date range.
+     */
+    private static final class PartitionTask extends RecursiveTask<Partial> {
+        private final Scan scan;
+        private final int from;
+        private final int to;
+
+        PartitionTask(Scan scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= PARTITION_ROWS) {
+                return scan.run(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(scan, from, mid);
+            left.fork();
+            Partial right = new PartitionTask(scan, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * SalesSnapshot
+ *
+ * Binary columnar copy of the sales table kept next to the database file
+ * (database/lamesa.db -> database/lamesa.sales.col), so SalesCube can start from
+ * it instead of streaming every sales row through JDBC.
+ *
+ * - Layout: a 64 byte header (magic, version, row count, sale_id high-water mark,
+ *   end of data, block count) followed by blocks. Each block holds one run of rows
+ *   column by column: price cents (long[]), then day, meal_id and quantity (int[]).
+ * - Read with FileChannel.map; columns are bulk-copied out of the mapped buffer
+ *   straight into primitive arrays.
+ * - New sales are appended as a new block, then the header is updated, so a crash
+ *   mid-write leaves the previous contents valid. Past MAX_BLOCKS blocks the file
+ *   is rewritten as one block (via a temp file and an atomic move).
+ * - isCurrent() checks the snapshot against the database before it is used: the
+ *   database must hold exactly the snapshot's row count up to its high-water mark.
+ * - Little endian, independent of the platform.
+ *
+ * Configuration (JVM system property):
+ * - lamesa.analytics.snapshot  snapshot file path, or "off" (default: derived from lamesa.db.url)
+ */
+final class SalesSnapshot {
+
+    /**
+     * Columns read from the snapshot; arrays are exactly rows long.
+     */
+    static final class Columns {
+        final int rows;
+        final long highWaterMark;
+        final int[] day;
+        final int[] meal;
+        final int[] quantity;
+        final long[] priceCents;
+
+        Columns(int rows, long highWaterMark, int[] day, int[] meal, int[] quantity, long[] priceCents) {
+            this.rows = rows;
+            this.highWaterMark = highWaterMark;
+            this.day = day;
+            this.meal = meal;
+            this.quantity = quantity;
+            this.priceCents = priceCents;
+        }
+    }
+
+    private static final int MAGIC = 0x4C4D5343;   // "LMSC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int BLOCK_HEADER_BYTES = 8;
+    private static final int ROW_BYTES = 8 + 4 + 4 + 4;
+    private static final int MAX_BLOCKS = 64;
+
+    // Header field offsets
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_ROWS = 8;
+    private static final int OFF_MARK = 16;
+    private static final int OFF_DATA_END = 24;
+    private static final int OFF_BLOCKS = 32;
+
+    private final Path file;
+
+    // State of the file as last read or written
+    private long rows = 0;
+    private long dataEnd = HEADER_BYTES;
+    private int blocks = 0;
+
+    SalesSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * The snapshot for the configured database, or null when disabled or the
+     * database is not a file.
+     */
+    static SalesSnapshot forDatabase() {
+        String configured = System.getProperty("lamesa.analytics.snapshot");
+        if (configured != null) {
+            return "off".equalsIgnoreCase(configured) ? null : new SalesSnapshot(Paths.get(configured));
+        }
+
+        Path file = Database.getFile();
+        if (file == null) {
+            return null;
+        }
+        String db = file.toString();
+        String base = db.endsWith(".db") ? db.substring(0, db.length() - 3) : db;
+        return new SalesSnapshot(Paths.get(base + ".sales.col"));
+    }
+
+    Path file() {
+        return file;
+    }
+
+    /**
+     * Read the whole snapshot, or return null when it is missing or unreadable.
+     */
+    Columns read() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (map.getInt(OFF_MAGIC) != MAGIC || map.getInt(OFF_VERSION) != VERSION) {
+                Log.warn("SalesSnapshot", "Ignoring " + file + ": unknown format");
+                return null;
+            }
+            long total = map.getLong(OFF_ROWS);
+            long mark = map.getLong(OFF_MARK);
+            long end = map.getLong(OFF_DATA_END);
+            int blockCount = map.getInt(OFF_BLOCKS);
+            if (total < 0 || total > Integer.MAX_VALUE || end > size || end < HEADER_BYTES) {
+                Log.warn("SalesSnapshot", "Ignoring " + file + ": bad header");
+                return null;
+            }
+
+            int n = (int) total;
+            int[] day = new int[n];
+            int[] meal = new int[n];
+            int[] quantity = new int[n];
+            long[] cents = new long[n];
+
+            int filled = 0;
+            int pos = HEADER_BYTES;
+            for (int b = 0; b < blockCount; b++) {
+                if (pos + BLOCK_HEADER_BYTES > end) {
+                    return corrupt();
+                }
+                int count = map.getInt(pos);
+                pos += BLOCK_HEADER_BYTES;
+                if (count < 0 || filled + count > n || pos + (long) count * ROW_BYTES > end) {
+                    return corrupt();
+                }
+
+                column(map, pos, count).asLongBuffer().get(cents, filled, count);
+                pos += count * 8;
+                column(map, pos, count).asIntBuffer().get(day, filled, count);
+                pos += count * 4;
+                column(map, pos, count).asIntBuffer().get(meal, filled, count);
+                pos += count * 4;
+                column(map, pos, count).asIntBuffer().get(quantity, filled, count);
+                pos += count * 4;
+                filled += count;
+            }
+            if (filled != n || pos != end) {
+                return corrupt();
+            }
+
+            rows = n;
+            dataEnd = end;
+            blocks = blockCount;
+            return new Columns(n, mark, day, meal, quantity, cents);
+        } catch (IOException e) {
+            Log.error("SalesSnapshot", "Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether the database still holds exactly the rows the snapshot was built from.
+     * Both checks are rowid range reads.
+     */
+    static boolean isCurrent(Connection conn, Columns columns) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT COALESCE(MAX(sale_id), 0), (SELECT COUNT(*) FROM sales WHERE sale_id <= ?) FROM sales")) {
+            ps.setLong(1, columns.highWaterMark);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                return rs.getLong(1) >= columns.highWaterMark && rs.getLong(2) == columns.rows;
+            }
+        }
+    }
+
+    /**
+     * Add rows [from, to) of the given columns; rewrites the file instead when it
+     * has too many blocks or does not match what was last read or written.
+     */
+    void append(int[] day, int[] meal, int[] quantity, long[] cents, int from, int to, long highWaterMark)
+            throws IOException {
+        if (from != rows || blocks >= MAX_BLOCKS || !Files.isRegularFile(file)) {
+            rewrite(day, meal, quantity, cents, to, highWaterMark);
+            return;
+        }
+        if (from == to) {
+            return;
+        }
+
+        ByteBuffer block = encodeBlock(day, meal, quantity, cents, from, to);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            long end = dataEnd + block.remaining();
+            while (block.hasRemaining()) {
+                ch.write(block, dataEnd + block.position());
+            }
+            ch.force(false);
+
+            // Header last: until it lands, readers see the old, still valid contents
+            writeHeader(ch, to, highWaterMark, end, blocks + 1);
+            ch.force(false);
+
+            rows = to;
+            dataEnd = end;
+            blocks++;
+        }
+    }
+
+    /**
+     * Replace the file with rows [0, count) as a single block.
+     */
+    void rewrite(int[] day, int[] meal, int[] quantity, long[] cents, int count, long highWaterMark)
+            throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        ByteBuffer block = encodeBlock(day, meal, quantity, cents, 0, count);
+        long end = HEADER_BYTES + block.remaining();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(ch, count, highWaterMark, end, 1);
+            while (block.hasRemaining()) {
+                ch.write(block, HEADER_BYTES + block.position());
+            }
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        rows = count;
+        dataEnd = end;
+        blocks = 1;
+        Log.info("SalesSnapshot", "Wrote " + count + " rows to " + file);
+    }
+
+    private static ByteBuffer column(MappedByteBuffer map, int pos, int count) {
+        ByteBuffer dup = map.duplicate();
+        dup.position(pos);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer encodeBlock(int[] day, int[] meal, int[] quantity, long[] cents, int from, int to) {
+        int count = to - from;
+        ByteBuffer buf = ByteBuffer.allocate(BLOCK_HEADER_BYTES + count * ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(count).putInt(0);
+
+        buf.asLongBuffer().put(cents, from, count);
+        buf.position(buf.position() + count * 8);
+        buf.asIntBuffer().put(day, from, count);
+        buf.position(buf.position() + count * 4);
+        buf.asIntBuffer().put(meal, from, count);
+        buf.position(buf.position() + count * 4);
+        buf.asIntBuffer().put(quantity, from, count);
+        buf.position(buf.position() + count * 4);
+
+        buf.flip();
+        return buf;
+    }
+
+    private static void writeHeader(FileChannel ch, long rows, long mark, long end, int blocks) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(OFF_MAGIC, MAGIC);
+        header.putInt(OFF_VERSION, VERSION);
+        header.putLong(OFF_ROWS, rows);
+        header.putLong(OFF_MARK, mark);
+        header.putLong(OFF_DATA_END, end);
+        header.putInt(OFF_BLOCKS, blocks);
+        while (header.hasRemaining()) {
+            ch.write(header, header.position());
+        }
+    }
+
+    private Columns corrupt() {
+        Log.warn("SalesSnapshot", "Ignoring " + file + ": truncated or corrupt");
+        return null;
+    }
+}
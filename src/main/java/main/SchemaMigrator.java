@@ -0,0 +1,366 @@
+package main;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SchemaMigrator
+ *
+ * Brings database/lamesa.db up to the schema this build expects.
+ *
+ * - Applied versions are recorded in a schema_version table.
+ * - Migrations run in ascending version order, each in its own transaction
+ *   together with its schema_version row, so a failed migration leaves no trace.
+ * - Every statement is written to be idempotent (IF NOT EXISTS, etc.), so running
+ *   against a database that was patched by hand is safe.
+ * - Called once at startup, on a DbExecutor thread while App shows a progress
+ *   screen; the login screen appears only after it returns.
+ *
+ * To change the schema, append a new Migration to MIGRATIONS with the next version
+ * number. Never edit a migration that has already shipped.
+ */
+public final class SchemaMigrator {
+
+    /**
+     * A data change that needs Java rather than SQL. Runs inside its migration's transaction.
+     */
+    @FunctionalInterface
+    interface Step {
+        void run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * One schema change: a version number, a short description, an optional Step
+     * and its SQL statements. The Step runs first.
+     */
+    static final class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+        final Step step;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+            this.step = null;
+        }
+
+        Migration(int version, String description, Step step, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+            this.step = step;
+        }
+    }
+
+    // Trigger body fragments for the V2 sales rollups: add NEW / remove OLD from both tables
+    private static final String ROLLUP_ADD_NEW =
+          "INSERT INTO sales_daily (day, meal_id, quantity, revenue, orders) "
+        + "VALUES (date(NEW.sale_date), NEW.meal_id, NEW.quantity, NEW.total_price, 1) "
+        + "ON CONFLICT (day, meal_id) DO UPDATE SET "
+        + "quantity = quantity + excluded.quantity, revenue = revenue + excluded.revenue, orders = orders + 1; "
+        + "INSERT INTO sales_monthly (month, meal_id, quantity, revenue, orders) "
+        + "VALUES (strftime('%Y-%m', NEW.sale_date), NEW.meal_id, NEW.quantity, NEW.total_price, 1) "
+        + "ON CONFLICT (month, meal_id) DO UPDATE SET "
+        + "quantity = quantity + excluded.quantity, revenue = revenue + excluded.revenue, orders = orders + 1; ";
+
+    private static final String ROLLUP_SUBTRACT_OLD =
+          "UPDATE sales_daily SET quantity = quantity - OLD.quantity, revenue = revenue - OLD.total_price, orders = orders - 1 "
+        + "WHERE day = date(OLD.sale_date) AND meal_id = OLD.meal_id; "
+        + "DELETE FROM sales_daily WHERE day = date(OLD.sale_date) AND meal_id = OLD.meal_id AND orders <= 0; "
+        + "UPDATE sales_monthly SET quantity = quantity - OLD.quantity, revenue = revenue - OLD.total_price, orders = orders - 1 "
+        + "WHERE month = strftime('%Y-%m', OLD.sale_date) AND meal_id = OLD.meal_id; "
+        + "DELETE FROM sales_monthly WHERE month = strftime('%Y-%m', OLD.sale_date) AND meal_id = OLD.meal_id AND orders <= 0; ";
+
+    // V6: a sale's revenue in integer cents, rounded like SQLite's ROUND (half away from zero)
+    private static final String NEW_CENTS = "CAST(ROUND(NEW.total_price * 100) AS INTEGER)";
+    private static final String OLD_CENTS = "CAST(ROUND(OLD.total_price * 100) AS INTEGER)";
+
+    // V6 trigger body fragments for revenue_cents. They upsert as well, so they are correct
+    // whether they fire before or after the V2 rollup triggers on the same statement.
+    private static final String CENTS_ADD_NEW =
+          "INSERT INTO sales_daily (day, meal_id, revenue_cents) "
+        + "VALUES (date(NEW.sale_date), NEW.meal_id, " + NEW_CENTS + ") "
+        + "ON CONFLICT (day, meal_id) DO UPDATE SET revenue_cents = revenue_cents + excluded.revenue_cents; "
+        + "INSERT INTO sales_monthly (month, meal_id, revenue_cents) "
+        + "VALUES (strftime('%Y-%m', NEW.sale_date), NEW.meal_id, " + NEW_CENTS + ") "
+        + "ON CONFLICT (month, meal_id) DO UPDATE SET revenue_cents = revenue_cents + excluded.revenue_cents; ";
+
+    private static final String CENTS_SUBTRACT_OLD =
+          "UPDATE sales_daily SET revenue_cents = revenue_cents - " + OLD_CENTS + " "
+        + "WHERE day = date(OLD.sale_date) AND meal_id = OLD.meal_id; "
+        + "UPDATE sales_monthly SET revenue_cents = revenue_cents - " + OLD_CENTS + " "
+        + "WHERE month = strftime('%Y-%m', OLD.sale_date) AND meal_id = OLD.meal_id; ";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+
+        new Migration(1, "Secondary indexes for attendance, sales and inventory lookups",
+            // inventory: one row per meal. Older databases can hold duplicates; see mergeDuplicateInventory.
+            SchemaMigrator::mergeDuplicateInventory,
+            // attendance: latest row per user (EmployeeDAO, AttendanceUtils.recordLogin verify)
+            "CREATE INDEX IF NOT EXISTS idx_attendance_username_id ON attendance(username, id)",
+            // attendance: open session per user (AttendanceUtils.recordLogout, SettingsController)
+            "CREATE INDEX IF NOT EXISTS idx_attendance_username_logout ON attendance(username, logout_time)",
+            // attendance: first/last login per user (SettingsController member since, EmployeeDAO)
+            "CREATE INDEX IF NOT EXISTS idx_attendance_username_login ON attendance(username, login_time)",
+            // sales: date range filters grouped by meal, covering the summed columns
+            "CREATE INDEX IF NOT EXISTS idx_sales_date_meal ON sales(sale_date, meal_id, quantity, total_price)",
+            // sales: per-meal totals without a date filter (top meals, sales by product)
+            "CREATE INDEX IF NOT EXISTS idx_sales_meal ON sales(meal_id, quantity)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS ux_inventory_meal ON inventory(meal_id)"
+        ),
+
+        new Migration(2, "Daily and monthly sales rollups per meal, kept current by triggers",
+            // One row per (day, meal) and per (month, meal). day is 'yyyy-MM-dd', month is 'yyyy-MM',
+            // both taken from sales.sale_date, which is stored in local time.
+            "CREATE TABLE IF NOT EXISTS sales_daily ("
+                + "day TEXT NOT NULL, "
+                + "meal_id INTEGER NOT NULL, "
+                + "quantity INTEGER NOT NULL DEFAULT 0, "
+                + "revenue REAL NOT NULL DEFAULT 0, "
+                + "orders INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (day, meal_id)) WITHOUT ROWID",
+            "CREATE TABLE IF NOT EXISTS sales_monthly ("
+                + "month TEXT NOT NULL, "
+                + "meal_id INTEGER NOT NULL, "
+                + "quantity INTEGER NOT NULL DEFAULT 0, "
+                + "revenue REAL NOT NULL DEFAULT 0, "
+                + "orders INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (month, meal_id)) WITHOUT ROWID",
+
+            // Backfill from existing sales (rebuilt from scratch, so re-running is harmless)
+            "DELETE FROM sales_daily",
+            "INSERT INTO sales_daily (day, meal_id, quantity, revenue, orders) "
+                + "SELECT date(sale_date), meal_id, SUM(quantity), SUM(total_price), COUNT(*) "
+                + "FROM sales GROUP BY date(sale_date), meal_id",
+            "DELETE FROM sales_monthly",
+            "INSERT INTO sales_monthly (month, meal_id, quantity, revenue, orders) "
+                + "SELECT substr(day, 1, 7), meal_id, SUM(quantity), SUM(revenue), SUM(orders) "
+                + "FROM sales_daily GROUP BY substr(day, 1, 7), meal_id",
+
+            // Keep both rollups current on every insert, update and delete of a sale
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_rollup_insert AFTER INSERT ON sales "
+                + "BEGIN "
+                + ROLLUP_ADD_NEW
+                + "END",
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_rollup_delete AFTER DELETE ON sales "
+                + "BEGIN "
+                + ROLLUP_SUBTRACT_OLD
+                + "END",
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_rollup_update "
+                + "AFTER UPDATE OF meal_id, quantity, sale_date, total_price ON sales "
+                + "BEGIN "
+                + ROLLUP_SUBTRACT_OLD
+                + ROLLUP_ADD_NEW
+                + "END"
+        ),
+
+        new Migration(3, "Integer epoch timestamps for sales and attendance, kept in sync by triggers",
+            // Seconds since 1970-01-01 UTC. sale_date holds local time, login/logout_time hold UTC,
+            // so the epoch columns are the one representation that compares consistently.
+            // ALTER TABLE ... ADD COLUMN has no IF NOT EXISTS; schema_version guarantees it runs once.
+            "ALTER TABLE sales ADD COLUMN sale_ts INTEGER",
+            "ALTER TABLE attendance ADD COLUMN login_ts INTEGER",
+            "ALTER TABLE attendance ADD COLUMN logout_ts INTEGER",
+
+            // Backfill
+            "UPDATE sales SET sale_ts = CAST(strftime('%s', sale_date, 'utc') AS INTEGER)",
+            "UPDATE attendance SET login_ts = CAST(strftime('%s', login_time) AS INTEGER), "
+                + "logout_ts = CAST(strftime('%s', logout_time) AS INTEGER)",
+
+            // Writers that only set the text columns (defaults, other tools) still get epoch values
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_ts_insert AFTER INSERT ON sales "
+                + "WHEN NEW.sale_ts IS NULL "
+                + "BEGIN UPDATE sales SET sale_ts = CAST(strftime('%s', NEW.sale_date, 'utc') AS INTEGER) "
+                + "WHERE sale_id = NEW.sale_id; END",
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_ts_update AFTER UPDATE OF sale_date ON sales "
+                + "BEGIN UPDATE sales SET sale_ts = CAST(strftime('%s', NEW.sale_date, 'utc') AS INTEGER) "
+                + "WHERE sale_id = NEW.sale_id; END",
+            "CREATE TRIGGER IF NOT EXISTS trg_attendance_ts_insert AFTER INSERT ON attendance "
+                + "WHEN NEW.login_ts IS NULL OR (NEW.logout_time IS NOT NULL AND NEW.logout_ts IS NULL) "
+                + "BEGIN UPDATE attendance SET login_ts = CAST(strftime('%s', NEW.login_time) AS INTEGER), "
+                + "logout_ts = CAST(strftime('%s', NEW.logout_time) AS INTEGER) "
+                + "WHERE id = NEW.id; END",
+            "CREATE TRIGGER IF NOT EXISTS trg_attendance_ts_update AFTER UPDATE OF login_time, logout_time ON attendance "
+                + "BEGIN UPDATE attendance SET login_ts = CAST(strftime('%s', NEW.login_time) AS INTEGER), "
+                + "logout_ts = CAST(strftime('%s', NEW.logout_time) AS INTEGER) "
+                + "WHERE id = NEW.id; END",
+
+            // Range scans over the epoch columns
+            "CREATE INDEX IF NOT EXISTS idx_sales_ts ON sales(sale_ts, meal_id, quantity, total_price)",
+            "CREATE INDEX IF NOT EXISTS idx_attendance_username_login_ts ON attendance(username, login_ts)",
+            "DROP INDEX IF EXISTS idx_attendance_username_login",
+            "DROP INDEX IF EXISTS idx_sales_date_meal"
+        ),
+
+        new Migration(4, "Change counter for the meal table, bumped by triggers",
+            // Readers that keep meal names/categories in memory (SalesCube, AnalyticsCache)
+            // compare this one row instead of re-reading the meal table.
+            "CREATE TABLE IF NOT EXISTS meal_version ("
+                + "id INTEGER PRIMARY KEY CHECK (id = 1), "
+                + "version INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO meal_version (id, version) VALUES (1, 0)",
+            "CREATE TRIGGER IF NOT EXISTS trg_meal_version_insert AFTER INSERT ON meal "
+                + "BEGIN UPDATE meal_version SET version = version + 1; END",
+            "CREATE TRIGGER IF NOT EXISTS trg_meal_version_delete AFTER DELETE ON meal "
+                + "BEGIN UPDATE meal_version SET version = version + 1; END",
+            "CREATE TRIGGER IF NOT EXISTS trg_meal_version_update AFTER UPDATE OF name, category_id, type_id ON meal "
+                + "BEGIN UPDATE meal_version SET version = version + 1; END"
+        ),
+
+        // Copies the pictures into ImageStore and rewrites meal.image_path to "store:<sha256>"
+        new Migration(5, "Move meal pictures uploaded before the image store into it",
+            ImageStore::importUploads
+        ),
+
+        new Migration(6, "Integer-cent revenue in the sales rollups, kept current by triggers",
+            // AnalyticsDAO sums these so its totals equal SalesCube's, which adds the same
+            // rounded cents and divides once; summing the REAL revenue column can differ.
+            "ALTER TABLE sales_daily ADD COLUMN revenue_cents INTEGER NOT NULL DEFAULT 0",
+            "ALTER TABLE sales_monthly ADD COLUMN revenue_cents INTEGER NOT NULL DEFAULT 0",
+
+            // Backfill
+            "UPDATE sales_daily SET revenue_cents = c.cents FROM ("
+                + "SELECT date(sale_date) AS day, meal_id, SUM(CAST(ROUND(total_price * 100) AS INTEGER)) AS cents "
+                + "FROM sales GROUP BY date(sale_date), meal_id) AS c "
+                + "WHERE c.day = sales_daily.day AND c.meal_id = sales_daily.meal_id",
+            "UPDATE sales_monthly SET revenue_cents = c.cents FROM ("
+                + "SELECT substr(day, 1, 7) AS month, meal_id, SUM(revenue_cents) AS cents "
+                + "FROM sales_daily GROUP BY substr(day, 1, 7), meal_id) AS c "
+                + "WHERE c.month = sales_monthly.month AND c.meal_id = sales_monthly.meal_id",
+
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_cents_insert AFTER INSERT ON sales "
+                + "BEGIN "
+                + CENTS_ADD_NEW
+                + "END",
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_cents_delete AFTER DELETE ON sales "
+                + "BEGIN "
+                + CENTS_SUBTRACT_OLD
+                + "END",
+            "CREATE TRIGGER IF NOT EXISTS trg_sales_cents_update "
+                + "AFTER UPDATE OF meal_id, sale_date, total_price ON sales "
+                + "BEGIN "
+                + CENTS_SUBTRACT_OLD
+                + CENTS_ADD_NEW
+                + "END"
+        )
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Apply every migration newer than the database's current version.
+     *
+     * @return the schema version after migrating
+     * @throws SQLException when a migration fails (it is rolled back first)
+     */
+    public static int migrate() throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                        + "version INTEGER PRIMARY KEY, "
+                        + "description TEXT NOT NULL, "
+                        + "applied_at DATETIME NOT NULL DEFAULT (datetime('now')))");
+            }
+
+            int current = currentVersion(conn);
+            List<Migration> pending = new ArrayList<>();
+            for (Migration m : MIGRATIONS) {
+                if (m.version > current) {
+                    pending.add(m);
+                }
+            }
+
+            if (pending.isEmpty()) {
+                Log.info("SchemaMigrator", "Schema is up to date (version " + current + ")");
+                return current;
+            }
+
+            for (Migration m : pending) {
+                apply(conn, m);
+                current = m.version;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Before V1's unique index on inventory(meal_id): a meal with several inventory
+     * rows keeps its most recently added one (highest inventory_id). Every row
+     * removed is logged with its stock, so the merge can be checked and corrected.
+     */
+    private static void mergeDuplicateInventory(Connection conn) throws SQLException {
+        String duplicates = "SELECT i.inventory_id, i.meal_id, i.stock_quantity, i.status, k.keep_id "
+                + "FROM inventory i "
+                + "JOIN (SELECT meal_id, MAX(inventory_id) AS keep_id FROM inventory GROUP BY meal_id HAVING COUNT(*) > 1) k "
+                + "ON k.meal_id = i.meal_id AND i.inventory_id <> k.keep_id "
+                + "ORDER BY i.meal_id, i.inventory_id";
+        List<Integer> removed = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(duplicates);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                removed.add(rs.getInt("inventory_id"));
+                Log.warn("SchemaMigrator", "Duplicate inventory row removed: inventory_id=" + rs.getInt("inventory_id")
+                        + ", meal_id=" + rs.getInt("meal_id")
+                        + ", stock_quantity=" + rs.getInt("stock_quantity")
+                        + ", status=" + rs.getString("status")
+                        + " (kept inventory_id=" + rs.getInt("keep_id") + ")");
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM inventory WHERE inventory_id = ?")) {
+            for (int id : removed) {
+                ps.setInt(1, id);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * @return the highest applied version, or 0 for a database that was never migrated
+     */
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        Log.info("SchemaMigrator", "Applying V" + m.version + ": " + m.description);
+        long start = System.nanoTime();
+
+        conn.setAutoCommit(false);
+        try {
+            if (m.step != null) {
+                m.step.run(conn);
+            }
+            try (Statement st = conn.createStatement()) {
+                for (String sql : m.statements) {
+                    st.executeUpdate(sql);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                ps.setInt(1, m.version);
+                ps.setString(2, m.description);
+                ps.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            Log.error("SchemaMigrator", "V" + m.version + " failed and was rolled back: " + e.getMessage());
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        Log.info("SchemaMigrator", "V" + m.version + " applied in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
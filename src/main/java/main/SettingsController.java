@@ -14,6 +14,8 @@ import java.sql.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * SettingsController - Complete Settings Page
@@ -33,7 +35,7 @@ import java.time.temporal.ChronoUnit;
  * - Display attendance history
  * - Handle user logout with attendance tracking
  */
-public class SettingsController {
+public class SettingsController implements PageLifecycle {
     
     // UI Elements from FXML
     @FXML private Label usernameLabel;
@@ -44,12 +46,8 @@ public class SettingsController {
     @FXML private Button viewHistoryBtn;
     @FXML private Button logoutBtn;
 
-    // Database connection string
-    private static final String DB_URL = "jdbc:sqlite:database/lamesa.db";
-    
     // Date formatters
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     // Session start time (for live timer)
     private LocalDateTime sessionStartTime;
@@ -57,6 +55,10 @@ public class SettingsController {
     // Timeline for updating session timer every second
     private Timeline sessionTimerTimeline;
 
+    // True while the page is on screen; the timer only runs while visible.
+    // A prefetched page is built before it is shown, so this starts out false.
+    private boolean visible = false;
+
     /**
      * Initialize method - called automatically when FXML loads
      * 
@@ -64,14 +66,23 @@ public class SettingsController {
      */
     @FXML
     private void initialize() {
-        System.out.println("[SettingsController] Initializing settings page...");
+        Log.info("SettingsController", "Initializing settings page...");
         
         // Load user profile information
         loadUserProfile();
         
-        // Load session start time and start timer
-        loadSessionStartTime();
-        startSessionTimer();
+        // Load session start time and start timer once it is known
+        sessionTimeLabel.setText("…");
+        DbExecutor.supply(this::loadSessionStartTime)
+            .thenAccept(start -> {
+                sessionStartTime = start;
+                startSessionTimer();
+            })
+            .exceptionally(e -> {
+                Log.error("SettingsController", "Error loading session time: " + DbExecutor.rootCause(e).getMessage());
+                startSessionTimer();
+                return null;
+            });
     }
 
     /**
@@ -88,7 +99,7 @@ public class SettingsController {
         String role = SessionManager.getRole();
         
         if (username == null || username.isEmpty()) {
-            System.err.println("[SettingsController] No user logged in");
+            Log.error("SettingsController", "No user logged in");
             return;
         }
         
@@ -96,65 +107,107 @@ public class SettingsController {
         usernameLabel.setText(username);
         roleLabel.setText(role != null ? role.substring(0, 1).toUpperCase() + role.substring(1) : "Employee");
         
-        // Get account creation date from database
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            // Query to get the user's creation date
-            // Note: SQLite doesn't store creation date by default, so we'll use the first attendance record as a proxy
-            // You can add a 'created_at' column to users table for more accuracy
-            String sql = "SELECT MIN(login_time) as first_login FROM attendance WHERE username = ?";
+        // Get account creation date from database (in the background)
+        memberSinceLabel.setText("…");
+        DbExecutor.supply(() -> loadFirstLogin(username))
+            .thenAccept(firstLogin -> {
+                if (firstLogin != null) {
+                    memberSinceLabel.setText(firstLogin.format(DATE_FORMATTER));
+                } else {
+                    memberSinceLabel.setText("Today");
+                }
+                Log.info("SettingsController", "User profile loaded successfully");
+            })
+            .exceptionally(e -> {
+                Log.error("SettingsController", "Error loading user profile: " + DbExecutor.rootCause(e).getMessage());
+                memberSinceLabel.setText("Unknown");
+                return null;
+            });
+    }
+
+    /**
+     * Query the user's first login time (runs on a DbExecutor thread).
+     *
+     * Note: SQLite doesn't store creation date by default, so we use the first attendance record as a proxy.
+     * You can add a 'created_at' column to users table for more accuracy.
+     *
+     * @return the first login in local time, or null when the user never logged in
+     */
+    private LocalDateTime loadFirstLogin(String username) throws SQLException {
+        try (Connection conn = Database.getConnection()) {
+            String sql = "SELECT MIN(login_ts) as first_login FROM attendance WHERE username = ?";
             
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setString(1, username);
                 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        String firstLogin = rs.getString("first_login");
-                        if (firstLogin != null && !firstLogin.isEmpty()) {
-                            LocalDateTime firstLoginDate = LocalDateTime.parse(firstLogin, TIME_FORMATTER);
-                            memberSinceLabel.setText(firstLoginDate.format(DATE_FORMATTER));
-                        } else {
-                            memberSinceLabel.setText("Today");
-                        }
-                    } else {
-                        memberSinceLabel.setText("Today");
+                        long firstLogin = rs.getLong("first_login");
+                        return rs.wasNull() ? null : TimeRange.toLocalDateTime(firstLogin);
                     }
+                    return null;
                 }
             }
-            
-            System.out.println("[SettingsController] User profile loaded successfully");
-            
-        } catch (SQLException e) {
-            System.err.println("[SettingsController] Error loading user profile: " + e.getMessage());
-            e.printStackTrace();
-            memberSinceLabel.setText("Unknown");
         }
     }
 
     /**
-     * Load the current session start time from database
+     * Load the current session start time from database (runs on a DbExecutor thread)
      * 
-     * Gets the most recent login_time for the current user where logout_time is NULL
+     * Gets the most recent login_ts for the current user where logout_time is NULL
+     *
+     * @return the session start in local time, or null when there is no open session
      */
-    private void loadSessionStartTime() {
+    private LocalDateTime loadSessionStartTime() throws SQLException {
         String username = SessionManager.getUsername();
-        if (username == null) return;
+        if (username == null) return null;
         
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            String sql = "SELECT login_time FROM attendance WHERE username = ? AND logout_time IS NULL ORDER BY id DESC LIMIT 1";
+        try (Connection conn = Database.getConnection()) {
+            String sql = "SELECT login_ts FROM attendance WHERE username = ? AND logout_time IS NULL ORDER BY id DESC LIMIT 1";
             
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setString(1, username);
                 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        String loginTimeStr = rs.getString("login_time");
-                        sessionStartTime = LocalDateTime.parse(loginTimeStr, TIME_FORMATTER);
-                        System.out.println("[SettingsController] Session start time: " + sessionStartTime);
+                        LocalDateTime start = TimeRange.toLocalDateTime(rs.getLong("login_ts"));
+                        Log.info("SettingsController", "Session start time: " + start);
+                        return start;
                     }
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("[SettingsController] Error loading session time: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * First time on screen: start ticking (if the session start is known by now).
+     */
+    @Override
+    public void onFirstShow() {
+        onShow();
+    }
+
+    /**
+     * Back from another page: bring the session time up to date and resume the timer.
+     */
+    @Override
+    public void onShow() {
+        visible = true;
+        if (sessionTimerTimeline != null) {
+            updateSessionDisplay();
+            sessionTimerTimeline.play();
+        }
+    }
+
+    /**
+     * Hidden: nobody sees the session time, so stop ticking until the page is shown again.
+     */
+    @Override
+    public void onHide() {
+        visible = false;
+        if (sessionTimerTimeline != null) {
+            sessionTimerTimeline.pause();
         }
     }
 
@@ -174,7 +227,9 @@ public class SettingsController {
             updateSessionDisplay();
         }));
         sessionTimerTimeline.setCycleCount(Timeline.INDEFINITE);
-        sessionTimerTimeline.play();
+        if (visible) {
+            sessionTimerTimeline.play();
+        }
         
         // Initial update
         updateSessionDisplay();
@@ -207,7 +262,7 @@ public class SettingsController {
      */
     @FXML
     private void onChangePassword() {
-        System.out.println("[SettingsController] Change password clicked");
+        Log.info("SettingsController", "Change password clicked");
         
         // Create a custom dialog
         Dialog<ButtonType> dialog = new Dialog<>();
@@ -277,7 +332,7 @@ public class SettingsController {
      */
     @FXML
     private void onViewHistory() {
-        System.out.println("[SettingsController] View history clicked");
+        Log.info("SettingsController", "View history clicked");
         
         String username = SessionManager.getUsername();
         if (username == null) return;
@@ -316,48 +371,67 @@ public class SettingsController {
         
         table.getColumns().addAll(dateCol, loginCol, logoutCol, hoursCol, statusCol);
         
-        // Load data from database
-        try (Connection conn = DriverManager.getConnection(DB_URL)) {
-            String sql = "SELECT login_time, logout_time, worked_hours, full_shift FROM attendance WHERE username = ? ORDER BY id DESC LIMIT 20";
+        // Show the dialog right away and fill it when the query returns
+        Label loading = new Label("Loading attendance records…");
+        loading.setStyle("-fx-padding: 20; -fx-font-size: 14px; -fx-text-fill: #6b7280;");
+        dialog.getDialogPane().setContent(loading);
+        dialog.show();
+        
+        DbExecutor.supply(() -> loadAttendanceHistory(username))
+            .thenAccept(records -> {
+                table.getItems().setAll(records);
+                
+                // If no records found
+                if (table.getItems().isEmpty()) {
+                    loading.setText("No attendance records found");
+                } else {
+                    dialog.getDialogPane().setContent(table);
+                }
+            })
+            .exceptionally(e -> {
+                Log.error("SettingsController", "Error loading attendance history: " + DbExecutor.rootCause(e).getMessage());
+                loading.setText("No attendance records found");
+                return null;
+            });
+    }
+
+    /**
+     * Load the user's 20 most recent attendance records (runs on a DbExecutor thread)
+     */
+    private List<AttendanceRecord> loadAttendanceHistory(String username) throws SQLException {
+        List<AttendanceRecord> records = new ArrayList<>();
+        
+        try (Connection conn = Database.getConnection()) {
+            String sql = "SELECT login_ts, logout_ts, worked_hours, full_shift FROM attendance WHERE username = ? ORDER BY id DESC LIMIT 20";
             
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setString(1, username);
                 
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        String loginTime = rs.getString("login_time");
-                        String logoutTime = rs.getString("logout_time");
+                        long loginTs = rs.getLong("login_ts");
+                        boolean hasLogin = !rs.wasNull();
+                        long logoutTs = rs.getLong("logout_ts");
+                        boolean hasLogout = !rs.wasNull();
                         double workedHours = rs.getDouble("worked_hours");
                         boolean fullShift = rs.getBoolean("full_shift");
                         
-                        if (loginTime != null) {
-                            LocalDateTime loginDT = LocalDateTime.parse(loginTime, TIME_FORMATTER);
+                        if (hasLogin) {
+                            // Epoch columns are shown in local time
+                            LocalDateTime loginDT = TimeRange.toLocalDateTime(loginTs);
                             String date = loginDT.format(DATE_FORMATTER);
                             String login = loginDT.format(DateTimeFormatter.ofPattern("HH:mm:ss"));
-                            String logout = logoutTime != null ? LocalDateTime.parse(logoutTime, TIME_FORMATTER).format(DateTimeFormatter.ofPattern("HH:mm:ss")) : "Active";
-                            String hours = logoutTime != null ? String.format("%.2f hrs", workedHours) : "-";
-                            String status = logoutTime != null ? (fullShift ? "✓ Complete" : "Incomplete") : "Active";
+                            String logout = hasLogout ? TimeRange.toLocalDateTime(logoutTs).format(DateTimeFormatter.ofPattern("HH:mm:ss")) : "Active";
+                            String hours = hasLogout ? String.format("%.2f hrs", workedHours) : "-";
+                            String status = hasLogout ? (fullShift ? "✓ Complete" : "Incomplete") : "Active";
                             
-                            table.getItems().add(new AttendanceRecord(date, login, logout, hours, status));
+                            records.add(new AttendanceRecord(date, login, logout, hours, status));
                         }
                     }
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("[SettingsController] Error loading attendance history: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        // If no records found
-        if (table.getItems().isEmpty()) {
-            Label noData = new Label("No attendance records found");
-            noData.setStyle("-fx-padding: 20; -fx-font-size: 14px; -fx-text-fill: #6b7280;");
-            dialog.getDialogPane().setContent(noData);
-        } else {
-            dialog.getDialogPane().setContent(table);
         }
-        
-        dialog.show();
+        return records;
     }
 
     /**
@@ -371,7 +445,7 @@ public class SettingsController {
      */
     @FXML
     private void onLogout() {
-        System.out.println("[SettingsController] Logout clicked");
+        Log.info("SettingsController", "Logout clicked");
         
         // Stop the session timer
         if (sessionTimerTimeline != null) {
@@ -381,16 +455,22 @@ public class SettingsController {
         // Get current user
         String currentUser = SessionManager.getUsername();
         
-        if (currentUser != null && !currentUser.isEmpty()) {
-            // Record logout timestamp, compute hours worked, mark full shift
-            AttendanceUtils.recordLogout(currentUser);
+        if (currentUser == null || currentUser.isEmpty()) {
+            SessionManager.clear();
+            App.setRoot("login");
+            return;
         }
 
-        // Clear user session
-        SessionManager.clear();
-
-        // Navigate back to login page
-        App.setRoot("login");
+        // Record logout timestamp, compute hours worked, mark full shift (in the background),
+        // then clear the session and navigate back to the login page
+        DbExecutor.run(() -> AttendanceUtils.recordLogout(currentUser))
+            .whenComplete((ignored, e) -> {
+                if (e != null) {
+                    Log.error("SettingsController", "Error recording logout: " + DbExecutor.rootCause(e).getMessage());
+                }
+                SessionManager.clear();
+                App.setRoot("login");
+            });
     }
 
     /**
@@ -0,0 +1,154 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SlowQueryLog
+ *
+ * Writes queries that take longer than a threshold, with their query plan, to a
+ * rotating log file, so plan regressions ("SCAN sales" instead of an index
+ * search) show up as soon as they happen.
+ *
+ * - QueryMetrics calls isSlow() for every execution (one comparison) and
+ *   report() only for slow ones, so fast queries cost nothing extra.
+ * - Each logical query is logged once per run: name, SQL, the shape of its
+ *   bound parameters (types only, never values), duration and rows.
+ * - EXPLAIN QUERY PLAN runs later on a single background thread with its own
+ *   pooled connection; plan lines that scan a whole table are marked FULL SCAN.
+ * - The file rotates at a size limit, keeping a few old files (see RotatingFile).
+ *
+ * Configuration (JVM system properties):
+ * - lamesa.db.slowQueryMs    threshold in milliseconds (default 200, 0 disables)
+ * - lamesa.db.slowLog        log file (default logs/slow-queries.log)
+ * - lamesa.db.slowLogBytes   rotate above this size (default 1 MB)
+ * - lamesa.db.slowLogFiles   rotated files kept (default 3)
+ */
+final class SlowQueryLog {
+
+    private static final long THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("lamesa.db.slowQueryMs", 200L));
+    private static final RotatingFile LOG = new RotatingFile(
+            Paths.get(System.getProperty("lamesa.db.slowLog", "logs/slow-queries.log")),
+            Long.getLong("lamesa.db.slowLogBytes", 1024L * 1024),
+            Integer.getInteger("lamesa.db.slowLogFiles", 3));
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Logical query names already logged this run
+    private static final Set<String> LOGGED = ConcurrentHashMap.newKeySet();
+
+    // One daemon thread; a short queue so a storm of slow queries cannot pile up
+    private static final ExecutorService WRITER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(64), r -> {
+                Thread t = new Thread(r, "lamesa-slow-query-log");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private SlowQueryLog() {
+    }
+
+    static boolean isSlow(long nanos) {
+        return THRESHOLD_NANOS > 0 && nanos >= THRESHOLD_NANOS;
+    }
+
+    /**
+     * Log a slow query, unless the same logical query was already logged.
+     */
+    static void report(String name, String sql, String parameterShape, long nanos, long rows) {
+        // Our own EXPLAIN statements are not worth a plan of their own
+        if (name.startsWith("SlowQueryLog.") || !LOGGED.add(name)) {
+            return;
+        }
+        String when = LocalDateTime.now().format(TIME);
+        double ms = nanos / 1e6;
+        Log.warn("SlowQueryLog", String.format(Locale.ROOT, "%s took %.1f ms (logged to %s)", name, ms, LOG.path()));
+
+        try {
+            WRITER.execute(() -> write(when, name, sql, parameterShape, ms, rows));
+        } catch (RejectedExecutionException e) {
+            // Queue full: drop this one, and allow it to be logged again later
+            LOGGED.remove(name);
+        }
+    }
+
+    private static void write(String when, String name, String sql, String parameterShape, double ms, long rows) {
+        StringBuilder entry = new StringBuilder();
+        entry.append(String.format(Locale.ROOT, "%s  %s  %.1f ms  %d rows%n", when, name, ms, rows));
+        entry.append("  SQL:    ").append(sql == null ? "(unknown)" : sql.replaceAll("\\s+", " ").trim()).append('\n');
+        entry.append("  Params: ").append(parameterShape).append('\n');
+        entry.append("  Plan:\n");
+        for (String line : explain(sql)) {
+            entry.append("    ").append(line).append('\n');
+        }
+        entry.append('\n');
+
+        try {
+            LOG.append(entry.toString());
+        } catch (IOException e) {
+            Log.warn("SlowQueryLog", "Could not write " + LOG.path() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * EXPLAIN QUERY PLAN for the statement, one line per plan step, indented by depth.
+     * Parameters are left unbound; SQLite plans them as unknown values.
+     */
+    private static String[] explain(String sql) {
+        if (sql == null || !isExplainable(sql)) {
+            return new String[] { "(not a query)" };
+        }
+        StringBuilder plan = new StringBuilder();
+        try (Connection conn = Database.getConnection();
+             PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = ps.executeQuery()) {
+            Map<Integer, Integer> depth = new HashMap<>();
+            while (rs.next()) {
+                int id = rs.getInt("id");
+                int parent = rs.getInt("parent");
+                int level = parent == 0 ? 0 : depth.getOrDefault(parent, 0) + 1;
+                depth.put(id, level);
+
+                String detail = rs.getString("detail");
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append("  ".repeat(level)).append(detail);
+                if (isFullScan(detail)) {
+                    plan.append("   <-- FULL SCAN");
+                }
+            }
+        } catch (SQLException e) {
+            return new String[] { "(EXPLAIN failed: " + e.getMessage() + ")" };
+        }
+        return plan.length() == 0 ? new String[] { "(empty plan)" } : plan.toString().split("\n");
+    }
+
+    private static boolean isExplainable(String sql) {
+        String s = sql.trim().toUpperCase(Locale.ROOT);
+        return s.startsWith("SELECT") || s.startsWith("WITH") || s.startsWith("UPDATE")
+                || s.startsWith("DELETE") || s.startsWith("INSERT") || s.startsWith("REPLACE");
+    }
+
+    // "SCAN sales" reads every row; "SCAN sales USING COVERING INDEX ..." reads an index in order
+    private static boolean isFullScan(String detail) {
+        return detail.startsWith("SCAN ") && !detail.contains(" USING ");
+    }
+}
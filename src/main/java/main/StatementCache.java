@@ -0,0 +1,207 @@
+package main;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StatementCache
+ *
+ * Prepared statement cache that lives with one pooled connection.
+ *
+ * - Keyed by the exact SQL text passed to prepareStatement(sql).
+ * - Holds only idle statements: a statement is taken out while a caller uses it
+ *   and put back when the caller closes it, so two users of the same SQL never
+ *   share one statement.
+ * - Bounded LRU: when full, the least recently used statement is really closed.
+ * - Hit/miss counters are kept per cache and summed over all caches, so the
+ *   effect on login, stock edits and orders can be checked at runtime.
+ *
+ * Size is configured with the lamesa.db.statementCacheSize system property (default 32,
+ * 0 disables caching).
+ */
+final class StatementCache {
+
+    static final int MAX_SIZE = Integer.getInteger("lamesa.db.statementCacheSize", 32);
+
+    // Totals over every connection in the pool
+    private static final AtomicLong totalHits = new AtomicLong();
+    private static final AtomicLong totalMisses = new AtomicLong();
+    private static final AtomicLong totalEvictions = new AtomicLong();
+
+    private final Connection physical;
+
+    // Idle statements in access order (eldest first)
+    private final LinkedHashMap<String, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits = 0;
+    private long misses = 0;
+
+    StatementCache(Connection physical) {
+        this.physical = physical;
+    }
+
+    /**
+     * Return a statement for the SQL, reusing an idle one when available.
+     * The returned proxy goes back into the cache when closed.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = idle.remove(sql);
+
+        if (statement != null) {
+            hits++;
+            totalHits.incrementAndGet();
+        } else {
+            misses++;
+            totalMisses.incrementAndGet();
+            statement = physical.prepareStatement(sql);
+        }
+
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new CachedStatement(sql, statement));
+    }
+
+    /**
+     * Really close every idle statement (used when the physical connection closes).
+     */
+    void clear() {
+        for (PreparedStatement statement : idle.values()) {
+            closeQuietly(statement);
+        }
+        idle.clear();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    static long getTotalHits() {
+        return totalHits.get();
+    }
+
+    static long getTotalMisses() {
+        return totalMisses.get();
+    }
+
+    /**
+     * One-line summary of the pool-wide counters, e.g. for the console on shutdown.
+     */
+    static String summary() {
+        long h = totalHits.get();
+        long m = totalMisses.get();
+        long total = h + m;
+        double ratio = total == 0 ? 0 : (h * 100.0) / total;
+        return String.format("hits=%d misses=%d evictions=%d hitRatio=%.1f%%", h, m, totalEvictions.get(), ratio);
+    }
+
+    /**
+     * Put a statement the caller finished with back into the cache.
+     */
+    private void giveBack(String sql, PreparedStatement statement) {
+        if (MAX_SIZE <= 0 || idle.containsKey(sql)) {
+            // Caching disabled, or the same SQL was prepared twice at once: keep only one
+            closeQuietly(statement);
+            return;
+        }
+
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+
+        idle.put(sql, statement);
+
+        if (idle.size() > MAX_SIZE) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = idle.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+            totalEvictions.incrementAndGet();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // Nothing useful to do; the statement is being thrown away anyway
+        }
+    }
+
+    /**
+     * Invocation handler behind each PreparedStatement handed out by the cache.
+     * close() resets the statement and returns it instead of closing it.
+     */
+    private final class CachedStatement implements InvocationHandler {
+
+        private final String sql;
+        private final PreparedStatement statement;
+
+        // Result set from the last executeQuery(), closed before reuse
+        private ResultSet lastResult;
+        private boolean closed = false;
+
+        CachedStatement(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (lastResult != null) {
+                            closeQuietly(lastResult);
+                            lastResult = null;
+                        }
+                        giveBack(sql, statement);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + sql + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof ResultSet) {
+                lastResult = (ResultSet) result;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package main;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+/**
+ * TimeRange
+ *
+ * A half-open range of local calendar days: [start, end).
+ *
+ * - Queries bind its bounds as "col >= ? AND col < ?", which SQLite can answer
+ *   with an index range scan (unlike strftime(...) = ... on every row).
+ * - Bounds are available as epoch seconds (sales.sale_ts, attendance.login_ts),
+ *   day keys ('yyyy-MM-dd', sales_daily.day) and month keys ('yyyy-MM', sales_monthly.month).
+ * - Day boundaries are taken in the system time zone, so "this month" means the
+ *   same thing for sales (stored in local time) and attendance (stored in UTC).
+ */
+public final class TimeRange {
+
+    /** First day in the range (inclusive). */
+    public final LocalDate start;
+
+    /** First day after the range (exclusive). */
+    public final LocalDate end;
+
+    private TimeRange(LocalDate start, LocalDate end) {
+        this.start = start;
+        this.end = end.isBefore(start) ? start : end;
+    }
+
+    /**
+     * The days from first to last, both inclusive (as picked in a DatePicker).
+     */
+    public static TimeRange ofDays(LocalDate first, LocalDate last) {
+        return new TimeRange(first, last.plusDays(1));
+    }
+
+    public static TimeRange month(YearMonth month) {
+        return new TimeRange(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    public static TimeRange year(int year) {
+        return new TimeRange(LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+    }
+
+    public static TimeRange currentMonth() {
+        return month(YearMonth.now());
+    }
+
+    public static TimeRange currentYear() {
+        return year(LocalDate.now().getYear());
+    }
+
+    /**
+     * The days present in both ranges (empty when they do not overlap).
+     */
+    public TimeRange intersect(TimeRange other) {
+        LocalDate s = start.isAfter(other.start) ? start : other.start;
+        LocalDate e = end.isBefore(other.end) ? end : other.end;
+        return new TimeRange(s, e);
+    }
+
+    public boolean isEmpty() {
+        return !start.isBefore(end);
+    }
+
+    public long startEpoch() {
+        return toEpoch(start);
+    }
+
+    public long endEpoch() {
+        return toEpoch(end);
+    }
+
+    public String startDay() {
+        return start.toString();
+    }
+
+    public String endDay() {
+        return end.toString();
+    }
+
+    /**
+     * Month key of the first month touched by the range. Only exact for month-aligned ranges.
+     */
+    public String startMonth() {
+        return YearMonth.from(start).toString();
+    }
+
+    /**
+     * Month key of the first month after the range. Only exact for month-aligned ranges.
+     */
+    public String endMonth() {
+        return YearMonth.from(end.minusDays(1)).plusMonths(1).toString();
+    }
+
+    /**
+     * Local date-time of an epoch-seconds column value.
+     */
+    public static LocalDateTime toLocalDateTime(long epochSeconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault());
+    }
+
+    private static long toEpoch(LocalDate day) {
+        return day.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ")";
+    }
+}